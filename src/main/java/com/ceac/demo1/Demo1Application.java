@@ -2,10 +2,12 @@ package com.ceac.demo1;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /// *Cliente envia algo* Controller > Service > Repository > Entity > Config/Exception
 
 @SpringBootApplication
+@EnableScheduling // Tareas periódicas (p. ej. el barrido de sesiones caducadas)
 public class Demo1Application {
 
 	public static void main(String[] args) {
@@ -1,23 +1,26 @@
 package com.ceac.demo1.config;
 
 import com.ceac.demo1.services.auth.TokenService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
 /**
  * Filtro de autenticación que se ejecuta una vez por petición.
- * - Omite endpoints públicos (p. ej. /auth/**, /actuator/**).
+ * - Omite endpoints públicos (app.auth.public-paths, p. ej. /auth/**, /actuator/health/**).
  * - Para el resto, exige un token válido en el header Authorization.
  * - Si el token es válido, adjunta el email del usuario a la request.
  * - Si no lo es, devuelve 401 con un cuerpo JSON mínimo.
+ * - Cuenta los rechazos en la métrica auth.filter.rejections (reason=missing|invalid).
  */
 @Component
 @Order(1) // Prioridad del filtro en la cadena (menor número = mayor prioridad).
@@ -28,21 +31,36 @@ public class AuthFilter extends OncePerRequestFilter {
 
     private final TokenService tokenService;
 
-    // AntPathMatcher permite patrón tipo /ruta/** para decidir si una URL es pública.
-    private final AntPathMatcher matcher = new AntPathMatcher();
+    // Patrones tipo /ruta/** compilados una vez al arrancar (no se re-analizan en cada petición).
+    private final PublicRoutes publicRoutes;
 
-    public AuthFilter(TokenService tokenService) {
+    // Sin header "Bearer ..." / con token caducado, revocado o falso.
+    private final Counter missingToken;
+    private final Counter invalidToken;
+
+    public AuthFilter(TokenService tokenService,
+                      @Value("${app.auth.public-paths:/auth/**,/actuator/health/**}") String[] publicPaths,
+                      MeterRegistry registry) {
         this.tokenService = tokenService;
+        this.publicRoutes = new PublicRoutes(publicPaths);
+        this.missingToken = rejections(registry, "missing");
+        this.invalidToken = rejections(registry, "invalid");
+    }
+
+    private static Counter rejections(MeterRegistry registry, String reason) {
+        return Counter.builder("auth.filter.rejections")
+                .description("Peticiones a rutas protegidas rechazadas con 401")
+                .tag("reason", reason)
+                .register(registry);
     }
 
     /**
      * Determina si la petición apunta a un endpoint público.
-     * Ajusta aquí las rutas que no requieren autenticación.
+     * Las rutas que no requieren autenticación se configuran en app.auth.public-paths
+     * (health checks, swagger, etc.).
      */
     private boolean isPublic(HttpServletRequest req) {
-        String path = req.getRequestURI();
-        // Endpoints públicos. Añade aquí health checks, swagger, etc. si procede.
-        return matcher.match("/auth/**", path) || matcher.match("/actuator/**", path);
+        return publicRoutes.matches(req.getRequestURI());
     }
 
     /**
@@ -62,24 +80,27 @@ public class AuthFilter extends OncePerRequestFilter {
             return;
         }
 
+        // OJO: aquí se espera el header Authorization. Idealmente "Bearer <token>"
+        String authHeader = request.getHeader(AUTH_HEADER);
+        String email;
         try {
-            // OJO: aquí se espera el header Authorization. Idealmente "Bearer <token>"
-            String authHeader = request.getHeader(AUTH_HEADER);
-
             // TokenService se encarga de validar y devolver el email (o lanza excepción si no es válido).
-            String email = tokenService.requireUser(authHeader);
-
-            // Dejamos el email accesible aguas abajo (controladores, etc.).
-            request.setAttribute(REQ_ATTR_USER_EMAIL, email);
-
-            filterChain.doFilter(request, response);
-
+            email = tokenService.requireUser(authHeader);
         } catch (Exception e) {
+            (authHeader == null || !authHeader.startsWith("Bearer ") ? missingToken : invalidToken).increment();
+
             // No damos detalles del motivo para no filtrar info sensible.
             response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             response.setContentType("application/json");
             response.setCharacterEncoding("UTF-8");
             response.getWriter().write("{\"message\":\"Debes iniciar sesión para continuar.\"}");
+            return;
         }
+
+        // Dejamos el email accesible aguas abajo (controladores, etc.).
+        request.setAttribute(REQ_ATTR_USER_EMAIL, email);
+
+        // Fuera del try: un fallo de aquí en adelante no es de autenticación y no debe acabar en 401.
+        filterChain.doFilter(request, response);
     }
 }
@@ -0,0 +1,76 @@
+package com.ceac.demo1.config;
+
+import com.ceac.demo1.services.ProductService;
+import com.ceac.demo1.services.auth.TokenService;
+import com.ceac.demo1.services.catalog.ProductCache;
+import com.ceac.demo1.services.catalog.ResponseBodyCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/// Métricas propias que se publican en /actuator/prometheus junto a las de Spring Boot
+/// (http.server.requests de cada endpoint, JVM, Hikari...):
+/// - auth.sessions.*: sesiones vivas y caducadas / desalojadas / revocadas (TokenService).
+/// - catalog.cache.*: tamaño, aciertos y fallos de las cachés del catálogo.
+/// - hibernate.statements.*: sentencias SQL por petición y presupuesto por endpoint ({@link SqlStatementMetrics}).
+///
+/// Las del pool de BCrypt (auth.password.hash) y los rechazos de AuthFilter (auth.filter.rejections)
+/// se registran en esas mismas clases, porque se miden en cada llamada.
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public SqlStatementMetrics sqlStatementMetrics(MeterRegistry registry,
+                                                   @Value("${app.sql.budget.max-statements:10}") int maxStatements,
+                                                   @Value("${app.sql.budget.repeated-threshold:5}") int repeatedThreshold,
+                                                   @Value("${app.sql.budget.overrides:}") String[] overrides) {
+        return new SqlStatementMetrics(registry, maxStatements, repeatedThreshold, overrides);
+    }
+
+    /// Hibernate pasa cada sentencia por SqlStatementMetrics.count (solo suma 1; no la modifica).
+    @Bean
+    public HibernatePropertiesCustomizer statementCounter() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR,
+                (StatementInspector) SqlStatementMetrics::count);
+    }
+
+    @Bean
+    public MeterBinder sessionMetrics(TokenService tokenService) {
+        return registry -> {
+            Gauge.builder("auth.sessions.active", tokenService, t -> t.stats().size())
+                    .description("Sesiones vivas (modo session)")
+                    .register(registry);
+            FunctionCounter.builder("auth.sessions.expired", tokenService, t -> t.stats().expired()).register(registry);
+            FunctionCounter.builder("auth.sessions.evicted", tokenService, t -> t.stats().evicted()).register(registry);
+            FunctionCounter.builder("auth.sessions.revoked", tokenService, t -> t.stats().revoked()).register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder catalogCacheMetrics(ProductService products, ResponseBodyCache responses) {
+        return registry -> {
+            cache(registry, "products", products, p -> p.cacheStats().products());
+            cache(registry, "pages", products, p -> p.cacheStats().pages());
+            cache(registry, "responses", responses, ResponseBodyCache::stats);
+        };
+    }
+
+    /// Se mide el bean ("source"), no una lambda: Micrometer guarda el objeto medido con una referencia débil.
+    private static <T> void cache(MeterRegistry registry, String name, T source, Function<T, ProductCache.Usage> usage) {
+        Tags tags = Tags.of("cache", name);
+        Gauge.builder("catalog.cache.size", source, t -> usage.apply(t).size()).tags(tags).register(registry);
+        FunctionCounter.builder("catalog.cache.hits", source, t -> usage.apply(t).hits()).tags(tags).register(registry);
+        FunctionCounter.builder("catalog.cache.misses", source, t -> usage.apply(t).misses()).tags(tags).register(registry);
+        FunctionCounter.builder("catalog.cache.evictions", source, t -> usage.apply(t).evictions()).tags(tags).register(registry);
+    }
+}
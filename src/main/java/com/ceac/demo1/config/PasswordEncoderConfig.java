@@ -0,0 +1,37 @@
+package com.ceac.demo1.config;
+
+import com.ceac.demo1.services.auth.BCryptStrength;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Path;
+
+/// Un único BCryptPasswordEncoder para toda la aplicación (antes cada clase creaba el suyo).
+///
+/// - app.security.bcrypt.strength > 0  → se usa ese coste tal cual.
+/// - app.security.bcrypt.strength = 0  → se calibra al arrancar para tardar ~target-ms por hash. Con
+///   app.security.bcrypt.calibration-file el coste se guarda y solo cambia si la máquina es otra
+///   (ver {@link BCryptStrength#calibrate(long, int, Path)}); vacío, se mide de cero en cada arranque.
+@Configuration
+public class PasswordEncoderConfig {
+
+    @Bean
+    public BCryptStrength bcryptStrength(@Value("${app.security.bcrypt.strength:0}") int strength,
+                                         @Value("${app.security.bcrypt.target-ms:250}") long targetMs,
+                                         @Value("${app.security.bcrypt.min-strength:10}") int minStrength,
+                                         @Value("${app.security.bcrypt.calibration-file:}") String calibrationFile) {
+        if (strength > 0) {
+            return new BCryptStrength(strength);
+        }
+        return calibrationFile.isBlank()
+                ? BCryptStrength.calibrate(targetMs, minStrength)
+                : BCryptStrength.calibrate(targetMs, minStrength, Path.of(calibrationFile));
+    }
+
+    @Bean
+    public BCryptPasswordEncoder passwordEncoder(BCryptStrength strength) {
+        return new BCryptPasswordEncoder(strength.value());
+    }
+}
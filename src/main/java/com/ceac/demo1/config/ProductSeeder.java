@@ -5,29 +5,72 @@ package com.ceac.demo1.config;
 
 import com.ceac.demo1.entities.ProductModel;   /// Importa la entidad ProductModel (representa la tabla products)
 import com.ceac.demo1.repositories.IProductRepository;  /// Importa el repositorio para interactuar con la base de datos
-import com.fasterxml.jackson.core.type.TypeReference;   /// Clase que ayuda a leer listas genéricas de JSON
+import com.ceac.demo1.repositories.ProductBatchWriter;  /// Upsert por bloques con JDBC (sin un INSERT por fila)
+import com.ceac.demo1.services.catalog.ProductImportPipeline; /// Bloques + hilos escritores con memoria acotada
+import com.ceac.demo1.services.catalog.ProductsChangedEvent; /// Aviso a cachés e índices de que el catálogo ha cambiado
+import com.ceac.demo1.services.catalog.UpsertReport;    /// Nuevos / actualizados / sin cambios
+import com.fasterxml.jackson.core.JsonParser;           /// Lector de JSON token a token (no carga el fichero entero)
+import com.fasterxml.jackson.core.JsonToken;            /// Tipos de token: inicio de array, inicio de objeto...
 import com.fasterxml.jackson.databind.ObjectMapper;     /// Conversor entre JSON y objetos Java (de la librería Jackson)
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;      /// Permite ejecutar código al iniciar la aplicación
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;      /// Marca un método como "bean" (instancia gestionada por Spring)
 import org.springframework.context.annotation.Configuration; /// Indica que esta clase contiene configuración para Spring
+import org.springframework.core.io.Resource;            /// Fichero de origen (classpath:, file:...)
 
+import java.io.IOException;
 import java.io.InputStream;  /// Sirve para leer archivos dentro del proyecto (como el JSON)
-import java.util.List;       /// Lista genérica de Java
 
+/// Carga inicial del catálogo, pensada también para ficheros de millones de productos:
+/// - El JSON se lee producto a producto (streaming): en memoria solo hay los bloques en curso.
+/// - Cada bloque (app.seed.products.batch-size) se guarda con un upsert multi-fila por (title, platform)
+///   y se confirma aparte: relanzar el seed no duplica productos.
+/// - Los bloques los escriben app.seed.products.writer-threads hilos mientras se sigue leyendo el fichero
+///   ({@link ProductImportPipeline}, la misma tubería que POST /products/import).
 @Configuration  /// Indica a Spring que esta clase define Beans de configuración
 public class ProductSeeder {
 
-    /// Repositorio para guardar y consultar productos en la base de datos
+    private static final Logger log = LoggerFactory.getLogger(ProductSeeder.class);
+
+    /// Repositorio para consultar si ya hay productos en la base de datos
     private final IProductRepository repo;
 
+    /// Escritor por bloques (JDBC, upsert)
+    private final ProductBatchWriter writer;
+
+    /// Para avisar a cachés e índices al terminar (el escritor no pasa por JPA)
+    private final ApplicationEventPublisher events;
+
     /// Mapper de Jackson que convierte JSON <-> Objetos Java
     private final ObjectMapper mapper;
 
+    private final Resource source;
+    private final int batchSize;
+    private final int writerThreads;
+    private final long logEvery;
+    private final boolean virtualThreads;
+
     /// Constructor con inyección de dependencias
-    /// Spring pasa automáticamente el repositorio y el ObjectMapper
-    public ProductSeeder(IProductRepository repo, ObjectMapper mapper) {
+    /// Spring pasa automáticamente el repositorio, el escritor, el ObjectMapper y la configuración
+    public ProductSeeder(IProductRepository repo, ProductBatchWriter writer, ApplicationEventPublisher events,
+                         ObjectMapper mapper,
+                         @Value("${app.seed.products.location:classpath:products.json}") Resource source,
+                         @Value("${app.seed.products.batch-size:1000}") int batchSize,
+                         @Value("${app.seed.products.writer-threads:1}") int writerThreads,
+                         @Value("${app.seed.products.log-every:100000}") long logEvery,
+                         @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.repo = repo;
+        this.writer = writer;
+        this.events = events;
         this.mapper = mapper;  /// Usamos el ObjectMapper de Spring (ya configurado)
+        this.source = source;
+        this.batchSize = Math.max(1, batchSize);
+        this.writerThreads = Math.max(1, writerThreads);
+        this.logEvery = Math.max(1, logEvery);
+        this.virtualThreads = virtualThreads;
     }
 
     /// Definimos un Bean de tipo CommandLineRunner
@@ -41,27 +84,45 @@ public class ProductSeeder {
             /// Así evitamos duplicar los datos cada vez que la app arranca
             if (repo.count() > 0) return;
 
-            /// Abrimos el archivo products.json que está en la carpeta resources
-            /// El try-with-resources cierra automáticamente el archivo al terminar
-            try (InputStream is = getClass().getResourceAsStream("/products.json")) {
-
-                /// Convertimos el contenido del JSON en una lista de objetos ProductModel
-                /// TypeReference permite a Jackson entender que debe leer una lista genérica (List<ProductModel>)
-                List<ProductModel> items = mapper.readValue(
-                        is, new TypeReference<List<ProductModel>>() {}
-                );
-
-                /// Guardamos todos los productos en la base de datos de una sola vez
-                repo.saveAll(items);
-
-                /// Mostramos por consola cuántos productos se insertaron
-                System.out.println("Seed de products cargado: " + items.size());
-
+            try {
+                seed();
             } catch (Exception e) {
-                /// Si ocurre un error (archivo no encontrado, formato incorrecto, etc.)
-                /// mostramos un mensaje de error por consola
-                System.err.println("No se pudo cargar products.json: " + e.getMessage());
+                /// Si ocurre un error (archivo no encontrado, formato incorrecto, fallo al insertar...)
+                /// se registra; los bloques ya confirmados se quedan en la base de datos.
+                log.error("No se pudo cargar {}", source.getDescription(), e);
             }
         };
     }
+
+    /// Lee el fichero y lo guarda por bloques. Devuelve cuántos productos son nuevos, actualizados o iguales.
+    UpsertReport seed() throws IOException, InterruptedException {
+        /// changedIdsLimit = 0: al terminar se avisa de que ha cambiado todo (no se guardan millones de ids).
+        ProductImportPipeline pipeline = new ProductImportPipeline(writer, "seed", batchSize, writerThreads, logEvery, 0, virtualThreads);
+        try (pipeline;
+             InputStream is = source.getInputStream();
+             JsonParser parser = mapper.getFactory().createParser(is)) {
+
+            /// El fichero es un array de productos: [ {...}, {...}, ... ]
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Se esperaba un array JSON de productos");
+            }
+            /// Cada START_OBJECT es un producto: Jackson lee solo ese objeto y avanza.
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                pipeline.add(mapper.readValue(parser, ProductModel.class));
+            }
+            UpsertReport report = pipeline.finish();
+            long rows = report.inserted() + report.updated() + report.unchanged();
+            long ms = pipeline.elapsedMs();
+            log.info("Seed de products cargado: {} productos en {} ms ({} productos/s, {} hilos escritores, bloques de {}): "
+                            + "{} nuevos, {} actualizados, {} sin cambios",
+                    rows, ms, rows * 1000 / ms, writerThreads, batchSize,
+                    report.inserted(), report.updated(), report.unchanged());
+            return report;
+        } finally {
+            ProductsChangedEvent changes = pipeline.changes();
+            if (changes != null) {
+                events.publishEvent(changes);
+            }
+        }
+    }
 }
@@ -0,0 +1,77 @@
+package com.ceac.demo1.config;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/// Rutas públicas (sin token), compiladas una sola vez al arrancar.
+///
+/// Cada patrón de app.auth.public-paths se clasifica según su forma:
+/// - "/auth/**"          → prefijo: "/auth" y todo lo que cuelga de "/auth/". Basta comparar caracteres.
+/// - "/health"           → ruta exacta: equals.
+/// - "/docs/{x}/*.html"  → cualquier otro comodín: PathPattern precompilado de Spring.
+/// Los dos primeros casos (los habituales) no crean ningún objeto por petición.
+final class PublicRoutes {
+
+    private final String[] prefixes;
+    private final String[] exact;
+    private final PathPattern[] patterns;
+
+    PublicRoutes(String... routes) {
+        List<String> prefixes = new ArrayList<>();
+        List<String> exact = new ArrayList<>();
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String route : routes) {
+            String r = route.trim();
+            if (r.isEmpty()) {
+                continue;
+            }
+            if (r.endsWith("/**") && isLiteral(r.substring(0, r.length() - 3))) {
+                prefixes.add(r.substring(0, r.length() - 3));
+            } else if (isLiteral(r)) {
+                exact.add(r);
+            } else {
+                patterns.add(PathPatternParser.defaultInstance.parse(r));
+            }
+        }
+        this.prefixes = prefixes.toArray(String[]::new);
+        this.exact = exact.toArray(String[]::new);
+        this.patterns = patterns.toArray(PathPattern[]::new);
+    }
+
+    boolean matches(String path) {
+        for (String prefix : prefixes) {
+            int n = prefix.length();
+            if (path.startsWith(prefix) && (path.length() == n || path.charAt(n) == '/')) {
+                return true;
+            }
+        }
+        for (String route : exact) {
+            if (route.equals(path)) {
+                return true;
+            }
+        }
+        if (patterns.length > 0) {
+            PathContainer container = PathContainer.parsePath(path);
+            for (PathPattern pattern : patterns) {
+                if (pattern.matches(container)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLiteral(String route) {
+        for (int i = 0; i < route.length(); i++) {
+            char c = route.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
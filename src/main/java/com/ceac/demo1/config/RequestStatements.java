@@ -0,0 +1,54 @@
+package com.ceac.demo1.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/// Sentencias SQL ejecutadas durante una petición (o un bloque de código en los tests):
+/// el total y cuántas veces se ha ejecutado cada una (en el orden en que aparecieron).
+///
+/// Si hay uno abierto por fuera (p. ej. un test que cuenta una petición de MockMvc),
+/// cada sentencia se suma también a ese ("parent").
+public final class RequestStatements {
+
+    private final RequestStatements parent;
+    private final Map<String, Integer> bySql = new LinkedHashMap<>();
+    private int count;
+
+    RequestStatements(RequestStatements parent) {
+        this.parent = parent;
+    }
+
+    RequestStatements parent() {
+        return parent;
+    }
+
+    /// Puede llamarse desde otro hilo (SqlStatementMetrics.propagate), por eso es synchronized.
+    synchronized void add(String sql) {
+        count++;
+        bySql.merge(sql, 1, Integer::sum);
+        if (parent != null) {
+            parent.add(sql);
+        }
+    }
+
+    public synchronized int count() {
+        return count;
+    }
+
+    /// Cada sentencia distinta con el número de veces que se ha ejecutado.
+    public synchronized Map<String, Integer> bySql() {
+        return new LinkedHashMap<>(bySql);
+    }
+
+    /// Sentencias idénticas ejecutadas al menos "threshold" veces: la señal típica de un N+1
+    /// (una consulta por cada elemento de una lista en lugar de una sola para todos).
+    public synchronized Map<String, Integer> repeated(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        bySql.forEach((sql, times) -> {
+            if (times >= threshold) {
+                repeated.put(sql, times);
+            }
+        });
+        return repeated;
+    }
+}
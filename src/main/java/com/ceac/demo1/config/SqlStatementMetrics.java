@@ -0,0 +1,159 @@
+package com.ceac.demo1.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/// Cuántas sentencias SQL lanza Hibernate en cada petición (métrica hibernate.statements.per.request,
+/// por método y ruta). Sustituye a mirar el log de spring.jpa.show-sql para detectar consultas N+1:
+/// aquí cada sentencia solo suma 1 a un contador.
+///
+/// - {@link #count} es el StatementInspector de Hibernate (MetricsConfig): lo llama con cada sentencia
+///   antes de prepararla.
+/// - Como filtro, abre un contador al empezar la petición y lo registra al terminar.
+///
+/// Presupuesto (app.sql.budget.*): si una petición pasa de max-statements sentencias (o del límite de su
+/// endpoint en "overrides", p. ej. "GET /products=2,PUT /user/{id}=2"), o repite la misma sentencia
+/// repeated-threshold veces o más (N+1), se escribe un WARN y se suma a hibernate.statements.over.budget
+/// o hibernate.statements.repeated.
+///
+/// El contador de la petición vive en un ThreadLocal. Si el trabajo sigue en otro hilo (los endpoints
+/// de /auth lo pasan a un hilo virtual), hay que envolverlo con {@link #propagate} para que cuente.
+@Order(Ordered.HIGHEST_PRECEDENCE) // antes que AuthFilter: los 401 también se registran
+public class SqlStatementMetrics extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementMetrics.class);
+
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+    private static final String REQ_ATTR_STATEMENTS = SqlStatementMetrics.class.getName() + ".statements";
+
+    private final MeterRegistry registry;
+    private final int maxStatements;
+    private final int repeatedThreshold;
+    private final Map<String, Integer> overrides = new HashMap<>();
+
+    /// @param overrides "MÉTODO /ruta=n" (la ruta es el patrón del controlador, como en la métrica)
+    public SqlStatementMetrics(MeterRegistry registry, int maxStatements, int repeatedThreshold, String[] overrides) {
+        this.registry = registry;
+        this.maxStatements = maxStatements;
+        this.repeatedThreshold = repeatedThreshold;
+        for (String override : overrides) {
+            int eq = override.lastIndexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("app.sql.budget.overrides: se esperaba \"MÉTODO /ruta=n\": " + override);
+            }
+            this.overrides.put(override.substring(0, eq).trim(), Integer.parseInt(override.substring(eq + 1).trim()));
+        }
+    }
+
+    public static String count(String sql) {
+        RequestStatements statements = CURRENT.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+
+    /// Ejecuta "work" (en cualquier hilo) sumando sus sentencias a la petición actual.
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        RequestStatements statements = CURRENT.get();
+        if (statements == null) {
+            return work;
+        }
+        return () -> {
+            RequestStatements previous = CURRENT.get();
+            CURRENT.set(statements);
+            try {
+                return work.get();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /// Empieza a contar en este hilo (para tests: ver SqlStatementAssertions). Hay que cerrarlo con {@link #end}.
+    /// Las peticiones de MockMvc que se hagan mientras tanto también suman aquí.
+    public static RequestStatements begin() {
+        RequestStatements statements = new RequestStatements(CURRENT.get());
+        CURRENT.set(statements);
+        return statements;
+    }
+
+    public static void end(RequestStatements statements) {
+        CURRENT.set(statements.parent());
+    }
+
+    /// También en el "async dispatch" con el que termina una petición asíncrona (CompletableFuture).
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RequestStatements statements = (RequestStatements) request.getAttribute(REQ_ATTR_STATEMENTS);
+        if (statements == null) {
+            statements = new RequestStatements(CURRENT.get());
+            request.setAttribute(REQ_ATTR_STATEMENTS, statements);
+        }
+        RequestStatements previous = CURRENT.get();
+        CURRENT.set(statements);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            CURRENT.set(previous);
+        }
+        if (request.isAsyncStarted()) {
+            return; // se registra en el async dispatch, cuando el resultado ya está listo
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString(); // sin patrón (404, 401...): no crear una serie por URL
+        String method = request.getMethod();
+        DistributionSummary.builder("hibernate.statements.per.request")
+                .description("Sentencias SQL ejecutadas por petición")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 5, 10, 20, 50)
+                .register(registry)
+                .record(statements.count());
+        checkBudget(method, uri, statements);
+    }
+
+    private void checkBudget(String method, String uri, RequestStatements statements) {
+        int budget = overrides.getOrDefault(method + " " + uri, maxStatements);
+        int count = statements.count();
+        if (count > budget) {
+            log.warn("{} {}: {} sentencias SQL (presupuesto {})", method, uri, count, budget);
+            Counter.builder("hibernate.statements.over.budget")
+                    .description("Peticiones con más sentencias SQL que su presupuesto")
+                    .tag("method", method).tag("uri", uri)
+                    .register(registry).increment();
+        }
+        Map<String, Integer> repeated = statements.repeated(repeatedThreshold);
+        if (!repeated.isEmpty()) {
+            repeated.forEach((sql, times) -> log.warn("{} {}: posible N+1, la misma sentencia {} veces: {}",
+                    method, uri, times, sql));
+            Counter.builder("hibernate.statements.repeated")
+                    .description("Peticiones que repiten la misma sentencia SQL (posible N+1)")
+                    .tag("method", method).tag("uri", uri)
+                    .register(registry).increment();
+        }
+    }
+}
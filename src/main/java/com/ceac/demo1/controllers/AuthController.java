@@ -1,49 +1,76 @@
 package com.ceac.demo1.controllers;
 
+import com.ceac.demo1.config.SqlStatementMetrics;
 import com.ceac.demo1.entities.UserModel;
 import com.ceac.demo1.services.UserService;
+import com.ceac.demo1.services.auth.LoginThrottle;
 import com.ceac.demo1.services.auth.TokenService;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/auth")
 public class AuthController {
 
     private final UserService userService; /// Dependencia: Lógica de negocio que tiene que ver con el usuario.
     private final TokenService tokenService; /// Dependencia: Gestión de tokens (sesiones simples)
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    private final LoginThrottle loginThrottle; /// Dependencia: límite de intentos de login por IP y por email
+
+    /// Registro, login y cambio de contraseña calculan BCrypt (lento a propósito).
+    /// Con app.auth.virtual-threads=true se atienden en un hilo virtual: mientras esperan al pool
+    /// de hash (PasswordHasher) o a la BD no ocupan ningún hilo de Tomcat, que queda libre para /products.
+    /// Si el pool de hash está lleno, la petición termina con 503 + Retry-After (GlobalExceptionHandler).
+    private final ExecutorService virtualThreads;
 
-    public AuthController(UserService userService, TokenService tokenService) {
+    public AuthController(UserService userService, TokenService tokenService, LoginThrottle loginThrottle,
+                          @Value("${app.auth.virtual-threads:true}") boolean useVirtualThreads) {
         this.userService = userService;
         this.tokenService = tokenService;
+        this.loginThrottle = loginThrottle;
+        this.virtualThreads = useVirtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("auth-", 0).factory())
+                : null;
     }
 
     ///  Registro: Enviar el UserModel con firstName, lastName, email, password
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody UserModel body) {
-        if (userService.emailExists(body.getEmail())) {
-            return ResponseEntity.badRequest()
-                    .body("No funciona");
-        }
-        userService.saveUser(body);
-        String token = tokenService.createToken(body.getEmail());
-
-        return ResponseEntity.ok("{\"token\":\"" + token + "\"}");
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody UserModel body) {
+        return offload(() -> {
+            if (userService.emailExists(body.getEmail())) {
+                return ResponseEntity.badRequest()
+                        .body("No funciona");
+            }
+            userService.saveUser(body);
+            String token = tokenService.createToken(body.getEmail());
+
+            return ResponseEntity.ok("{\"token\":\"" + token + "\"}");
+        });
     }
 
 
+    /// Antes de nada (BD, BCrypt) se gasta un intento de la IP y del email: sin intentos → 429 + Retry-After.
+    /// Detrás de un proxy, getRemoteAddr() es la IP del cliente si se configura server.forward-headers-strategy.
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody UserModel body) {
-        var userOpt = userService.findByEmail(body.getEmail());
-
-        if(userOpt.isEmpty() || !userService.matches(body.getPassword(), userOpt.get().getPassword())) {
-            return ResponseEntity.status(401).body("{\"message\":\"Credenciales inválidas\"}");
-        }
-
-        String token = tokenService.createToken(body.getEmail());
-        return ResponseEntity.ok("{\"token\":\"" + token + "\"}");
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody UserModel body, HttpServletRequest request) {
+        loginThrottle.acquire(request.getRemoteAddr(), body.getEmail());
+        return offload(() -> {
+            var userOpt = userService.findByEmail(body.getEmail());
+
+            if(userOpt.isEmpty() || !userService.checkPassword(userOpt.get(), body.getPassword())) {
+                return ResponseEntity.status(401).body("{\"message\":\"Credenciales inválidas\"}");
+            }
+
+            String token = tokenService.createToken(body.getEmail());
+            return ResponseEntity.ok("{\"token\":\"" + token + "\"}");
+        });
     }
 
     @PostMapping(path = "/logout")
@@ -67,22 +94,39 @@ public class AuthController {
      */
 
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(@RequestBody UserModel body) {
-        String email = body.getEmail(); // <- Guardamos el email para validar después
-        String newPassword = body.getPassword(); /// <- Guardamos la contraseña nueva para modificarla
+    public CompletableFuture<ResponseEntity<?>> changePassword(@RequestBody UserModel body) {
+        return offload(() -> {
+            String email = body.getEmail(); // <- Guardamos el email para validar después
+            String newPassword = body.getPassword(); /// <- Guardamos la contraseña nueva para modificarla
 
-        var opt = userService.findByEmail(email);
-        if (opt.isEmpty()) return ResponseEntity.status(404).body("{\"message\":\"Email no existe\"}");
+            var opt = userService.findByEmail(email);
+            if (opt.isEmpty()) return ResponseEntity.status(404).body("{\"message\":\"Email no existe\"}");
 
-        if (email == null || email.isBlank() || newPassword == null || newPassword.isBlank()) {
-            return ResponseEntity.badRequest().body("{\"message\":\"Email y contraseña son obligatorios\"}");
-        }
+            if (email == null || email.isBlank() || newPassword == null || newPassword.isBlank()) {
+                return ResponseEntity.badRequest().body("{\"message\":\"Email y contraseña son obligatorios\"}");
+            }
+
+            // Encriptamos la password (una sola vez) y guardamos el cambio
+            userService.changePassword(opt.get(), newPassword);
 
-        var user = opt.get();
-        user.setPassword(encoder.encode(newPassword)); // Encriptamos la paswword
-        userService.updateUserbyId(user.getId(), user); // Guardamos el cambio
+            return ResponseEntity.ok("{\"message\":\"Contraseña modificada\"}");
+        });
+    }
 
-        return ResponseEntity.ok("{\"message\":\"Contraseña modificada\"}");
+    /// Ejecuta el cuerpo del endpoint en un hilo virtual. Spring MVC devuelve la respuesta cuando
+    /// el CompletableFuture termina (si falla, la excepción pasa a los @ExceptionHandler).
+    private CompletableFuture<ResponseEntity<?>> offload(Supplier<ResponseEntity<?>> handler) {
+        if (virtualThreads == null) {
+            return CompletableFuture.completedFuture(handler.get());
+        }
+        return CompletableFuture.supplyAsync(SqlStatementMetrics.propagate(handler), virtualThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (virtualThreads != null) {
+            virtualThreads.close();
+        }
     }
 }
 
@@ -0,0 +1,55 @@
+package com.ceac.demo1.controllers;
+
+import com.ceac.demo1.exceptions.ExportBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/// Límite de exportaciones a la vez (GET /products/export y GET /user/export, juntas).
+///
+/// Una exportación tiene abierta una conexión del pool (20 en Hikari por defecto) durante toda la
+/// descarga, hasta 30 min con un cliente lento. Sin límite, unas pocas descargas dejan sin conexiones
+/// al resto de endpoints. Con los huecos ocupados se responde 503 + Retry-After en lugar de esperar.
+@Component
+class ExportSlots {
+
+    private static final int RETRY_AFTER_SECONDS = 60;
+
+    private final Semaphore slots;
+
+    ExportSlots(@Value("${app.export.max-concurrent:2}") int maxConcurrent) {
+        this.slots = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /// Ocupa un hueco para "body" o lanza {@link ExportBusyException} (antes de enviar las cabeceras).
+    /// El hueco se libera al terminar el cuerpo y, por si el cuerpo no llega a ejecutarse (la petición
+    /// asíncrona caduca o falla antes), también al completarse la petición; solo cuenta la primera vez.
+    StreamingResponseBody limit(WebRequest request, StreamingResponseBody body) {
+        if (!slots.tryAcquire()) {
+            throw new ExportBusyException(RETRY_AFTER_SECONDS);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                slots.release();
+            }
+        };
+        AsyncWebRequest async = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (async != null) {
+            async.addCompletionHandler(release);
+        }
+        return out -> {
+            try {
+                body.writeTo(out);
+            } finally {
+                release.run();
+            }
+        };
+    }
+}
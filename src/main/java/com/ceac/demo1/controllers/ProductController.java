@@ -4,11 +4,39 @@ package com.ceac.demo1.controllers;
 /// En Spring Boot, los controladores van normalmente en "controllers".
 /// Su función es recibir las peticiones HTTP y delegarlas al servicio correspondiente.
 
-import com.ceac.demo1.entities.ProductModel;   /// Importa la entidad ProductModel (la clase que representa los productos)
+import com.ceac.demo1.repositories.ProductProjections; /// Campos que se pueden pedir con ?fields=
 import com.ceac.demo1.services.ProductService; /// Importa el servicio que contiene la lógica de negocio de productos
-import org.springframework.data.domain.Page;   /// Clase que representa una "página" de resultados (paginación)
+import com.ceac.demo1.services.catalog.FacetIndex;   /// Nombres de las facetas de /products/filter
+import com.ceac.demo1.services.catalog.ImportSummary; /// Resumen de una importación masiva
+import com.ceac.demo1.services.catalog.CatalogVersion; /// Cuándo cambió el catálogo por última vez (Last-Modified)
+import com.ceac.demo1.services.catalog.ProductCache; /// Caché del catálogo (solo para consultar sus estadísticas)
+import com.ceac.demo1.services.catalog.ProductExporter; /// Exportación del catálogo completo en streaming
+import com.ceac.demo1.services.catalog.ProductImporter; /// Importación masiva (NDJSON / CSV) en streaming
+import com.ceac.demo1.services.catalog.ResponseBodyCache; /// Respuestas ya convertidas a JSON (y gzip)
+import org.springframework.beans.factory.annotation.Value; /// Valores de application.properties
+import org.springframework.http.MediaType;      /// Tipos de contenido (Content-Type) de la petición
+import org.springframework.http.HttpHeaders;    /// Nombres de cabeceras HTTP (Content-Type...)
 import org.springframework.http.ResponseEntity; /// Respuestas HTTP controladas (permite devolver códigos 200, 404, etc.)
+import org.springframework.http.HttpStatus;     /// Códigos de estado HTTP (304 Not Modified...)
 import org.springframework.web.bind.annotation.*; /// Anotaciones para crear endpoints (GetMapping, PathVariable, etc.)
+import org.springframework.web.context.request.ServletWebRequest; /// Petición HTTP (URL + cabeceras condicionales)
+import org.springframework.web.context.request.WebRequest; /// Acceso a la petición (cabeceras condicionales)
+import org.springframework.web.context.request.async.AsyncWebRequest; /// Petición asíncrona (límite de tiempo)
+import org.springframework.web.context.request.async.WebAsyncUtils; /// Acceso a la petición asíncrona en curso
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody; /// Cuerpo escrito directamente en la respuesta
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 /// Marca la clase como un controlador REST.
 /// Esto significa que cada método devolverá directamente datos (JSON) y no vistas HTML.
@@ -23,38 +51,158 @@ public class ProductController {
     /// Este servicio se encarga de la lógica de negocio (consultas, filtros, etc.)
     private final ProductService service;
 
-    /// Constructor que recibe el servicio.
-    /// Spring inyectará automáticamente la instancia del ProductService.
-    public ProductController(ProductService service){
+    /// Importación masiva de productos (POST /products/import).
+    private final ProductImporter importer;
+
+    /// Exportación del catálogo completo (GET /products/export).
+    private final ProductExporter exporter;
+
+    /// Versión del catálogo (para If-Modified-Since e If-None-Match).
+    private final CatalogVersion version;
+
+    /// Cabecera Cache-Control de cada endpoint de lectura (app.catalog.http.cache-control.*).
+    private record CacheControlPolicies(String list, String search, String platform, String get) {}
+
+    private final CacheControlPolicies cacheControl;
+
+    /// Cuerpos JSON ya serializados de las lecturas más pedidas.
+    private final ResponseBodyCache bodies;
+
+    /// Tiempo máximo de GET /products/export (app.catalog.export.timeout-ms). Solo para esa respuesta:
+    /// el resto de peticiones asíncronas (/auth) siguen con el límite por defecto.
+    private final long exportTimeoutMs;
+
+    /// Exportaciones a la vez (app.export.max-concurrent), compartido con GET /user/export.
+    private final ExportSlots exportSlots;
+
+    /// Constructor que recibe los servicios y la configuración.
+    /// Spring inyectará automáticamente las instancias de cada uno.
+    public ProductController(ProductService service, ProductImporter importer, ProductExporter exporter,
+                             CatalogVersion version, ResponseBodyCache bodies, ExportSlots exportSlots,
+                             @Value("${app.catalog.http.cache-control.list:private, no-cache}") String listCacheControl,
+                             @Value("${app.catalog.http.cache-control.search:private, no-cache}") String searchCacheControl,
+                             @Value("${app.catalog.http.cache-control.platform:private, no-cache}") String platformCacheControl,
+                             @Value("${app.catalog.http.cache-control.get:private, no-cache}") String getCacheControl,
+                             @Value("${app.catalog.export.timeout-ms:1800000}") long exportTimeoutMs){
         this.service = service;
+        this.importer = importer;
+        this.exporter = exporter;
+        this.version = version;
+        this.bodies = bodies;
+        this.cacheControl = new CacheControlPolicies(listCacheControl, searchCacheControl, platformCacheControl, getCacheControl);
+        this.exportTimeoutMs = exportTimeoutMs;
+        this.exportSlots = exportSlots;
+    }
+
+    /// Respuesta condicional con ETag: el ETag sale de la versión del catálogo y de la URL (ruta + parámetros),
+    /// sin calcular el cuerpo. Si coincide con If-None-Match se responde 304 sin llamar a "body"
+    /// (ni al servicio ni a la base de datos). checkNotModified pone también la cabecera ETag.
+    ///
+    /// Las respuestas 200 se sirven desde {@link ResponseBodyCache}: bytes JSON ya generados (o su versión
+    /// gzip si el cliente la acepta) que se copian tal cual, sin pasar por Jackson. Solo en un fallo
+    /// se llama a "body" y se serializa el resultado, una vez por URL y versión del catálogo.
+    ///
+    /// El ETag es fuerte, así que identifica los bytes exactos: a quien acepta gzip se le da otro
+    /// ("...-gzip"), y su If-None-Match solo se compara con ese. Si no, un intermediario podría
+    /// contestar un 304 y servir el cuerpo comprimido a quien no lo entiende (o al revés). Si el JSON
+    /// es pequeño y no se comprime, los dos ETag acaban en los mismos bytes, lo cual está permitido.
+    private ResponseEntity<?> conditional(ServletWebRequest request, String cacheControl,
+                                          Supplier<ResponseEntity<?>> body) {
+        String query = request.getRequest().getQueryString();
+        String key = request.getRequest().getRequestURI() + (query == null ? "" : "?" + query);
+        String etag = version.etag(key);
+        boolean acceptsGzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (request.checkNotModified(acceptsGzip ? gzipEtag(etag) : etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        ResponseBodyCache.Body cached = bodies.get(key, etag);
+        if (cached == null) {
+            ResponseEntity<?> response = body.get();
+            if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null) {
+                /// 404, etc.: tal cual, sin guardar.
+                return ResponseEntity.status(response.getStatusCode())
+                        .headers(response.getHeaders())
+                        .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                        .body(response.getBody());
+            }
+            cached = bodies.put(key, etag, response.getBody());
+        }
+        boolean gzip = cached.gzip() != null && acceptsGzip;
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            ok.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ok.body(gzip ? cached.gzip() : cached.json());
     }
 
     // ==============================================================
     // 🔹 ENDPOINT: GET /products?page=0&size=20
+    // 🔹           GET /products?cursor=&size=20  (modo cursor)
     // ==============================================================
     /// Este método devuelve una lista paginada de productos.
     /// Recibe parámetros "page" (número de página) y "size" (cantidad por página).
     /// Si no se envían, usa los valores por defecto (0 y 20).
+    ///
+    /// Si se envía "cursor" (vacío para la primera página), en lugar de un Page se devuelve un
+    /// CursorPage: sin total ni número de página, y con "nextCursor" para pedir la siguiente.
+    /// Cada página cuesta lo mismo por lejos que esté (no hay OFFSET ni COUNT en la consulta).
+    ///
+    /// "fields" (p. ej. fields=title,platform,price,discount) devuelve solo esas columnas (y el id):
+    /// la consulta lee únicamente esas y no crea entidades. Vale también en /search y /platform.
     @GetMapping
-    public Page<ProductModel> list(@RequestParam(defaultValue="0") int page,
-                                   @RequestParam(defaultValue="20") int size) {
-        /// Llama al servicio para obtener los productos paginados
-        /// y devuelve directamente el resultado en formato JSON.
-        return service.getProducts(page, size);
+    public ResponseEntity<?> list(@RequestParam(defaultValue="0") int page,
+                                  @RequestParam(defaultValue="20") int size,
+                                  @RequestParam(required=false) String cursor,
+                                  @RequestParam(required=false) String fields,
+                                  ServletWebRequest request) {
+        return conditional(request, cacheControl.list(), () -> {
+            List<String> columns = ProductProjections.parseFields(fields);
+            if (columns != null) {
+                return ResponseEntity.ok(cursor != null
+                        ? service.getProductsAfter(cursor, size, columns)
+                        : service.getProducts(page, size, columns));
+            }
+            if (cursor != null) {
+                return ResponseEntity.ok(service.getProductsAfter(cursor, size));
+            }
+            /// Llama al servicio para obtener los productos paginados
+            /// y devuelve directamente el resultado en formato JSON.
+            return ResponseEntity.ok(service.getProducts(page, size));
+        });
     }
 
     // ==============================================================
     // 🔹 ENDPOINT: GET /products/search?q=elden&page=0&size=10
     // ==============================================================
-    /// Este endpoint busca productos por su título (parcialmente).
+    /// Este endpoint busca productos por título, etiquetas y editor (parcialmente), ordenados por relevancia.
     /// - "q" es el texto a buscar.
-    /// - También admite paginación con "page" y "size".
+    /// - También admite paginación con "page" y "size", o con "cursor", y "fields" (ver list).
     @GetMapping("/search")
-    public Page<ProductModel> search(@RequestParam String q,
-                                     @RequestParam(defaultValue="0") int page,
-                                     @RequestParam(defaultValue="20") int size){
-        /// Llama al servicio, que internamente hace un "LIKE" ignorando mayúsculas/minúsculas.
-        return service.search(q, page, size);
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue="0") int page,
+                                    @RequestParam(defaultValue="20") int size,
+                                    @RequestParam(required=false) String cursor,
+                                    @RequestParam(required=false) String fields,
+                                    ServletWebRequest request){
+        return conditional(request, cacheControl.search(), () -> {
+            List<String> columns = ProductProjections.parseFields(fields);
+            if (columns != null) {
+                return ResponseEntity.ok(cursor != null
+                        ? service.searchAfter(q, cursor, size, columns)
+                        : service.search(q, page, size, columns));
+            }
+            if (cursor != null) {
+                return ResponseEntity.ok(service.searchAfter(q, cursor, size));
+            }
+            /// Llama al servicio, que busca en un índice de trigramas en memoria (sin mayúsculas ni tildes).
+            return ResponseEntity.ok(service.search(q, page, size));
+        });
     }
 
     // ==============================================================
@@ -62,13 +210,166 @@ public class ProductController {
     // ==============================================================
     /// Este endpoint devuelve los productos filtrados por plataforma (por ejemplo, "PC" o "PS5").
     /// - {platform} viene en la URL (PathVariable)
-    /// - "page" y "size" controlan la paginación
+    /// - "page" y "size" controlan la paginación (o "cursor", ver list); "fields" como en list
     @GetMapping("/platform/{platform}")
-    public Page<ProductModel> byPlatform(@PathVariable String platform,
-                                         @RequestParam(defaultValue="0") int page,
-                                         @RequestParam(defaultValue="20") int size){
-        /// Llama al servicio y devuelve los productos filtrados por plataforma
-        return service.byPlatform(platform, page, size);
+    public ResponseEntity<?> byPlatform(@PathVariable String platform,
+                                        @RequestParam(defaultValue="0") int page,
+                                        @RequestParam(defaultValue="20") int size,
+                                        @RequestParam(required=false) String cursor,
+                                        @RequestParam(required=false) String fields,
+                                        ServletWebRequest request){
+        return conditional(request, cacheControl.platform(), () -> {
+            List<String> columns = ProductProjections.parseFields(fields);
+            if (columns != null) {
+                return ResponseEntity.ok(cursor != null
+                        ? service.byPlatformAfter(platform, cursor, size, columns)
+                        : service.byPlatform(platform, page, size, columns));
+            }
+            if (cursor != null) {
+                return ResponseEntity.ok(service.byPlatformAfter(platform, cursor, size));
+            }
+            /// Llama al servicio y devuelve los productos filtrados por plataforma
+            return ResponseEntity.ok(service.byPlatform(platform, page, size));
+        });
+    }
+
+    // ==============================================================
+    // 🔹 ENDPOINT: GET /products/filter?platform=PC&tag=rpg&price=0-10,10-20,20-30&discount=25-49
+    // ==============================================================
+    /// Filtro combinado por facetas. Cada parámetro admite varios valores (separados por comas
+    /// o repitiendo el parámetro): dentro de una faceta basta con uno (OR), entre facetas todas (AND).
+    /// - "price": bandas del precio final 0-10, 10-20, 20-30, 30-50, 50-70, 70+
+    /// - "discount": bandas 0, 1-24, 25-49, 50-74, 75+ ("discounted=true" = cualquiera menos 0)
+    /// Además de la página (ordenada por id), devuelve en "facets" cuántos productos hay por cada valor.
+    /// "page" < 0 o "size" <= 0 → 400 (el índice no admite una posición negativa).
+    @GetMapping("/filter")
+    public ResponseEntity<?> filter(@RequestParam(required=false) List<String> platform,
+                                    @RequestParam(required=false) List<String> tag,
+                                    @RequestParam(required=false) List<String> price,
+                                    @RequestParam(required=false) List<String> discount,
+                                    @RequestParam(defaultValue="false") boolean discounted,
+                                    @RequestParam(defaultValue="0") int page,
+                                    @RequestParam(defaultValue="20") int size){
+        if (page < 0 || size <= 0) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("message", "page debe ser >= 0 y size > 0"));
+        }
+        if (discounted && discount == null) {
+            discount = FacetIndex.DISCOUNTED_BANDS;
+        }
+        Map<String, List<String>> selected = new HashMap<>();
+        if (platform != null) selected.put(FacetIndex.PLATFORM, platform);
+        if (tag != null) selected.put(FacetIndex.TAG, tag);
+        if (price != null) selected.put(FacetIndex.PRICE, price);
+        if (discount != null) selected.put(FacetIndex.DISCOUNT, discount);
+        return ResponseEntity.ok(service.filter(selected, page, size));
+    }
+
+    // ==============================================================
+    // 🔹 ENDPOINT: POST /products/import  (Content-Type: application/x-ndjson o text/csv)
+    // ==============================================================
+    /// Importa (crea o actualiza por title + platform) los productos del cuerpo de la petición.
+    /// - application/x-ndjson: un producto JSON por línea.
+    /// - text/csv: con cabecera (title y platform obligatorias; price, discount, imageUrl, description,
+    ///   releaseDate, publisher, stock y tags opcionales).
+    /// El cuerpo se lee a trozos mientras llega (sirve para ficheros de varios GB).
+    /// Las líneas con errores no detienen la importación: se cuentan y se devuelven en "rejectedLines".
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ImportSummary importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                        InputStream body) throws IOException, InterruptedException {
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        if (contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+            return importer.importCsv(body, charset);
+        }
+        return importer.importNdjson(body, charset);
+    }
+
+    // ==============================================================
+    // 🔹 ENDPOINT: GET /products/export?format=ndjson|csv
+    // ==============================================================
+    /// Descarga el catálogo completo, escrito a medida que se lee de la base de datos
+    /// (la memoria no crece con el tamaño del catálogo, a diferencia de pedir páginas enormes).
+    /// - "format": ndjson (un producto JSON por línea, por defecto) o csv (mismas columnas que /import).
+    /// - Con "Accept-Encoding: gzip" se envía comprimido.
+    /// - Lleva Last-Modified: con "If-Modified-Since" y el catálogo sin cambios responde 304 sin cuerpo.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue="ndjson") String format,
+                                                        @RequestHeader(value=HttpHeaders.ACCEPT_ENCODING, required=false)
+                                                        String acceptEncoding,
+                                                        WebRequest request) {
+        ProductExporter.Format f;
+        try {
+            f = ProductExporter.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        long lastModified = version.lastModified().toEpochMilli();
+        /// checkNotModified compara con If-Modified-Since (y ya pone el 304 y Last-Modified en la respuesta).
+        if (request.checkNotModified(lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(f == ProductExporter.Format.CSV
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"products." + f.name().toLowerCase(Locale.ROOT) + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        /// El cuerpo se escribe después de devolver la cabecera, en un hilo aparte (petición asíncrona).
+        /// Un catálogo grande tarda más que el límite por defecto de las respuestas asíncronas (30 s):
+        /// se amplía solo para esta petición.
+        AsyncWebRequest async = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (async != null) {
+            async.setTimeout(exportTimeoutMs);
+        }
+        /// Como mucho app.export.max-concurrent a la vez (cada una ocupa una conexión): si no, 503.
+        return response.body(exportSlots.limit(request, out -> {
+            if (gzip) {
+                try (OutputStream zipped = new GZIPOutputStream(out, 64 * 1024)) {
+                    exporter.export(f, zipped);
+                }
+            } else {
+                exporter.export(f, out);
+            }
+        }));
+    }
+
+    /// "gzip" en Accept-Encoding, salvo que venga con q=0 (rechazado expresamente).
+    /// "\"1-2-abc\"" → "\"1-2-abc-gzip\"": el ETag de la variante para clientes que aceptan gzip.
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equalsIgnoreCase("gzip")) {
+                return tokens.length == 1 || !tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // ==============================================================
+    // 🔹 ENDPOINT: GET /products/cache/stats
+    // ==============================================================
+    /// Aciertos, fallos y desalojos de las cachés del catálogo (para ajustar su tamaño):
+    /// productos y páginas (ProductCache) y respuestas ya serializadas (ResponseBodyCache).
+    @GetMapping("/cache/stats")
+    public Map<String, ProductCache.Usage> cacheStats() {
+        ProductCache.Stats stats = service.cacheStats();
+        Map<String, ProductCache.Usage> usage = new LinkedHashMap<>();
+        usage.put("products", stats.products());
+        usage.put("pages", stats.pages());
+        usage.put("responses", bodies.stats());
+        return usage;
     }
 
     // ==============================================================
@@ -77,12 +378,14 @@ public class ProductController {
     /// Devuelve un único producto por su ID.
     /// Si el ID no existe, devuelve un código 404 (Not Found).
     @GetMapping("/{id}")
-    public ResponseEntity<?> get(@PathVariable Long id){
-        /// Llama al servicio para buscar el producto por ID (devuelve Optional)
-        return service.getById(id)
-                /// Si lo encuentra, devuelve ResponseEntity.ok(producto)
-                .<ResponseEntity<?>>map(ResponseEntity::ok)
-                /// Si no lo encuentra, devuelve ResponseEntity.notFound()
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<?> get(@PathVariable Long id, ServletWebRequest request){
+        return conditional(request, cacheControl.get(), () -> {
+            /// Llama al servicio para buscar el producto por ID (devuelve Optional)
+            return service.getById(id)
+                    /// Si lo encuentra, devuelve ResponseEntity.ok(producto)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    /// Si no lo encuentra, devuelve ResponseEntity.notFound()
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        });
     }
 }
@@ -3,11 +3,15 @@ package com.ceac.demo1.controllers;
 import com.ceac.demo1.entities.UserModel;
 import com.ceac.demo1.services.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 @RestController
@@ -15,11 +19,29 @@ import java.util.Optional;
 public class UserController {
     @Autowired
     private UserService userService;
+    /// Exportaciones a la vez (app.export.max-concurrent), compartido con GET /products/export.
+    @Autowired
+    private ExportSlots exportSlots;
 
-   /// Obtener todos los usuarios
+   /// Obtener usuarios paginados (sin contraseñas): ?page=0&size=20, o ?cursor=&size=20 en modo cursor
+   /// (vacío para la primera página, luego el "nextCursor" de la respuesta). size tiene un máximo
+   /// (app.user.page.max-size): si se pide más, se devuelve ese máximo.
     @GetMapping
-    public List<UserModel> getUsers(){
-        return this.userService.getUsers();
+    public ResponseEntity<?> getUsers(@RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "20") int size,
+                                      @RequestParam(required = false) String cursor){
+        if (cursor != null) {
+            return ResponseEntity.ok(this.userService.getUsersAfter(cursor, size));
+        }
+        return ResponseEntity.ok(this.userService.getUsers(page, size));
+    }
+    /// Exportar todos los usuarios (sin contraseñas), un JSON por línea, escritos a medida que se leen
+    @GetMapping(path = "/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(WebRequest request){
+        return ResponseEntity.ok()
+                .contentType(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.ndjson\"")
+                .body(exportSlots.limit(request, out -> this.userService.exportUsers(out)));
     }
     /// Crear usuario
     @PostMapping
@@ -6,15 +6,20 @@ package com.ceac.demo1.entities;
 import jakarta.persistence.*;      /// Importa las anotaciones JPA necesarias para mapear la entidad.
 import java.math.BigDecimal;       /// Tipo para manejar precios con precisión decimal (mejor que double).
 import java.time.LocalDate;        /// Tipo de dato para fechas (sin hora).
+import java.nio.charset.StandardCharsets; /// Para calcular la huella del contenido byte a byte.
 
 /// Marca esta clase como una entidad JPA.
 /// Es decir, se guardará como una tabla en la base de datos.
 @Entity
 
 /// Define el nombre de la tabla y crea índices para acelerar búsquedas por título y plataforma.
+/// (title, platform) es la clave natural: un mismo juego no puede estar dos veces en la misma plataforma.
+/// Las importaciones la usan para decidir si un producto es nuevo o una actualización.
 @Table(name = "products", indexes = {
         @Index(name = "idx_products_title", columnList = "title"),      // índice por título
         @Index(name = "idx_products_platform", columnList = "platform") // índice por plataforma
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_products_title_platform", columnNames = {"title", "platform"})
 })
 public class ProductModel {
 
@@ -73,6 +78,60 @@ public class ProductModel {
     @Column(length = 256)
     private String tags;
 
+    /// Huella (hash de 64 bits) de todos los campos anteriores menos el id.
+    /// Una importación compara la huella del producto que llega con la guardada
+    /// y, si coinciden, no lo vuelve a escribir. No se expone en el JSON (no tiene getter).
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    /// JPA la recalcula cada vez que guarda el producto, para que nunca se quede desfasada.
+    @PrePersist
+    @PreUpdate
+    void updateContentHash() {
+        this.contentHash = computeContentHash();
+    }
+
+    /// FNV-1a de 64 bits sobre los campos, separados por un byte que no aparece en el texto.
+    /// El precio se normaliza (39.9 y 39.90 dan la misma huella).
+    public long computeContentHash() {
+        return computeContentHash(title, platform);
+    }
+
+    /// La misma huella, pero con otro title y platform (la clave tal como está guardada; ver ProductBatchWriter).
+    public long computeContentHash(String title, String platform) {
+        long h = 0xcbf29ce484222325L;
+        Object[] fields = {title, platform, price == null ? null : price.stripTrailingZeros().toPlainString(),
+                discount, imageUrl, description, releaseDate, publisher, stock, tags};
+        for (Object field : fields) {
+            byte[] bytes = field == null ? new byte[]{0} : field.toString().getBytes(StandardCharsets.UTF_8);
+            for (byte b : bytes) {
+                h = (h ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            h = (h ^ 1) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /// Copia suelta (no gestionada por JPA) con los mismos valores, id incluido.
+    /// ProductCache guarda copias: así los objetos compartidos entre peticiones no son entidades
+    /// de ningún EntityManager y un cambio en una entidad de una petición no se ve en las demás.
+    public ProductModel copy() {
+        ProductModel copy = new ProductModel();
+        copy.id = id;
+        copy.title = title;
+        copy.platform = platform;
+        copy.price = price;
+        copy.discount = discount;
+        copy.imageUrl = imageUrl;
+        copy.description = description;
+        copy.releaseDate = releaseDate;
+        copy.publisher = publisher;
+        copy.stock = stock;
+        copy.tags = tags;
+        copy.contentHash = contentHash;
+        return copy;
+    }
+
     // ==============================================================
     // 🔹 GETTERS y SETTERS
     // ==============================================================
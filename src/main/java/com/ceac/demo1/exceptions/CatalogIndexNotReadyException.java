@@ -0,0 +1,10 @@
+package com.ceac.demo1.exceptions;
+
+/// Los índices en memoria del catálogo aún se están construyendo (solo pasa al arrancar).
+/// {@link GlobalExceptionHandler} la convierte en un 503 con la cabecera Retry-After.
+public class CatalogIndexNotReadyException extends RuntimeException {
+
+    public CatalogIndexNotReadyException() {
+        super("El índice del catálogo se está construyendo");
+    }
+}
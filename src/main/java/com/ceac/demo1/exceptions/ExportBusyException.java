@@ -0,0 +1,17 @@
+package com.ceac.demo1.exceptions;
+
+/// Ya hay tantas exportaciones en curso como app.export.max-concurrent: cada una ocupa una conexión
+/// del pool mientras dura. {@link GlobalExceptionHandler} la convierte en un 503 con la cabecera Retry-After.
+public class ExportBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ExportBusyException(int retryAfterSeconds) {
+        super("Demasiadas exportaciones en curso");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
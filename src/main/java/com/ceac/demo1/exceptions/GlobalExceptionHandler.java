@@ -0,0 +1,81 @@
+package com.ceac.demo1.exceptions;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.util.Map;
+
+/// Traduce las excepciones propias a respuestas HTTP para todos los controladores.
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    /// Pool de hash lleno → 503 Service Unavailable + Retry-After (segundos),
+    /// para que el cliente reintente en lugar de quedarse esperando.
+    @ExceptionHandler(PasswordHasherBusyException.class)
+    public ResponseEntity<String> passwordHasherBusy(PasswordHasherBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"Servidor ocupado, inténtalo de nuevo en unos segundos\"}");
+    }
+
+    /// Todas las exportaciones ocupadas (ExportSlots) → 503 + Retry-After (segundos).
+    @ExceptionHandler(ExportBusyException.class)
+    public ResponseEntity<String> exportBusy(ExportBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"Hay otras exportaciones en curso, inténtalo de nuevo más tarde\"}");
+    }
+
+    /// Demasiados intentos de login (LoginThrottle) → 429 Too Many Requests + Retry-After (segundos).
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<String> loginThrottled(LoginThrottledException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"Demasiados intentos, inténtalo de nuevo más tarde\"}");
+    }
+
+    /// Lista de revocados llena (logout en modo JWT) → 503 + Retry-After: el token NO se ha revocado.
+    @ExceptionHandler(RevocationListFullException.class)
+    public ResponseEntity<String> revocationListFull(RevocationListFullException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"No se ha podido cerrar la sesión, inténtalo de nuevo más tarde\"}");
+    }
+
+    /// Cursor de paginación ilegible → 400 Bad Request (se debe volver a empezar sin cursor).
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<String> invalidCursor(InvalidCursorException e) {
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"Cursor no válido\"}");
+    }
+
+    /// Índice del catálogo sin construir todavía (arranque) → 503 + Retry-After.
+    @ExceptionHandler(CatalogIndexNotReadyException.class)
+    public ResponseEntity<String> catalogIndexNotReady(CatalogIndexNotReadyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body("{\"message\":\"Catálogo cargándose, inténtalo de nuevo en unos segundos\"}");
+    }
+
+    /// Fichero de importación ilegible → 400 Bad Request con el motivo.
+    @ExceptionHandler(InvalidImportException.class)
+    public ResponseEntity<Map<String, String>> invalidImport(InvalidImportException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+
+    /// "fields" con un campo que no existe → 400 Bad Request con los campos válidos.
+    @ExceptionHandler(InvalidFieldsException.class)
+    public ResponseEntity<Map<String, String>> invalidFields(InvalidFieldsException e) {
+        return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.ceac.demo1.exceptions;
+
+/// El parámetro "cursor" no es un cursor válido (manipulado, truncado o de otra versión).
+/// {@link GlobalExceptionHandler} la convierte en un 400.
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException() {
+        super("Cursor no válido");
+    }
+}
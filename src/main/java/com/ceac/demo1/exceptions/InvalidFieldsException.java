@@ -0,0 +1,12 @@
+package com.ceac.demo1.exceptions;
+
+import java.util.List;
+
+/// El parámetro "fields" pide una columna que no existe.
+/// {@link GlobalExceptionHandler} la convierte en un 400 con la lista de campos válidos.
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String field, List<String> allowed) {
+        super("Campo desconocido: " + field + ". Campos válidos: " + String.join(", ", allowed));
+    }
+}
@@ -0,0 +1,11 @@
+package com.ceac.demo1.exceptions;
+
+/// El fichero de importación no se puede procesar en absoluto (p. ej. un CSV sin las columnas
+/// obligatorias). Los registros sueltos con errores no la lanzan: se rechazan y se informa de ellos.
+/// {@link GlobalExceptionHandler} la convierte en un 400.
+public class InvalidImportException extends RuntimeException {
+
+    public InvalidImportException(String message) {
+        super(message);
+    }
+}
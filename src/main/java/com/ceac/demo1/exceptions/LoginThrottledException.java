@@ -0,0 +1,17 @@
+package com.ceac.demo1.exceptions;
+
+/// Demasiados intentos de login desde la misma IP o para el mismo email.
+/// {@link GlobalExceptionHandler} la convierte en un 429 con la cabecera Retry-After.
+public class LoginThrottledException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(long retryAfterSeconds) {
+        super("Demasiados intentos de inicio de sesión");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
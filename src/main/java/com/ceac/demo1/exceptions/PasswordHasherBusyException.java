@@ -0,0 +1,17 @@
+package com.ceac.demo1.exceptions;
+
+/// El pool de hash de contraseñas está saturado: el cliente debe reintentar pasados unos segundos.
+/// {@link GlobalExceptionHandler} la convierte en un 503 con la cabecera Retry-After.
+public class PasswordHasherBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHasherBusyException(int retryAfterSeconds) {
+        super("Demasiadas peticiones de autenticación en curso");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
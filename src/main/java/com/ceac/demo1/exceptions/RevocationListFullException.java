@@ -0,0 +1,11 @@
+package com.ceac.demo1.exceptions;
+
+/// La lista de tokens revocados (modo JWT) está llena y el logout no se puede apuntar.
+/// El token sigue siendo válido, así que el logout no puede responder como si hubiera funcionado.
+/// {@link GlobalExceptionHandler} la convierte en un 503 con la cabecera Retry-After.
+public class RevocationListFullException extends RuntimeException {
+
+    public RevocationListFullException() {
+        super("La lista de tokens revocados está llena");
+    }
+}
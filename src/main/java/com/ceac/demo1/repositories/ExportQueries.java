@@ -0,0 +1,48 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.entities.ProductModel;
+import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.stream.Stream;
+
+/// Tablas enteras en orden de id, leídas de la base de datos a medida que se consume el Stream
+/// (GET /products/export, GET /user/export). Hay que usarlos dentro de una transacción y cerrarlos
+/// (try-with-resources).
+///
+/// El fetch size (filas que trae el driver en cada viaje) sale de app.export.fetch-size y se pone solo
+/// en estas consultas, por eso no son métodos de IProductRepository / IUserRepository (@QueryHints solo
+/// admite constantes). Cada driver lo entiende a su manera:
+/// - MySQL (Connector/J) sin useCursorFetch en la URL ignora un fetch size positivo y carga el resultado
+///   entero en memoria. Con Integer.MIN_VALUE envía las filas una a una (streaming) sin tocar el resto
+///   de consultas, que con useCursorFetch=true en la URL abrirían todas un cursor en el servidor.
+/// - H2 rechaza valores negativos: en el perfil "local" se usa un bloque normal (1000).
+@Repository
+public class ExportQueries {
+
+    private final EntityManager em;
+    private final int fetchSize;
+
+    public ExportQueries(EntityManager em, @Value("${app.export.fetch-size:1000}") int fetchSize) {
+        this.em = em;
+        this.fetchSize = fetchSize;
+    }
+
+    /// Todo el catálogo. HINT_READ_ONLY: Hibernate no guarda una copia de cada entidad para detectar cambios.
+    public Stream<ProductModel> products() {
+        return em.createQuery("select p from ProductModel p order by p.id", ProductModel.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /// Todos los usuarios, sin la contraseña (solo las columnas de {@link UserSummary}).
+    public Stream<UserSummary> users() {
+        return em.createQuery("select new com.ceac.demo1.repositories.UserSummary(u.id, u.firstName, u.lastName, u.email)"
+                        + " from UserModel u order by u.id", UserSummary.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+}
@@ -4,10 +4,13 @@ package com.ceac.demo1.repositories;
 /// En Spring Boot, estas interfaces suelen extender de JpaRepository para obtener toda la funcionalidad CRUD.
 
 import com.ceac.demo1.entities.ProductModel;   /// Importa la entidad ProductModel (representa la tabla products)
+import org.springframework.data.domain.Limit;  /// Número máximo de filas de una consulta (LIMIT)
 import org.springframework.data.domain.Page;   /// Representa una "página" de resultados (paginación)
 import org.springframework.data.domain.Pageable; /// Permite definir el número de página y tamaño de página en consultas
 import org.springframework.data.jpa.repository.JpaRepository; /// Proporciona métodos CRUD (findAll, save, delete, etc.)
 
+import java.util.List;
+
 /// Interfaz que gestiona las operaciones de base de datos para los productos.
 ///
 /// Extiende de JpaRepository, lo que le da automáticamente todos los métodos básicos:
@@ -34,4 +37,17 @@ public interface IProductRepository extends JpaRepository<ProductModel, Long> {
     /// Ejemplo: findByPlatformIgnoreCase("pc", pageable)
     /// → devolverá todos los productos cuya plataforma sea "PC".
     Page<ProductModel> findByPlatformIgnoreCase(String platform, Pageable pageable);
+
+    /// Siguiente bloque de productos a partir de un id (recorrer toda la tabla sin OFFSET).
+    ///
+    /// Ejemplo: findByIdGreaterThanOrderByIdAsc(0L, Limit.of(5000))
+    /// → los 5000 primeros productos; después se repite con el último id leído.
+    List<ProductModel> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /// Igual, pero solo los de una plataforma (paginación por cursor de /products/platform/{platform}).
+    List<ProductModel> findByPlatformIgnoreCaseAndIdGreaterThanOrderByIdAsc(String platform, Long id, Limit limit);
+
+    /// Igual, pero solo los que contienen un texto en el título
+    /// (paginación por cursor de /products/search mientras se construye el índice).
+    List<ProductModel> findByTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(String q, Long id, Limit limit);
 }
@@ -1,13 +1,33 @@
 package com.ceac.demo1.repositories;
 
 import com.ceac.demo1.entities.UserModel;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface IUserRepository extends JpaRepository<UserModel, Long>{
     Optional<UserModel> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    /// Listados (GET /user): solo id, nombre, apellidos y email (ver {@link UserSummary}).
+    Page<UserSummary> findAllBy(Pageable pageable);
+
+    /// Siguiente bloque a partir de un id, sin OFFSET (GET /user?cursor=...).
+    List<UserSummary> findByIdGreaterThanOrderByIdAsc(long id, Limit limit);
+
+    /// Cambia el hash solo si sigue siendo el que se leyó (si entretanto se cambió la contraseña, no hace nada).
+    @Modifying
+    @Transactional
+    @Query("update UserModel u set u.password = :newHash where u.id = :id and u.password = :oldHash")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
 }
@@ -0,0 +1,244 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.entities.ProductModel;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/// Escritura masiva e idempotente de productos con JDBC, para cargas grandes (seed, importaciones).
+///
+/// Con @GeneratedValue(IDENTITY) Hibernate necesita el id de cada fila nada más insertarla,
+/// y saveAll() hace además un SELECT por producto para decidir entre INSERT y UPDATE.
+/// Aquí cada bloque se resuelve con dos sentencias, en su propia transacción:
+/// 1. Un SELECT de los productos que ya existen con esas claves (title, platform) y su huella.
+/// 2. Un único INSERT multi-fila solo con los nuevos y los que han cambiado:
+///    INSERT ... ON DUPLICATE KEY UPDATE en MySQL, MERGE ... KEY en H2.
+/// Los que llegan con la misma huella que la guardada no se escriben.
+/// Volver a importar el mismo fichero no crea duplicados ni escribe nada.
+///
+/// La clave única de MySQL usa la collation por defecto (utf8mb4_0900_ai_ci), que no distingue
+/// mayúsculas ni tildes: "Elden Ring" y "elden ring" son la misma fila. Aquí las claves se comparan
+/// igual (ver {@link Key#of}) y un producto que ya existe se escribe con el title y platform guardados,
+/// así MERGE en H2 actualiza esa fila en lugar de crear otra.
+///
+/// No pasa por JPA: quien lo use debe publicar un ProductsChangedEvent al terminar.
+///
+/// Todo esto depende de la clave única uk_products_title_platform. La crea ddl-auto, pero en una tabla
+/// que ya tiene duplicados el ALTER TABLE falla y Hibernate solo lo anota como WARN; sin ella, MERGE y
+/// ON DUPLICATE KEY insertarían más duplicados. Por eso se comprueba al arrancar (ver {@link #checkNaturalKey}).
+@Repository
+public class ProductBatchWriter {
+
+    /// Productos nuevos, actualizados y sin cambios de un bloque, y los ids de los que se han escrito
+    /// (solo si se pidieron). Si una clave se repite dentro del bloque gana la última y las
+    /// anteriores cuentan como sin cambios.
+    public record Upserted(int inserted, int updated, int unchanged, List<Long> changedIds) {}
+
+    private static final String COLUMNS =
+            "title, platform, price, discount, image_url, description, release_date, publisher, stock, tags, content_hash";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int ROW_PARAMS = 11;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate tx;
+    private volatile Dialect dialect;
+
+    private enum Dialect { MYSQL, H2 }
+
+    /// Clave natural tal como la compara la collation: minúsculas y sin tildes.
+    private record Key(String title, String platform) {
+        static Key of(String title, String platform) {
+            return new Key(fold(title), fold(platform));
+        }
+
+        private static String fold(String value) {
+            if (value == null) {
+                return null;
+            }
+            String decomposed = Normalizer.normalize(value, Normalizer.Form.NFD);
+            StringBuilder out = new StringBuilder(decomposed.length());
+            for (int i = 0; i < decomposed.length(); i++) {
+                char c = decomposed.charAt(i);
+                if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                    out.append(c);
+                }
+            }
+            return out.toString().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /// Fila guardada: id, huella y la clave tal como está en la base de datos.
+    private record Existing(long id, Long contentHash, String title, String platform) {}
+
+    public ProductBatchWriter(JdbcTemplate jdbc, TransactionTemplate tx) {
+        this.jdbc = jdbc;
+        this.tx = tx;
+    }
+
+    /// Al terminar de crear los beans (ya con el esquema actualizado por Hibernate y antes del seed):
+    /// si no hay un índice único sobre (title, platform), no arranca. Los duplicados se quitan con
+    /// db/products-dedup.sql.
+    @EventListener(ContextRefreshedEvent.class)
+    public void checkNaturalKey() {
+        boolean present = Boolean.TRUE.equals(jdbc.execute((ConnectionCallback<Boolean>) c -> {
+            Map<String, Set<String>> uniqueIndexes = new HashMap<>();
+            try (ResultSet rs = c.getMetaData().getIndexInfo(c.getCatalog(), c.getSchema(), "products", true, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        uniqueIndexes.computeIfAbsent(index, k -> new HashSet<>()).add(column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+            return uniqueIndexes.containsValue(Set.of("title", "platform"));
+        }));
+        if (!present) {
+            throw new IllegalStateException("Falta la clave única uk_products_title_platform en products "
+                    + "(probablemente hay productos repetidos): ejecuta src/main/resources/db/products-dedup.sql");
+        }
+    }
+
+    /// Inserta o actualiza el bloque (por title + platform) en una transacción.
+    /// @param returnIds si hay que devolver los ids de los productos escritos (una consulta más)
+    public Upserted upsert(List<ProductModel> chunk, boolean returnIds) {
+        Map<Key, ProductModel> byKey = new LinkedHashMap<>();
+        for (ProductModel product : chunk) {
+            byKey.put(Key.of(product.getTitle(), product.getPlatform()), product);
+        }
+        return tx.execute(status -> {
+            Map<Key, Existing> existing = findExisting(byKey.values());
+            List<ProductModel> changed = new ArrayList<>(byKey.size());
+            List<Existing> targets = new ArrayList<>(byKey.size());
+            List<Long> hashes = new ArrayList<>(byKey.size());
+            int inserted = 0;
+            int updated = 0;
+            for (Map.Entry<Key, ProductModel> e : byKey.entrySet()) {
+                Existing old = existing.get(e.getKey());
+                long hash = old == null
+                        ? e.getValue().computeContentHash()
+                        : e.getValue().computeContentHash(old.title(), old.platform());
+                if (old == null) {
+                    inserted++;
+                } else if (old.contentHash() == null || old.contentHash() != hash) {
+                    updated++;
+                } else {
+                    continue;
+                }
+                changed.add(e.getValue());
+                targets.add(old);
+                hashes.add(hash);
+            }
+            if (!changed.isEmpty()) {
+                write(changed, targets, hashes);
+            }
+            List<Long> ids = List.of();
+            if (returnIds && !changed.isEmpty()) {
+                ids = findExisting(changed).values().stream().map(Existing::id).toList();
+            }
+            return new Upserted(inserted, updated, chunk.size() - inserted - updated, ids);
+        });
+    }
+
+    /// SELECT id, title, platform, content_hash ... WHERE (title, platform) IN ((?, ?), ...)
+    /// En MySQL la collation ya compara sin mayúsculas ni tildes (y usa la clave única). H2 compara
+    /// exacto, así que ahí se busca por LOWER(title) (las tildes siguen contando: solo es para desarrollo)
+    /// y la plataforma se comprueba aquí. Las filas se devuelven por su clave normalizada.
+    private Map<Key, Existing> findExisting(Iterable<ProductModel> products) {
+        boolean h2 = dialect() == Dialect.H2;
+        StringBuilder sql = new StringBuilder("SELECT id, title, platform, content_hash FROM products WHERE ")
+                .append(h2 ? "LOWER(title)" : "(title, platform)").append(" IN (");
+        String param = h2 ? "LOWER(?)" : "(?, ?)";
+        Map<Key, Existing> found = new HashMap<>();
+        List<Object> args = new ArrayList<>();
+        for (ProductModel product : products) {
+            found.put(Key.of(product.getTitle(), product.getPlatform()), null);
+            sql.append(args.isEmpty() ? param : ", " + param);
+            args.add(product.getTitle());
+            if (!h2) {
+                args.add(product.getPlatform());
+            }
+        }
+        if (args.isEmpty()) {
+            return found;
+        }
+        jdbc.query(sql.append(')').toString(), rs -> {
+            String title = rs.getString("title");
+            String platform = rs.getString("platform");
+            Key key = Key.of(title, platform);
+            if (!found.containsKey(key)) {
+                return; // H2: mismo título en otra plataforma
+            }
+            long hash = rs.getLong("content_hash");
+            found.put(key, new Existing(rs.getLong("id"), rs.wasNull() ? null : hash, title, platform));
+        }, args.toArray());
+        found.values().removeIf(Objects::isNull);
+        return found;
+    }
+
+    /// @param targets fila existente de cada producto (null si es nuevo): se escribe con su title y platform.
+    private void write(List<ProductModel> rows, List<Existing> targets, List<Long> hashes) {
+        StringBuilder sql = new StringBuilder(dialect() == Dialect.H2
+                ? "MERGE INTO products (" + COLUMNS + ") KEY (title, platform) VALUES "
+                : "INSERT INTO products (" + COLUMNS + ") VALUES ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? ROW : ", " + ROW);
+        }
+        if (dialect() == Dialect.MYSQL) {
+            sql.append(" AS new ON DUPLICATE KEY UPDATE price = new.price, discount = new.discount,"
+                    + " image_url = new.image_url, description = new.description, release_date = new.release_date,"
+                    + " publisher = new.publisher, stock = new.stock, tags = new.tags, content_hash = new.content_hash");
+        }
+        jdbc.update(sql.toString(), ps -> {
+            for (int i = 0; i < rows.size(); i++) {
+                bind(ps, i * ROW_PARAMS, rows.get(i), targets.get(i), hashes.get(i));
+            }
+        });
+    }
+
+    private static void bind(PreparedStatement ps, int offset, ProductModel p, Existing target, long hash)
+            throws SQLException {
+        ps.setString(offset + 1, target == null ? p.getTitle() : target.title());
+        ps.setString(offset + 2, target == null ? p.getPlatform() : target.platform());
+        ps.setBigDecimal(offset + 3, p.getPrice());
+        ps.setObject(offset + 4, p.getDiscount(), Types.INTEGER);
+        ps.setString(offset + 5, p.getImageUrl());
+        ps.setString(offset + 6, p.getDescription());
+        ps.setDate(offset + 7, p.getReleaseDate() == null ? null : Date.valueOf(p.getReleaseDate()));
+        ps.setString(offset + 8, p.getPublisher());
+        ps.setObject(offset + 9, p.getStock(), Types.INTEGER);
+        ps.setString(offset + 10, p.getTags());
+        ps.setLong(offset + 11, hash);
+    }
+
+    private Dialect dialect() {
+        Dialect d = dialect;
+        if (d == null) {
+            String product = jdbc.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            if (product == null || !(product.contains("MySQL") || product.contains("H2"))) {
+                throw new IllegalStateException("Upsert masivo no soportado en " + product);
+            }
+            d = dialect = product.contains("H2") ? Dialect.H2 : Dialect.MYSQL;
+        }
+        return d;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.exceptions.InvalidFieldsException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/// Listados de productos con solo algunas columnas (parámetro "fields" de /products, /products/search
+/// y /products/platform/{platform}).
+///
+/// La consulta es "select p.id, p.title, ... from ProductModel p": Hibernate devuelve valores sueltos,
+/// no entidades, así que no las guarda en el contexto de persistencia ni comprueba si han cambiado.
+/// Sin description (1024) ni imageUrl (512) se leen y se envían muchos menos bytes.
+/// Cada fila es un mapa columna -> valor en el orden pedido; el id va siempre el primero.
+@Repository
+public class ProductProjections {
+
+    /// Campos que se pueden pedir (nombres de ProductModel).
+    public static final List<String> FIELDS = List.of(
+            "id", "title", "platform", "price", "discount", "imageUrl", "description", "releaseDate", "publisher", "stock", "tags");
+
+    private final EntityManager em;
+
+    public ProductProjections(EntityManager em) {
+        this.em = em;
+    }
+
+    /// "title,price" → [id, title, price]. null o vacío → null (producto completo).
+    /// @throws InvalidFieldsException si algún nombre no es un campo de producto
+    public static List<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> selected = new LinkedHashSet<>();
+        selected.add("id");
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!FIELDS.contains(name)) {
+                throw new InvalidFieldsException(name, FIELDS);
+            }
+            selected.add(name);
+        }
+        return List.copyOf(selected);
+    }
+
+    /// Una página (orden de id), opcionalmente solo de una plataforma o con un texto en el título.
+    public Page<Map<String, Object>> findPage(List<String> fields, String platform, String titleContains, Pageable pageable) {
+        String where = where(platform, titleContains, false);
+        TypedQuery<Object[]> query = em.createQuery(select(fields) + where + " order by p.id", Object[].class)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        TypedQuery<Long> count = em.createQuery("select count(p) from ProductModel p" + where, Long.class);
+        bind(query, platform, titleContains, null);
+        bind(count, platform, titleContains, null);
+        List<Map<String, Object>> rows = rows(fields, query.getResultList());
+        return new PageImpl<>(rows, pageable, count.getSingleResult());
+    }
+
+    /// Las "limit" filas siguientes a un id (modo cursor), con los mismos filtros que {@link #findPage}.
+    public List<Map<String, Object>> findAfter(List<String> fields, String platform, String titleContains,
+                                              long afterId, int limit) {
+        TypedQuery<Object[]> query = em.createQuery(
+                        select(fields) + where(platform, titleContains, true) + " order by p.id", Object[].class)
+                .setMaxResults(limit);
+        bind(query, platform, titleContains, afterId);
+        return rows(fields, query.getResultList());
+    }
+
+    /// Los productos con esos ids, en el mismo orden (los que no existan se omiten).
+    public List<Map<String, Object>> findByIds(List<String> fields, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<Object[]> result = em.createQuery(select(fields) + " where p.id in :ids", Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> row : rows(fields, result)) {
+            byId.put((Long) row.get("id"), row);
+        }
+        List<Map<String, Object>> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Map<String, Object> row = byId.get(id);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    /// Los nombres ya están validados contra FIELDS: se pueden poner en el JPQL sin riesgo.
+    private static String select(List<String> fields) {
+        StringBuilder jpql = new StringBuilder("select ");
+        for (int i = 0; i < fields.size(); i++) {
+            jpql.append(i == 0 ? "p." : ", p.").append(fields.get(i));
+        }
+        return jpql.append(" from ProductModel p").toString();
+    }
+
+    /// Mismas condiciones que los métodos derivados de IProductRepository (IgnoreCase = upper, Containing = like).
+    private static String where(String platform, String titleContains, boolean afterId) {
+        List<String> conditions = new ArrayList<>(3);
+        if (platform != null) conditions.add("upper(p.platform) = upper(:platform)");
+        if (titleContains != null) conditions.add("upper(p.title) like upper(:title) escape '\\'");
+        if (afterId) conditions.add("p.id > :afterId");
+        return conditions.isEmpty() ? "" : " where " + String.join(" and ", conditions);
+    }
+
+    private static void bind(TypedQuery<?> query, String platform, String titleContains, Long afterId) {
+        if (platform != null) query.setParameter("platform", platform);
+        if (titleContains != null) {
+            String escaped = titleContains.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            query.setParameter("title", "%" + escaped + "%");
+        }
+        if (afterId != null) query.setParameter("afterId", afterId);
+    }
+
+    private static List<Map<String, Object>> rows(List<String> fields, List<Object[]> result) {
+        List<Map<String, Object>> rows = new ArrayList<>(result.size());
+        for (Object[] values : result) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < fields.size(); i++) {
+                row.put(fields.get(i), values[i]);
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+}
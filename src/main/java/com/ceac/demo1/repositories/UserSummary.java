@@ -0,0 +1,7 @@
+package com.ceac.demo1.repositories;
+
+/// Lo que muestran los listados de usuarios: sin la contraseña.
+///
+/// Es una proyección de Spring Data: en las consultas que la devuelven el SELECT solo pide estas
+/// cuatro columnas, así que los hash de las contraseñas ni siquiera se leen de la base de datos.
+public record UserSummary(long id, String firstName, String lastName, String email) {}
@@ -0,0 +1,8 @@
+package com.ceac.demo1.services;
+
+import java.util.List;
+
+/// Una página en modo cursor: sin número de página ni total (no se hace COUNT).
+/// La usan los listados de productos ({@link com.ceac.demo1.services.catalog.ProductCursor}) y de usuarios ({@link IdCursor}).
+/// Para seguir, se pide la misma URL con cursor=nextCursor; si hasNext es false, nextCursor es null.
+public record CursorPage<T>(List<T> content, int size, boolean hasNext, String nextCursor) {}
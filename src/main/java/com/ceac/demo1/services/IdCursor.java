@@ -0,0 +1,39 @@
+package com.ceac.demo1.services;
+
+import com.ceac.demo1.exceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/// Posición de un listado ordenado por id en modo cursor: el último id devuelto.
+///
+/// Al cliente se le entrega opaca (base64url de 9 bytes: versión + id) y la devuelve tal cual
+/// para pedir la página siguiente (WHERE id > ?). Sirve para cualquier tabla con id creciente.
+public record IdCursor(long id) {
+
+    private static final byte VERSION = 1;
+    private static final int BYTES = 1 + Long.BYTES;
+
+    public String encode() {
+        ByteBuffer buf = ByteBuffer.allocate(BYTES).put(VERSION).putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /// null o "" → primera página (devuelve null).
+    /// @throws InvalidCursorException si el texto no es un cursor emitido por esta versión
+    public static IdCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+        if (raw.length != BYTES || raw[0] != VERSION) {
+            throw new InvalidCursorException();
+        }
+        return new IdCursor(ByteBuffer.wrap(raw, 1, Long.BYTES).getLong());
+    }
+}
@@ -1,38 +1,219 @@
 package com.ceac.demo1.services;
 
 import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.exceptions.CatalogIndexNotReadyException;
 import com.ceac.demo1.repositories.IProductRepository;
+import com.ceac.demo1.repositories.ProductBatchWriter;
+import com.ceac.demo1.repositories.ProductProjections;
+import com.ceac.demo1.services.catalog.FacetIndex;
+import com.ceac.demo1.services.catalog.FacetPage;
+import com.ceac.demo1.services.catalog.ProductCache;
+import com.ceac.demo1.services.catalog.ProductCursor;
+import com.ceac.demo1.services.catalog.ProductSearch;
+import com.ceac.demo1.services.catalog.TrigramIndex;
+import com.ceac.demo1.services.catalog.UpsertReport;
+import com.ceac.demo1.services.catalog.ProductsChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 @Service
 public class ProductService {
     private final IProductRepository repo;
+    private final ProductCache cache; // lecturas por id y por página, sin ir a la BD si ya están en memoria
+    private final ProductSearch searchIndex; // búsqueda por trigramas en memoria (en lugar de LIKE '%q%')
+    private final ProductBatchWriter writer; // cargas masivas por JDBC (upsert por title + platform)
+    private final ProductProjections projections; // listados con solo algunas columnas (?fields=)
+    private final ApplicationEventPublisher events;
+    private final int upsertChunkSize;
 
-    public ProductService(IProductRepository repo) { this.repo = repo; }
+    public ProductService(IProductRepository repo, ProductCache cache, ProductSearch searchIndex,
+                          ProductBatchWriter writer, ProductProjections projections, ApplicationEventPublisher events,
+                          @Value("${app.catalog.upsert.chunk-size:500}") int upsertChunkSize) {
+        this.repo = repo;
+        this.cache = cache;
+        this.searchIndex = searchIndex;
+        this.writer = writer;
+        this.projections = projections;
+        this.events = events;
+        this.upsertChunkSize = Math.max(1, upsertChunkSize);
+    }
 
     public Page<ProductModel> getProducts(int page, int size) {
         Pageable p = PageRequest.of(page, size);
-        return repo.findAll(p);
+        return cache.getPage(null, page, size, () -> repo.findAll(p));
     }
 
+    /// Busca en título, etiquetas y editor, ordenado por relevancia.
+    /// Los productos de la página se leen por id (normalmente ya están en la caché).
+    /// Hasta que el índice termina de construirse al arrancar, se usa la consulta LIKE de siempre.
     public Page<ProductModel> search(String q, int page, int size) {
-        return repo.findByTitleContainingIgnoreCase(q, PageRequest.of(page, size));
+        if (!searchIndex.isReady()) {
+            return repo.findByTitleContainingIgnoreCase(q, PageRequest.of(page, size));
+        }
+        TrigramIndex.Hits hits = searchIndex.search(q, page, size);
+        return new PageImpl<>(load(hits.ids()), PageRequest.of(page, size), hits.total());
+    }
+
+    /// Filtro combinado por facetas (plataforma, etiqueta, banda de precio, banda de descuento)
+    /// resuelto con bitmaps en memoria; los productos de la página se leen por id (caché).
+    public FacetPage<ProductModel> filter(Map<String, ? extends Collection<String>> selected, int page, int size) {
+        if (!searchIndex.isReady()) {
+            throw new CatalogIndexNotReadyException();
+        }
+        FacetIndex.Result result = searchIndex.filter(selected, page, size);
+        return new FacetPage<>(load(result.ids()), page, size, result.total(), result.counts());
     }
 
     public Page<ProductModel> byPlatform(String platform, int page, int size) {
-        return repo.findByPlatformIgnoreCase(platform, PageRequest.of(page, size));
+        return cache.getPage(platform, page, size,
+                () -> repo.findByPlatformIgnoreCase(platform, PageRequest.of(page, size)));
+    }
+
+    // ---- Modo cursor: WHERE id > ? ORDER BY id LIMIT size+1, sin OFFSET ni COUNT ----
+    // Se pide una fila de más solo para saber si hay página siguiente.
+
+    public CursorPage<ProductModel> getProductsAfter(String cursor, int size) {
+        size = Math.max(size, 1);
+        long after = afterId(ProductCursor.decode(cursor));
+        return byId(repo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(size + 1)), size, ProductModel::getId);
+    }
+
+    public CursorPage<ProductModel> byPlatformAfter(String platform, String cursor, int size) {
+        size = Math.max(size, 1);
+        long after = afterId(ProductCursor.decode(cursor));
+        return byId(repo.findByPlatformIgnoreCaseAndIdGreaterThanOrderByIdAsc(platform, after, Limit.of(size + 1)), size,
+                ProductModel::getId);
+    }
+
+    /// Búsqueda en modo cursor, ordenada por (relevancia desc, id asc).
+    /// Un cursor emitido antes de que el índice estuviera listo (ordenado por id) se sigue
+    /// recorriendo con LIKE hasta el final, para no saltar ni repetir productos.
+    public CursorPage<ProductModel> searchAfter(String q, String cursor, int size) {
+        size = Math.max(size, 1);
+        ProductCursor after = ProductCursor.decode(cursor);
+        if (!searchIndex.isReady() || (after != null && !after.ranked())) {
+            return byId(repo.findByTitleContainingIgnoreCaseAndIdGreaterThanOrderByIdAsc(
+                    q, afterId(after), Limit.of(size + 1)), size, ProductModel::getId);
+        }
+        return ranked(q, after, size, this::load);
     }
 
-    public Optional<ProductModel> getById(Long id){ return repo.findById(id); }
+    /// Lee los productos de una página de resultados del índice, en el orden del índice:
+    /// los que están en la caché salen de ahí y el resto con una sola consulta (WHERE id IN ...).
+    private List<ProductModel> load(long[] ids) {
+        return cache.getAllById(ids, repo::findAllById);
+    }
+
+    /// Página de la búsqueda ordenada por (relevancia desc, id asc) a partir de "after" (null: la primera).
+    private <T> CursorPage<T> ranked(String q, ProductCursor after, int size, Function<long[], List<T>> load) {
+        TrigramIndex.Hits hits = after == null
+                ? searchIndex.search(q, 0, size + 1)
+                : searchIndex.searchAfter(q, after.score(), after.id(), size + 1);
+        int n = Math.min(size, hits.ids().length);
+        List<T> content = load.apply(Arrays.copyOf(hits.ids(), n));
+        boolean hasNext = hits.ids().length > size;
+        String next = hasNext ? new ProductCursor(hits.ids()[n - 1], hits.scores()[n - 1]).encode() : null;
+        return new CursorPage<>(content, size, hasNext, next);
+    }
+
+    private static long afterId(ProductCursor cursor) {
+        return cursor == null ? 0 : cursor.id();
+    }
+
+    private static <T> CursorPage<T> byId(List<T> rows, int size, ToLongFunction<T> id) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? ProductCursor.byId(id.applyAsLong(content.get(size - 1))).encode() : null;
+        return new CursorPage<>(content, size, hasNext, next);
+    }
+
+    // ---- Solo algunas columnas (?fields=title,price...): consultas de proyección, sin entidades ----
+    // No pasan por la caché de productos (que guarda entidades completas). El id va siempre incluido.
+
+    public Page<Map<String, Object>> getProducts(int page, int size, List<String> fields) {
+        return projections.findPage(fields, null, null, PageRequest.of(page, size));
+    }
+
+    public Page<Map<String, Object>> byPlatform(String platform, int page, int size, List<String> fields) {
+        return projections.findPage(fields, platform, null, PageRequest.of(page, size));
+    }
+
+    public Page<Map<String, Object>> search(String q, int page, int size, List<String> fields) {
+        if (!searchIndex.isReady()) {
+            return projections.findPage(fields, null, q, PageRequest.of(page, size));
+        }
+        TrigramIndex.Hits hits = searchIndex.search(q, page, size);
+        return new PageImpl<>(projections.findByIds(fields, ids(hits.ids())), PageRequest.of(page, size), hits.total());
+    }
+
+    public CursorPage<Map<String, Object>> getProductsAfter(String cursor, int size, List<String> fields) {
+        return byPlatformAfter(null, cursor, size, fields);
+    }
+
+    /// @param platform null: todo el catálogo
+    public CursorPage<Map<String, Object>> byPlatformAfter(String platform, String cursor, int size, List<String> fields) {
+        size = Math.max(size, 1);
+        long after = afterId(ProductCursor.decode(cursor));
+        return byId(projections.findAfter(fields, platform, null, after, size + 1), size, ProductService::rowId);
+    }
+
+    public CursorPage<Map<String, Object>> searchAfter(String q, String cursor, int size, List<String> fields) {
+        size = Math.max(size, 1);
+        ProductCursor after = ProductCursor.decode(cursor);
+        if (!searchIndex.isReady() || (after != null && !after.ranked())) {
+            return byId(projections.findAfter(fields, null, q, afterId(after), size + 1), size, ProductService::rowId);
+        }
+        return ranked(q, after, size, ids -> projections.findByIds(fields, ids(ids)));
+    }
+
+    private static long rowId(Map<String, Object> row) {
+        return (Long) row.get("id");
+    }
+
+    private static List<Long> ids(long[] ids) {
+        List<Long> list = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+
+    public Optional<ProductModel> getById(Long id){ return cache.getById(id, repo::findById); }
+
+    // Upsert masivo e idempotente por clave natural (title, platform), por bloques de upsertChunkSize:
+    // los productos sin cambios (misma huella) no se escriben. Cada bloque se confirma por separado.
+    // Avisa de los que han cambiado para que la caché (y cualquier otro dato derivado) se invalide.
+    public UpsertReport upsertAll(List<ProductModel> items){
+        UpsertReport report = UpsertReport.EMPTY;
+        List<Long> changed = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += upsertChunkSize) {
+            List<ProductModel> chunk = items.subList(from, Math.min(items.size(), from + upsertChunkSize));
+            ProductBatchWriter.Upserted result = writer.upsert(chunk, true);
+            report = report.plus(result.inserted(), result.updated(), result.unchanged());
+            changed.addAll(result.changedIds());
+        }
+        if (!changed.isEmpty()) {
+            events.publishEvent(new ProductsChangedEvent(changed));
+        }
+        return report;
+    }
 
-    // Bulk upsert muy simple para el seed
-    public List<ProductModel> upsertAll(List<ProductModel> items){
-        return repo.saveAll(items);
+    public ProductCache.Stats cacheStats() {
+        return cache.stats();
     }
 }
@@ -1,35 +1,114 @@
 package com.ceac.demo1.services;
 
 import com.ceac.demo1.entities.UserModel;
+import com.ceac.demo1.repositories.ExportQueries;
 import com.ceac.demo1.repositories.IUserRepository;
+import com.ceac.demo1.repositories.UserSummary;
+import com.ceac.demo1.services.auth.PasswordHasher;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 ///  Avisar que esta no es la manera real de hacer JWT.
 
 @Service
 public class UserService {
+    private static final Logger log = LoggerFactory.getLogger(UserService.class);
+
+    /// Las actualizaciones de hash tras el login se guardan en un hilo virtual (no en el pool de hash).
+    private static final Executor REHASH_WRITER = task -> Thread.ofVirtual().name("rehash").start(task);
+
     @Autowired
     IUserRepository userRepository;
-    private final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    /// BCrypt se calcula en un pool acotado (no en el hilo de la petición)
+    private final PasswordHasher hasher;
+    /// Para la exportación NDJSON de usuarios
+    private final ExportQueries exportQueries;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate readOnlyTx;
+    /// Tamaño máximo de página de los listados (se recorta, nunca se devuelve más)
+    private final int maxPageSize;
 
     ///  Constructor del servicio de usuarios
-    public UserService(IUserRepository userRepository) {
+    public UserService(IUserRepository userRepository, PasswordHasher hasher, ExportQueries exportQueries, ObjectMapper mapper,
+                       PlatformTransactionManager txManager,
+                       @Value("${app.user.page.max-size:100}") int maxPageSize) {
         this.userRepository = userRepository;
+        this.hasher = hasher;
+        this.exportQueries = exportQueries;
+        this.mapper = mapper;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.maxPageSize = Math.max(1, maxPageSize);
+    }
+
+    /// Obtener una página de usuarios (sin contraseñas), ordenada por id
+    public Page<UserSummary> getUsers(int page, int size) {
+        return userRepository.findAllBy(PageRequest.of(Math.max(page, 0), pageSize(size), Sort.by("id")));
+    }
+
+    /// Modo cursor: WHERE id > ? ORDER BY id LIMIT size+1 (la fila de más solo dice si hay página siguiente).
+    public CursorPage<UserSummary> getUsersAfter(String cursor, int size) {
+        size = pageSize(size);
+        IdCursor after = IdCursor.decode(cursor);
+        List<UserSummary> rows = userRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0 : after.id(), Limit.of(size + 1));
+        boolean hasNext = rows.size() > size;
+        List<UserSummary> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? new IdCursor(content.get(size - 1).id()).encode() : null;
+        return new CursorPage<>(content, size, hasNext, next);
+    }
+
+    /// Escribe todos los usuarios en "out" (sin cerrarlo), uno por línea en JSON, a medida que se leen.
+    /// Devuelve cuántos se han escrito.
+    public long exportUsers(OutputStream out) throws IOException {
+        try {
+            return readOnlyTx.execute(status -> {
+                long rows = 0;
+                try (Stream<UserSummary> users = exportQueries.users();
+                     JsonGenerator json = mapper.getFactory().createGenerator(out)) {
+                    json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                    json.setRootValueSeparator(null);
+                    for (UserSummary user : (Iterable<UserSummary>) users::iterator) {
+                        json.writeObject(user);
+                        json.writeRaw('\n');
+                        rows++;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return rows;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
-    /// Obtener todos los usuarios de la BD
-    public ArrayList<UserModel> getUsers () {
-        return (ArrayList<UserModel>) userRepository.findAll();
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, maxPageSize));
     }
 
     /// Crear Usuario
     public UserModel saveUser(UserModel user){
-        user.setPassword(encoder.encode(user.getPassword()));
+        user.setPassword(hasher.encode(user.getPassword()));
 
         return userRepository.save(user);
     }
@@ -50,12 +129,18 @@ public class UserService {
         user.setEmail(request.getEmail());
 
         if (request.getPassword() != null && !request.getPassword().isBlank()) {
-            user.setPassword(encoder.encode(request.getPassword()));
+            user.setPassword(hasher.encode(request.getPassword()));
         }
 
         return userRepository.save(user);
     }
 
+    /// Cambiar solo la contraseña (se guarda ya hasheada)
+    public UserModel changePassword(UserModel user, String rawPassword) {
+        user.setPassword(hasher.encode(rawPassword));
+        return userRepository.save(user);
+    }
+
     /// Eliminar Usuario
     public Boolean deletebyId(Long id){
         try{
@@ -79,6 +164,26 @@ public class UserService {
     }
 
     public boolean matches(String raw, String hashed) {
-        return encoder.matches(raw, hashed);
+        return hasher.matches(raw, hashed);
+    }
+
+    /// Login: comprueba la contraseña y, si el hash guardado tiene un coste distinto del actual
+    /// (más bajo o más alto), lo rehace en segundo plano con la contraseña que acaba de llegar.
+    /// La respuesta del login no espera a ese rehash; si el pool está lleno se intentará en el próximo login.
+    public boolean checkPassword(UserModel user, String raw) {
+        String stored = user.getPassword();
+        if (!hasher.matches(raw, stored)) {
+            return false;
+        }
+        if (hasher.needsRehash(stored)) {
+            Long id = user.getId();
+            hasher.encodeAsync(raw)
+                    .thenAcceptAsync(hash -> userRepository.updatePasswordIfUnchanged(id, stored, hash), REHASH_WRITER)
+                    .exceptionally(e -> {
+                        log.debug("No se pudo actualizar el hash del usuario {}: {}", id, e.getMessage());
+                        return null;
+                    });
+        }
+        return true;
     }
 }
@@ -0,0 +1,115 @@
+package com.ceac.demo1.services.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/// Coste ("strength") de BCrypt con el que se hashean las contraseñas nuevas.
+///
+/// Cada punto de coste duplica el tiempo del hash (2^strength rondas). En lugar de fijarlo a mano,
+/// {@link #calibrate} mide cuánto tarda un hash en esta máquina y elige el coste más alto que
+/// no pase de app.security.bcrypt.target-ms (sin bajar nunca de app.security.bcrypt.min-strength).
+///
+/// Los hash guardan su coste dentro ("$2a$10$..."), así que si cambia la máquina o la
+/// configuración se puede detectar qué contraseñas hay que volver a hashear ({@link #isOutdated}).
+///
+/// Medir en cada arranque tiene ruido: un coste justo en el límite saldría unas veces 12 y otras 13, y
+/// cada cambio rehace los hash de todo el que inicia sesión. Por eso el coste calibrado se guarda en un
+/// fichero (app.security.bcrypt.calibration-file) y solo se cambia si la medida se aleja dos o más
+/// puntos (4 veces más rápido o más lento: otra máquina, no ruido). Ver {@link #settle}.
+public record BCryptStrength(int value) {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptStrength.class);
+
+    /// Límites que admite BCrypt.
+    static final int MIN = 4;
+    static final int MAX = 31;
+    /// Más allá de 16 (unos segundos por hash) no tiene sentido para un login interactivo.
+    private static final int MAX_CALIBRATED = 16;
+    private static final int PROBE_STRENGTH = 8;
+
+    public BCryptStrength {
+        if (value < MIN || value > MAX) {
+            throw new IllegalArgumentException("El coste de BCrypt debe estar entre " + MIN + " y " + MAX + ": " + value);
+        }
+    }
+
+    /// Como {@link #calibrate(long, int)}, pero parte del coste guardado en "file" (si lo hay) y solo
+    /// lo cambia si la medida se aleja dos o más puntos. Guarda el resultado para el siguiente arranque.
+    public static BCryptStrength calibrate(long targetMs, int minStrength, Path file) {
+        Integer previous = null;
+        try {
+            if (Files.exists(file)) {
+                previous = Integer.valueOf(Files.readString(file).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.warn("No se ha podido leer el coste de BCrypt guardado en {}: se calibra de nuevo", file, e);
+        }
+        int measured = calibrate(targetMs, minStrength).value();
+        int strength = previous == null || previous < Math.max(MIN, minStrength) || previous > MAX
+                ? measured : settle(previous, measured);
+        if (previous == null || strength != previous) {
+            try {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                Files.writeString(file, strength + "\n");
+            } catch (IOException e) {
+                log.warn("No se ha podido guardar el coste de BCrypt en {}", file, e);
+            }
+        }
+        if (previous != null) {
+            log.info("BCrypt: coste {} (guardado {}, medido {})", strength, previous, measured);
+        }
+        return new BCryptStrength(strength);
+    }
+
+    /// Histéresis: el coste guardado se mantiene mientras la medida esté a un punto o menos
+    /// (un punto es el doble de tiempo, lo que puede variar una medida con la máquina ocupada).
+    static int settle(int previous, int measured) {
+        return Math.abs(measured - previous) <= 1 ? previous : measured;
+    }
+
+    /// Mide un hash con coste bajo (tras calentar la JVM) y extrapola: t(s) = t(8) * 2^(s - 8).
+    public static BCryptStrength calibrate(long targetMs, int minStrength) {
+        String salt = BCrypt.gensalt(PROBE_STRENGTH);
+        BCrypt.hashpw("calibracion", salt); // calentamiento (JIT)
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibracion", salt);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double probeMs = best / 1e6;
+        int strength = Math.max(MIN, minStrength);
+        while (strength < MAX_CALIBRATED && probeMs * Math.pow(2, strength + 1 - PROBE_STRENGTH) <= targetMs) {
+            strength++;
+        }
+        log.info("BCrypt calibrado: coste {} (~{} ms por hash, objetivo {} ms)",
+                strength, Math.round(probeMs * Math.pow(2, strength - PROBE_STRENGTH)), targetMs);
+        return new BCryptStrength(strength);
+    }
+
+    /// Coste guardado en un hash BCrypt ("$2a$12$..." → 12) o -1 si no es un hash BCrypt.
+    public static int costOf(String encoded) {
+        if (encoded == null || encoded.length() < 7 || encoded.charAt(0) != '$' || encoded.charAt(3) != '$'
+                || encoded.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encoded.charAt(4);
+        char units = encoded.charAt(5);
+        if (tens < '0' || tens > '9' || units < '0' || units > '9') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    /// true si el hash es BCrypt y su coste no coincide con el actual (más bajo o más alto).
+    public boolean isOutdated(String encoded) {
+        int cost = costOf(encoded);
+        return cost >= 0 && cost != value;
+    }
+}
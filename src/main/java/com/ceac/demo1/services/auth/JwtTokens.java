@@ -0,0 +1,169 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.RevocationListFullException;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Date;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Tokens JWT firmados (HS256) con caducidad: el modo "sin estado" de {@link TokenService}.
+///
+/// - createToken → firma un JWT con sub = email, jti = id aleatorio y exp = ahora + app.jwt.expiration-ms.
+/// - verify → comprueba firma y caducidad. No necesita ningún dato compartido entre nodos.
+/// - revoke → el jti entra en una lista negra que se vacía sola cuando el token caduca.
+///
+/// Para no repetir el HMAC y el parseo del JSON en cada petición, los tokens ya verificados
+/// se guardan en una caché pequeña de acceso directo (un array: posición = hash del token).
+@Component
+public class JwtTokens {
+
+    public record Stats(long cacheHits, long cacheMisses, int revoked) {}
+
+    /// Entrada inmutable de la caché: se publica de golpe, así que leerla sin locks es seguro.
+    private record Verified(String token, String email, String tokenId, long expiresAt) {}
+
+    private final SecretKey key;
+    private final JwtParser parser;
+    private final long expirationMs;
+    private final Clock clock;
+
+    private final Verified[] cache;
+    private final int cacheMask;
+    private final TokenDenylist denylist;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public JwtTokens(@Value("${app.jwt.secret}") String secret,
+                     @Value("${app.jwt.expiration-ms}") long expirationMs,
+                     @Value("${app.jwt.cache-size:4096}") int cacheSize,
+                     @Value("${app.jwt.denylist-max-entries:100000}") int denylistMaxEntries) {
+        this(Clock.systemUTC(), secret, expirationMs, cacheSize, denylistMaxEntries);
+    }
+
+    JwtTokens(Clock clock, String secret, long expirationMs, int cacheSize, int denylistMaxEntries) {
+        /// HS256 exige una clave de al menos 256 bits (32 bytes); si no, Keys lanza WeakKeyException.
+        this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .setClock(() -> new Date(clock.millis()))
+                .build();
+        this.expirationMs = expirationMs;
+        this.clock = clock;
+        this.cache = new Verified[Integer.highestOneBit(Math.max(cacheSize, 1) * 2 - 1)];
+        this.cacheMask = cache.length - 1;
+        this.denylist = new TokenDenylist(denylistMaxEntries, expirationMs, clock.millis());
+    }
+
+    public String createToken(String email) {
+        long now = clock.millis();
+        return Jwts.builder()
+                .setSubject(email)
+                .setId(newTokenId())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationMs))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /// Devuelve el email del token si la firma es válida, no ha caducado y no se ha revocado; si no, null.
+    public String getEmail(String token) {
+        return getEmail(token, 0);
+    }
+
+    /// Igual, pero el token empieza en "offset" (p. ej. 7 para leerlo directamente de "Bearer ...").
+    /// Si el token ya está en la caché no se copia: se compara en su sitio dentro del header.
+    public String getEmail(String source, int offset) {
+        Verified verified = verify(source, offset);
+        return verified == null ? null : verified.email();
+    }
+
+    /// Logout: el jti queda en la lista negra hasta que el token caduque.
+    /// Un token mal firmado o ya caducado no hace falta apuntarlo.
+    /// Si la lista negra está llena lanza RevocationListFullException (503): el token sigue valiendo.
+    public void revoke(String token) {
+        Verified verified = verify(token, 0);
+        if (verified == null) {
+            return;
+        }
+        if (!denylist.add(verified.tokenId(), verified.expiresAt(), clock.millis())) {
+            throw new RevocationListFullException();
+        }
+        int slot = slot(token, 0);
+        if (cache[slot] == verified) {
+            cache[slot] = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.sweep-interval-ms:1000}")
+    public void expireRevoked() {
+        denylist.expire(clock.millis());
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), denylist.size());
+    }
+
+    private Verified verify(String source, int offset) {
+        if (source == null || offset > source.length()) {
+            return null;
+        }
+        long now = clock.millis();
+        int slot = slot(source, offset);
+        Verified cached = cache[slot];
+
+        if (cached != null && cached.token().length() == source.length() - offset
+                && source.regionMatches(offset, cached.token(), 0, cached.token().length())) {
+            hits.increment();
+            if (cached.expiresAt() <= now || denylist.contains(cached.tokenId(), now)) {
+                return null;
+            }
+            return cached;
+        }
+
+        misses.increment();
+        String token = offset == 0 ? source : source.substring(offset);
+        Claims claims;
+        try {
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null; // firma incorrecta, token caducado, mal formado...
+        }
+
+        if (claims.getSubject() == null || claims.getId() == null || claims.getExpiration() == null
+                || denylist.contains(claims.getId(), now)) {
+            return null;
+        }
+
+        Verified verified = new Verified(token, claims.getSubject(), claims.getId(), claims.getExpiration().getTime());
+        cache[slot] = verified;
+        return verified;
+    }
+
+    /// Mismo hash que String.hashCode(), pero calculado desde "offset" sin crear el substring.
+    private int slot(String source, int offset) {
+        int h = 0;
+        for (int i = offset; i < source.length(); i++) {
+            h = 31 * h + source.charAt(i);
+        }
+        return (h ^ (h >>> 16)) & cacheMask;
+    }
+
+    /// 128 bits aleatorios en base64url (22 caracteres), igual que los tokens de sesión.
+    private String newTokenId() {
+        return SessionTokens.encode(SessionTokens.randomHalf(), SessionTokens.randomHalf());
+    }
+}
@@ -0,0 +1,131 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.LoginThrottledException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/// Límite de intentos de login por IP y por email (cubo de fichas), comprobado antes de leer el usuario
+/// y de calcular BCrypt: un ataque de credential stuffing no puede ocupar la CPU del pool de hash.
+///
+/// - app.auth.throttle.ip.burst / per-minute    → intentos seguidos y ritmo sostenido por IP.
+/// - app.auth.throttle.email.burst / per-minute → lo mismo por email (aunque lleguen desde muchas IPs).
+/// Sin fichas se lanza {@link LoginThrottledException} (429 + Retry-After).
+///
+/// Cada cubo es un solo AtomicLong (algoritmo GCRA): guarda el instante en que el cubo volvería a estar
+/// lleno y se actualiza con compareAndSet, sin locks. Los cubos viven en una caché de Caffeine con
+/// tamaño máximo (app.auth.throttle.max-keys) que borra los que llevan un rato sin usarse: un cubo
+/// que ha tenido tiempo de llenarse es igual que uno nuevo, así que borrarlo no cambia nada.
+@Component
+public class LoginThrottle {
+
+    private final Limiter byIp;
+    private final Limiter byEmail;
+    private final boolean enabled;
+    private final LongSupplier nanoTime;
+    private final Counter throttledByIp;
+    private final Counter throttledByEmail;
+
+    @Autowired
+    public LoginThrottle(@Value("${app.auth.throttle.enabled:true}") boolean enabled,
+                         @Value("${app.auth.throttle.ip.burst:20}") int ipBurst,
+                         @Value("${app.auth.throttle.ip.per-minute:60}") int ipPerMinute,
+                         @Value("${app.auth.throttle.email.burst:5}") int emailBurst,
+                         @Value("${app.auth.throttle.email.per-minute:5}") int emailPerMinute,
+                         @Value("${app.auth.throttle.max-keys:100000}") long maxKeys,
+                         MeterRegistry registry) {
+        this(enabled, ipBurst, ipPerMinute, emailBurst, emailPerMinute, maxKeys, registry, System::nanoTime);
+    }
+
+    LoginThrottle(boolean enabled, int ipBurst, int ipPerMinute, int emailBurst, int emailPerMinute,
+                  long maxKeys, MeterRegistry registry, LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.nanoTime = nanoTime;
+        this.byIp = new Limiter(ipBurst, ipPerMinute, maxKeys);
+        this.byEmail = new Limiter(emailBurst, emailPerMinute, maxKeys);
+        this.throttledByIp = throttled(registry, "ip");
+        this.throttledByEmail = throttled(registry, "email");
+    }
+
+    private static Counter throttled(MeterRegistry registry, String key) {
+        return Counter.builder("auth.login.throttled")
+                .description("Intentos de login rechazados con 429")
+                .tag("key", key)
+                .register(registry);
+    }
+
+    /// Gasta una ficha de la IP y otra del email.
+    /// @throws LoginThrottledException si alguno de los dos cubos está vacío
+    public void acquire(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        long wait = clientIp == null ? 0 : byIp.tryAcquire(clientIp, now);
+        if (wait > 0) {
+            throttledByIp.increment();
+            throw new LoginThrottledException(seconds(wait));
+        }
+        wait = email == null ? 0 : byEmail.tryAcquire(email.trim().toLowerCase(Locale.ROOT), now);
+        if (wait > 0) {
+            throttledByEmail.increment();
+            throw new LoginThrottledException(seconds(wait));
+        }
+    }
+
+    /// Claves (IPs + emails) que se están siguiendo ahora mismo.
+    public long trackedKeys() {
+        return byIp.buckets.estimatedSize() + byEmail.buckets.estimatedSize();
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, (nanos + 999_999_999L) / 1_000_000_000L); // redondeo hacia arriba
+    }
+
+    /// Cubos de un tipo de clave. "interval" es lo que tarda en reponerse una ficha; un cubo lleno
+    /// admite "burst" intentos seguidos.
+    private static final class Limiter {
+        private final long interval;
+        private final long capacity; // burst * interval
+        private final Cache<String, AtomicLong> buckets;
+
+        Limiter(int burst, int perMinute, long maxKeys) {
+            if (burst <= 0 || perMinute <= 0) {
+                throw new IllegalArgumentException("app.auth.throttle: burst y per-minute deben ser > 0");
+            }
+            this.interval = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.capacity = interval * burst;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(capacity))
+                    .build();
+        }
+
+        /// 0 si hay ficha (y la gasta); si no, nanosegundos hasta que la haya.
+        long tryAcquire(String key, long now) {
+            /// Instante (en nanoTime) en el que el cubo estaría lleno otra vez; nuevo = ya lleno.
+            AtomicLong full = buckets.get(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = full.get();
+                long next = Math.max(current, now) + interval;
+                long excess = next - now - capacity;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (full.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
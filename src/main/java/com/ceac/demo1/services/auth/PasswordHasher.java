@@ -0,0 +1,199 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.PasswordHasherBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/// Ejecuta los hash de contraseñas (BCrypt) en un pool propio y acotado, fuera de los hilos de Tomcat.
+///
+/// BCrypt gasta CPU a propósito (decenas de ms por hash). Si se hace en el hilo de la petición,
+/// una ráfaga de logins ocupa todos los hilos del servidor y las lecturas de /products se quedan esperando.
+///
+/// - app.security.hash.threads        → hilos del pool (0 = uno por núcleo).
+/// - app.security.hash.queue-capacity → hashes que pueden esperar en cola.
+/// Si la cola está llena no se espera: se lanza {@link PasswordHasherBusyException} (503 + Retry-After).
+///
+/// encode y matches bloquean hasta tener el resultado: están pensados para llamarse desde un hilo
+/// virtual (ver AuthController), donde esperar no ocupa un hilo del sistema.
+///
+/// El encoder es el bean compartido de PasswordEncoderConfig, con el coste de {@link BCryptStrength}.
+///
+/// Métricas (histogramas en /actuator/prometheus): auth.password.hash (cálculo, op=encode|matches),
+/// auth.password.hash.wait (espera en cola), auth.password.hash.rejected y auth.password.hash.queued.
+@Component
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    /// Cola, hilos ocupados, hashes hechos/rechazados y tiempos medios (espera en cola y cálculo del hash).
+    public record Stats(int threads, int queued, int queueCapacity, int active,
+                        long completed, long rejected,
+                        double meanWaitMs, double meanHashMs, double maxHashMs) {}
+
+    private final PasswordEncoder encoder;
+    private final BCryptStrength strength;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final int retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Timer waitTimer;
+    private final Counter rejectedCounter;
+
+    public PasswordHasher(PasswordEncoder encoder, BCryptStrength strength,
+                          @Value("${app.security.hash.threads:0}") int threads,
+                          @Value("${app.security.hash.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.security.hash.retry-after-seconds:1}") int retryAfterSeconds,
+                          MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.encoder = encoder;
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.retryAfterSeconds = retryAfterSeconds;
+        /// Tamaño fijo y cola acotada: con la cola llena, execute() lanza RejectedExecutionException (AbortPolicy).
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new HasherThreads(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.encodeTimer = hashTimer(registry, "encode");
+        this.matchesTimer = hashTimer(registry, "matches");
+        this.waitTimer = Timer.builder("auth.password.hash.wait")
+                .description("Espera en la cola del pool de hash")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                .description("Hashes rechazados con la cola llena (503)")
+                .register(registry);
+        Gauge.builder("auth.password.hash.queued", executor, e -> e.getQueue().size())
+                .description("Hashes esperando en cola")
+                .register(registry);
+    }
+
+    private static Timer hashTimer(MeterRegistry registry, String op) {
+        return Timer.builder("auth.password.hash")
+                .description("Tiempo de cálculo de BCrypt")
+                .tag("op", op)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    public String encode(String rawPassword) {
+        return run(encodeTimer, () -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /// Hash en segundo plano (p. ej. para actualizar el coste tras un login). No espera ni lanza:
+    /// si el pool está lleno, el future termina con PasswordHasherBusyException.
+    public CompletableFuture<String> encodeAsync(String rawPassword) {
+        try {
+            return submit(encodeTimer, () -> encoder.encode(rawPassword));
+        } catch (PasswordHasherBusyException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /// true si el hash se hizo con un coste distinto del actual y conviene rehacerlo.
+    public boolean needsRehash(String encodedPassword) {
+        return strength.isOutdated(encodedPassword);
+    }
+
+    public BCryptStrength strength() {
+        return strength;
+    }
+
+    public Stats stats() {
+        long done = Math.max(1, completed.sum());
+        return new Stats(executor.getMaximumPoolSize(), executor.getQueue().size(), queueCapacity,
+                executor.getActiveCount(), completed.sum(), rejected.sum(),
+                waitNanos.sum() / 1e6 / done, hashNanos.sum() / 1e6 / done, maxHashNanos.get() / 1e6);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T run(Timer timer, Supplier<T> hash) {
+        CompletableFuture<T> future = submit(timer, hash);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido mientras se calculaba el hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /// Encola el hash midiendo la espera en cola y el tiempo de cálculo.
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> hash) {
+        long submitted = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                try {
+                    return hash.get();
+                } finally {
+                    long end = System.nanoTime();
+                    waitNanos.add(start - submitted);
+                    hashNanos.add(end - start);
+                    maxHashNanos.accumulate(end - start);
+                    completed.increment();
+                    waitTimer.record(start - submitted, TimeUnit.NANOSECONDS);
+                    timer.record(end - start, TimeUnit.NANOSECONDS);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            rejectedCounter.increment();
+            log.warn("Cola de hash de contraseñas llena ({} en espera); se rechaza la petición", executor.getQueue().size());
+            throw new PasswordHasherBusyException(retryAfterSeconds);
+        }
+    }
+
+    /// Hilos con nombre reconocible en los volcados ("password-hasher-1", ...).
+    private static final class HasherThreads implements ThreadFactory {
+        private final AtomicInteger next = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "password-hasher-" + next.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.ceac.demo1.services.auth;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/// Tabla de "internado" de usuarios: cada email distinto recibe un id entero y se guarda una sola vez.
+///
+/// Las sesiones guardan solo ese int (4 bytes) en lugar de una copia del email por token.
+/// Los ids no se reciclan: la tabla crece como mucho hasta el número de usuarios distintos
+/// que han hecho login desde el arranque.
+final class PrincipalTable {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /// id -> email. Se sustituye por una copia más grande al crecer (lectura sin locks).
+    private volatile String[] emails = new String[1024];
+    private int next;
+
+    int intern(String email) {
+        Integer id = ids.get(email);
+        if (id != null) {
+            return id;
+        }
+        lock.lock();
+        try {
+            id = ids.get(email);
+            if (id != null) {
+                return id;
+            }
+            String[] current = emails;
+            if (next == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+                emails = current;
+            }
+            current[next] = email;
+            ids.put(email, next); // se publica después de escribir el email en el array
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String email(int id) {
+        return emails[id];
+    }
+
+    int size() {
+        return ids.size();
+    }
+}
@@ -0,0 +1,423 @@
+package com.ceac.demo1.services.auth;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/// Índice compacto de sesiones: tabla hash de direccionamiento abierto (sondeo lineal)
+/// con clave de dos long (los 128 bits del token) y un int como valor (id de usuario internado).
+///
+/// Todo vive en arrays de tipos primitivos, sin un objeto por sesión:
+/// - keys     → 2 long por posición (hi, lo)
+/// - values   → int (>= 0 ocupado, -1 libre, -2 borrado / "tombstone")
+/// - created / accessed → int, segundos desde 2020-01-01
+/// - más los dos int de enlace de la {@link TimerWheel}
+/// Son 36 bytes por posición; con la holgura de cada segmento y el redondeo a potencia de 2, los arrays
+/// ocupan entre ~75 (1 millón de entradas) y ~118 (10 000) bytes por entrada ({@link #footprintBytes}).
+/// Medido en el heap, con el índice lleno, sale ~134 bytes por entrada.
+///
+/// La tabla se divide en segmentos, cada uno con su propio {@link StampedLock}:
+/// - Lectura: "lectura optimista" (no bloquea ni escribe en memoria compartida); si un escritor
+///   la invalida, se repite con el lock de lectura.
+/// - Escritura (alta, baja, barrido): lock de escritura del segmento.
+///
+/// El máximo de entradas es global (un contador atómico compartido). Cada segmento admite un 25 % más
+/// que su parte media, porque las claves aleatorias no se reparten exactamente igual. Con eso la
+/// capacidad de cada segmento es fija y nunca se redimensiona: solo se reconstruye en el sitio
+/// cuando se acumulan demasiados borrados.
+///
+/// Lleno, hay dos comportamientos ("evictWhenFull"):
+/// - true (sesiones): se desaloja la entrada que antes iba a caducar y se avisa a un
+///   {@link EvictionListener} (fuera del lock), p. ej. para apuntarlo en el journal.
+/// - false (lista de revocados): no se borra nada vivo; {@link #put} devuelve false.
+final class SessionIndex {
+
+    /// Los instantes se guardan como int: segundos desde 2020-01-01T00:00:00Z (alcanza hasta 2088).
+    static final long EPOCH_BASE_MS = 1_577_836_800_000L;
+
+    /// Escritura opaque en accessed[] desde {@link #get}, que no toma el lock.
+    private static final VarHandle ACCESSED = MethodHandles.arrayElementVarHandle(int[].class);
+
+    private static final int EMPTY = -1;
+    private static final int TOMBSTONE = -2;
+    private static final int MAX_SEGMENTS = 64;
+    private static final int MIN_ENTRIES_PER_SEGMENT = 1024;
+    /// Bytes por posición: 16 (clave) + 4 (valor) + 4 + 4 (fechas) + 8 (enlaces de la rueda).
+    private static final int BYTES_PER_SLOT = 36;
+
+    /// Para recorrer las entradas vivas (p. ej. al escribir la foto del journal).
+    interface Visitor {
+        void visit(long hi, long lo, int value, long createdAtMs, long accessedAtMs);
+    }
+
+    /// Recibe cada clave desalojada por falta de sitio (no las caducadas ni las borradas con remove).
+    interface EvictionListener {
+        EvictionListener NONE = (hi, lo) -> { };
+
+        void evicted(long hi, long lo);
+    }
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final int maxEntries;
+    private final AtomicInteger size = new AtomicInteger();
+    private final long idleTtlSec;
+    private final long absoluteTtlSec;
+    private final boolean evictWhenFull;
+    private final EvictionListener evictions;
+
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+
+    SessionIndex(int maxEntries, long idleTtlMs, long absoluteTtlMs, long now) {
+        this(maxEntries, idleTtlMs, absoluteTtlMs, now, true, EvictionListener.NONE);
+    }
+
+    SessionIndex(int maxEntries, long idleTtlMs, long absoluteTtlMs, long now, boolean evictWhenFull) {
+        this(maxEntries, idleTtlMs, absoluteTtlMs, now, evictWhenFull, EvictionListener.NONE);
+    }
+
+    SessionIndex(int maxEntries, long idleTtlMs, long absoluteTtlMs, long now, boolean evictWhenFull,
+                 EvictionListener evictions) {
+        int segmentCount = Math.min(MAX_SEGMENTS,
+                Integer.highestOneBit(Math.max(1, maxEntries / MIN_ENTRIES_PER_SEGMENT)));
+        int perSegment = (maxEntries + segmentCount - 1) / segmentCount;
+        int segmentLimit = segmentCount == 1 ? perSegment : perSegment + perSegment / 4;
+        this.maxEntries = maxEntries;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentLimit, now);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.idleTtlSec = (idleTtlMs + 999) / 1000;
+        this.absoluteTtlSec = (absoluteTtlMs + 999) / 1000;
+        this.evictWhenFull = evictWhenFull;
+        this.evictions = evictions;
+    }
+
+    /// Devuelve el valor asociado a la clave, o -1 si no existe o ha caducado. No toma locks
+    /// salvo que coincida con una escritura en el mismo segmento.
+    int get(long hi, long lo, long nowMs) {
+        Segment segment = segmentFor(hi);
+        StampedLock lock = segment.lock;
+        long stamp = lock.tryOptimisticRead();
+        boolean optimistic = true;
+        for (;;) {
+            Table table = segment.table;
+            int slot = table.find(hi, lo);
+            int value = slot < 0 ? EMPTY : table.values[slot];
+            int created = slot < 0 ? 0 : table.created[slot];
+            int accessed = slot < 0 ? 0 : table.accessed[slot];
+
+            if (!optimistic) {
+                lock.unlockRead(stamp);
+            } else if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                optimistic = false;
+                continue;
+            }
+
+            if (value < 0) {
+                return EMPTY;
+            }
+            int nowSec = toSeconds(nowMs);
+            if (deadlineSec(created, accessed) <= nowSec) {
+                return EMPTY;
+            }
+            if (accessed != nowSec) {
+                /// Renovar el TTL por inactividad sin lock (como mucho una escritura por sesión y segundo).
+                /// La escritura es "opaque": un int nunca se escribe a medias, y así el JIT no puede
+                /// quitarla ni retrasarla indefinidamente, sin pagar una barrera como con volatile.
+                /// Al no tener lock, puede coincidir con un escritor del segmento. Los casos posibles:
+                /// - la posición se acaba de reutilizar: la sesión nueva queda "usada ahora" (lo está);
+                /// - la tabla se reconstruye: la renovación se pierde y la sesión caduca según su último
+                ///   acceso anterior, como si esta petición hubiera llegado un momento antes;
+                /// - el barrido lee el valor anterior: solo importa si la sesión caduca justo en este
+                ///   segundo, y esta petición ya la ha aceptado.
+                /// Ninguno acepta una sesión caducada ni alarga una más allá de su TTL absoluto.
+                ACCESSED.setOpaque(table.accessed, slot, nowSec);
+            }
+            return value;
+        }
+    }
+
+    /// Devuelve false solo si el índice está lleno y no desaloja (evictWhenFull = false): la clave no se guarda.
+    boolean put(long hi, long lo, int value, long createdAtMs, long accessedAtMs, long nowMs) {
+        return segmentFor(hi).put(hi, lo, value, toSeconds(createdAtMs), toSeconds(accessedAtMs), nowMs);
+    }
+
+    /// Borra la clave. Devuelve el valor que tenía o -1 si no existía.
+    int remove(long hi, long lo) {
+        return segmentFor(hi).remove(hi, lo);
+    }
+
+    /// Avanza las ruedas de todos los segmentos y borra lo caducado.
+    void expire(long nowMs) {
+        for (Segment segment : segments) {
+            segment.expire(nowMs);
+        }
+    }
+
+    void forEach(Visitor visitor) {
+        for (Segment segment : segments) {
+            segment.forEach(visitor);
+        }
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    long expiredCount() {
+        return expired.sum();
+    }
+
+    long evictedCount() {
+        return evicted.sum();
+    }
+
+    /// Memoria reservada por las tablas (no depende de cuántas sesiones haya: la capacidad es fija).
+    long footprintBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += (long) segment.table.values.length * BYTES_PER_SLOT;
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(long hi) {
+        return segments[(int) (hi ^ (hi >>> 32)) & segmentMask];
+    }
+
+    private long deadlineSec(int created, int accessed) {
+        return Math.min(accessed + idleTtlSec, created + absoluteTtlSec);
+    }
+
+    private long deadlineMs(int created, int accessed) {
+        return EPOCH_BASE_MS + deadlineSec(created, accessed) * 1000;
+    }
+
+    static int toSeconds(long epochMs) {
+        return (int) Math.floorDiv(epochMs - EPOCH_BASE_MS, 1000L);
+    }
+
+    private static int spread(long lo) {
+        long h = lo * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /// Arrays de un segmento. Se sustituyen todos a la vez al reconstruir.
+    private static final class Table {
+        final long[] keys;
+        final int[] values;
+        final int[] created;
+        final int[] accessed;
+
+        Table(int capacity) {
+            keys = new long[capacity * 2];
+            values = new int[capacity];
+            created = new int[capacity];
+            accessed = new int[capacity];
+            Arrays.fill(values, EMPTY);
+        }
+
+        /// Posición de la clave o -1. El bucle está acotado por si se lee a medias en modo optimista.
+        int find(long hi, long lo) {
+            int mask = values.length - 1;
+            int i = spread(lo) & mask;
+            for (int n = 0; n <= mask; n++) {
+                int v = values[i];
+                if (v == EMPTY) {
+                    return -1;
+                }
+                if (v != TOMBSTONE && keys[i << 1] == hi && keys[(i << 1) | 1] == lo) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        /// Primera posición libre o borrada en la secuencia de sondeo de la clave.
+        int freeSlot(long lo) {
+            int mask = values.length - 1;
+            int i = spread(lo) & mask;
+            while (values[i] >= 0) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+        void set(int slot, long hi, long lo, int value, int createdSec, int accessedSec) {
+            keys[slot << 1] = hi;
+            keys[(slot << 1) | 1] = lo;
+            created[slot] = createdSec;
+            accessed[slot] = accessedSec;
+            values[slot] = value;
+        }
+    }
+
+    private final class Segment {
+        final StampedLock lock = new StampedLock();
+        final int limit;
+        final int capacity;
+        final int rebuildThreshold;
+
+        volatile Table table;
+        TimerWheel wheel;
+        int size;
+        int tombstones;
+
+        /// @param limit máximo de entradas de este segmento; la tabla se dimensiona para que
+        ///              aun llena no pase de un factor de carga de 0,75.
+        Segment(int limit, long now) {
+            this.limit = limit;
+            this.capacity = Math.max(8, Integer.highestOneBit(Math.max(1, limit * 4 / 3)) << 1);
+            this.rebuildThreshold = capacity - capacity / 8;
+            this.table = new Table(capacity);
+            this.wheel = newWheel(now);
+        }
+
+        boolean put(long hi, long lo, int value, int createdSec, int accessedSec, long nowMs) {
+            /// Claves desalojadas (hi, lo, hi, lo...): se avisan al salir del lock, para no hacer E/S dentro.
+            long[] victims = null;
+            int victimCount = 0;
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int slot = t.find(hi, lo);
+                if (slot >= 0) {
+                    wheel.deschedule(slot);
+                    t.set(slot, hi, lo, value, createdSec, accessedSec);
+                    wheel.schedule(slot);
+                    return true;
+                }
+                if (!evictWhenFull && isFull()) {
+                    /// Antes de rechazar, se borran las que ya han caducado y aún no ha barrido la rueda.
+                    wheel.advance(nowMs);
+                    if (isFull()) {
+                        return false;
+                    }
+                }
+                while (isFull()) {
+                    int victim = wheel.pollFirst();
+                    if (victim < 0) {
+                        break;
+                    }
+                    if (victims == null) {
+                        victims = new long[4];
+                    } else if (victimCount * 2 == victims.length) {
+                        victims = Arrays.copyOf(victims, victims.length * 2);
+                    }
+                    victims[victimCount * 2] = table.keys[victim << 1];
+                    victims[victimCount * 2 + 1] = table.keys[(victim << 1) | 1];
+                    victimCount++;
+                    release(victim);
+                    evicted.increment();
+                }
+                if (size + tombstones >= rebuildThreshold) {
+                    rebuild(nowMs);
+                    t = table;
+                }
+                slot = t.freeSlot(lo);
+                if (t.values[slot] == TOMBSTONE) {
+                    tombstones--;
+                }
+                t.set(slot, hi, lo, value, createdSec, accessedSec);
+                size++;
+                SessionIndex.this.size.incrementAndGet();
+                wheel.schedule(slot);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+                for (int i = 0; i < victimCount; i++) {
+                    evictions.evicted(victims[i * 2], victims[i * 2 + 1]);
+                }
+            }
+        }
+
+        int remove(long hi, long lo) {
+            long stamp = lock.writeLock();
+            try {
+                int slot = table.find(hi, lo);
+                if (slot < 0) {
+                    return EMPTY;
+                }
+                int value = table.values[slot];
+                wheel.deschedule(slot);
+                release(slot);
+                return value;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void expire(long nowMs) {
+            long stamp = lock.writeLock();
+            try {
+                wheel.advance(nowMs);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEach(Visitor visitor) {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                for (int i = 0; i < t.values.length; i++) {
+                    if (t.values[i] >= 0) {
+                        visitor.visit(t.keys[i << 1], t.keys[(i << 1) | 1], t.values[i],
+                                EPOCH_BASE_MS + t.created[i] * 1000L, EPOCH_BASE_MS + t.accessed[i] * 1000L);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private boolean isFull() {
+            return size >= limit || SessionIndex.this.size.get() >= maxEntries;
+        }
+
+        /// Marca la posición como borrada (ya fuera de la rueda).
+        private void release(int slot) {
+            table.values[slot] = TOMBSTONE;
+            size--;
+            tombstones++;
+            SessionIndex.this.size.decrementAndGet();
+        }
+
+        /// Vuelve a insertar las entradas vivas en arrays nuevos (elimina los tombstones).
+        private void rebuild(long nowMs) {
+            Table old = table;
+            Table fresh = new Table(capacity);
+            for (int i = 0; i < old.values.length; i++) {
+                if (old.values[i] >= 0) {
+                    long lo = old.keys[(i << 1) | 1];
+                    fresh.set(fresh.freeSlot(lo), old.keys[i << 1], lo, old.values[i], old.created[i], old.accessed[i]);
+                }
+            }
+            table = fresh;
+            tombstones = 0;
+            wheel = newWheel(nowMs);
+            for (int i = 0; i < fresh.values.length; i++) {
+                if (fresh.values[i] >= 0) {
+                    wheel.schedule(i);
+                }
+            }
+        }
+
+        private TimerWheel newWheel(long now) {
+            return new TimerWheel(capacity, now,
+                    slot -> deadlineMs(table.created[slot], table.accessed[slot]),
+                    slot -> {
+                        release(slot);
+                        expired.increment();
+                    });
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package com.ceac.demo1.services.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/// Persistencia opcional de las sesiones en disco para que un reinicio no obligue a todos a hacer login.
+///
+/// Se guardan dos ficheros en app.session.persistence.dir:
+/// - sessions.log  → log "append-only": cada alta (CREATE) y cada logout (REVOKE) se añade al final.
+/// - sessions.snap → foto compacta de las sesiones vivas. Se regenera periódicamente y el log se vacía.
+///
+/// Al arrancar se lee la foto con un fichero mapeado en memoria (mmap) y después se reproduce el log.
+/// - Las sesiones caducadas no se apuntan: al restaurar se descartan por su fecha y la siguiente
+///   compactación las elimina del disco.
+/// - Las desalojadas por capacidad siguen teniendo fechas válidas, así que SessionStore las apunta
+///   como un REVOKE.
+///
+/// El último uso de cada sesión (TTL de inactividad) solo se guarda en la foto: el log no apunta
+/// cada petición. Tras una caída, una sesión usada después de la última foto se restaura con el uso
+/// que tenía en esa foto; como mucho caduca antes de tiempo, nunca después.
+///
+/// Formato binario (big-endian):
+/// - Log, CREATE: byte 1, long hi, long lo (los 128 bits del token), long createdAt, short n, n bytes UTF-8 del email
+/// - Log, REVOKE: byte 2, long hi, long lo
+/// - Foto (versión 4): int MAGIC, int VERSION, long posición del diccionario; después un registro por
+///   sesión (long hi, long lo, long createdAt, long accessedAt, int número de email) y al final el
+///   diccionario (int n y n veces short + bytes UTF-8): cada email se escribe una sola vez.
+///   Al restaurar, cada sesión cuesta una lectura de array; buscar el email en un mapa por cada
+///   sesión (con cientos de miles de usuarios, un fallo de caché tras otro) era casi todo el tiempo.
+/// - Las fotos de las versiones 3 y 2 (registros CREATE con el email en cada uno; la 2 sin
+///   accessedAt, que se toma igual a createdAt) se siguen leyendo.
+@Component
+public class SessionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(SessionJournal.class);
+
+    private static final int MAGIC = 0x53455353; // "SESS"
+    private static final int VERSION = 4;
+    private static final int VERSION_INLINE_EMAILS = 3;
+    private static final int VERSION_WITHOUT_ACCESS = 2;
+    /// MAGIC + VERSION + posición del diccionario.
+    private static final int SNAPSHOT_HEADER_BYTES = 4 + 4 + 8;
+    private static final int SNAPSHOT_RECORD_BYTES = 16 + 8 + 8 + 4;
+    private static final byte CREATE = 1;
+    private static final byte REVOKE = 2;
+    private static final int MAX_EMAIL_BYTES = Short.MAX_VALUE;
+
+    /// Receptor de los eventos al restaurar.
+    interface Replay {
+        /// @param emailId número del email en esta restauración (0, 1, 2...; el mismo para el mismo email):
+        ///                quien restaura puede guardar lo que necesite por email en un array.
+        /// @param accessedAt último uso conocido (en el log, el propio alta).
+        void created(long hi, long lo, int emailId, String email, long createdAt, long accessedAt);
+
+        void revoked(long hi, long lo);
+    }
+
+    /// Recibe las sesiones vivas al escribir la foto; "principal" es el número del email en la función
+    /// que se pasa a {@link #compact}.
+    interface Snapshot {
+        void add(long hi, long lo, int principal, long createdAt, long accessedAt);
+    }
+
+    private final boolean enabled;
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path rotatedLogFile;
+
+    /// Protege el canal del log: lo usan las altas/bajas y la rotación durante la compactación.
+    private final ReentrantLock logLock = new ReentrantLock();
+    private FileChannel logChannel;
+
+    @Autowired
+    public SessionJournal(@Value("${app.session.persistence.enabled:false}") boolean enabled,
+                          @Value("${app.session.persistence.dir:data/sessions}") String dir) {
+        this.enabled = enabled;
+        Path base = Path.of(dir);
+        this.snapshotFile = base.resolve("sessions.snap");
+        this.logFile = base.resolve("sessions.log");
+        this.rotatedLogFile = base.resolve("sessions.log.old");
+    }
+
+    /// Journal que no hace nada (persistencia desactivada).
+    static SessionJournal disabled() {
+        return new SessionJournal(false, "data/sessions");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /// Restaura: foto + log rotado (si quedó de una compactación interrumpida) + log actual.
+    /// Después deja el log abierto para seguir añadiendo eventos.
+    void replay(Replay replay) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Emails emails = new Emails(); // un único String por email repetido
+        try {
+            Files.createDirectories(snapshotFile.getParent());
+            int records = 0;
+            records += read(snapshotFile, true, replay, emails);
+            records += read(rotatedLogFile, false, replay, emails);
+            records += read(logFile, false, replay, emails);
+            openLog();
+            log.info("Sesiones restauradas desde {}: {} registros en {} ms",
+                    snapshotFile.getParent(), records, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo restaurar el journal de sesiones", e);
+        }
+    }
+
+    void appendCreate(long hi, long lo, String email, long createdAt) {
+        if (!enabled) {
+            return;
+        }
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        if (emailBytes.length > MAX_EMAIL_BYTES) {
+            return; // no es un email real; simplemente no sobrevivirá a un reinicio
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1 + 16 + 8 + 2 + emailBytes.length);
+        buf.put(CREATE).putLong(hi).putLong(lo)
+                .putLong(createdAt).putShort((short) emailBytes.length).put(emailBytes).flip();
+        append(buf);
+    }
+
+    void appendRevoke(long hi, long lo) {
+        if (!enabled) {
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(1 + 16);
+        buf.put(REVOKE).putLong(hi).putLong(lo).flip();
+        append(buf);
+    }
+
+    /// Compactación: rota el log, escribe una foto nueva con las sesiones vivas y borra el log rotado.
+    ///
+    /// El orden importa: primero se rota, así cualquier evento posterior va al log nuevo y
+    /// se reproduce encima de la foto. La foto se escribe en un temporal y se renombra de forma
+    /// atómica, de modo que un fallo a mitad nunca deja una foto corrupta.
+    ///
+    /// @param emails email de cada número de "principal"
+    /// @param live recibe un Snapshot y le pasa (add) cada sesión viva.
+    void compact(IntFunction<String> emails, Consumer<Snapshot> live) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            logLock.lock();
+            try {
+                closeLog();
+                if (Files.exists(logFile)) {
+                    Files.move(logFile, rotatedLogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                openLog();
+            } finally {
+                logLock.unlock();
+            }
+
+            Path tmp = snapshotFile.resolveSibling("sessions.snap.tmp");
+            SnapshotWriter writer = new SnapshotWriter(tmp, emails);
+            try (writer) {
+                live.accept(writer);
+                writer.finish();
+            }
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(rotatedLogFile);
+            log.debug("Foto de sesiones escrita: {} sesiones", writer.count);
+        } catch (IOException | UncheckedIOException e) {
+            // Si falla, el log rotado sigue en disco y se reproducirá en el próximo arranque.
+            log.warn("No se pudo compactar el journal de sesiones: {}", e.getMessage());
+        }
+    }
+
+    void close() {
+        logLock.lock();
+        try {
+            closeLog();
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void append(ByteBuffer buf) {
+        logLock.lock();
+        try {
+            if (logChannel == null) {
+                return; // todavía no se ha restaurado o ya se ha cerrado
+            }
+            while (buf.hasRemaining()) {
+                logChannel.write(buf);
+            }
+        } catch (IOException e) {
+            log.warn("No se pudo escribir en el journal de sesiones: {}", e.getMessage());
+        } finally {
+            logLock.unlock();
+        }
+    }
+
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void closeLog() {
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            logChannel.force(false);
+            logChannel.close();
+        } catch (IOException e) {
+            log.warn("No se pudo cerrar el journal de sesiones: {}", e.getMessage());
+        }
+        logChannel = null;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+        buf.clear();
+    }
+
+    /// Lee un fichero completo mapeado en memoria. Un registro cortado al final
+    /// (caída en mitad de una escritura) se ignora y se para ahí.
+    private static int read(Path file, boolean snapshot, Replay replay, Emails emails) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return 0;
+            }
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            boolean withAccess = false;
+            if (snapshot) {
+                int version = size >= 8 && buf.getInt() == MAGIC ? buf.getInt() : -1;
+                if (version == VERSION) {
+                    return readSnapshot(file, buf, replay, emails);
+                }
+                if (version != VERSION_INLINE_EMAILS && version != VERSION_WITHOUT_ACCESS) {
+                    log.warn("Foto de sesiones {} con formato desconocido; se ignora", file);
+                    return 0;
+                }
+                withAccess = version == VERSION_INLINE_EMAILS;
+            }
+            byte[] scratch = new byte[256];
+            int records = 0;
+            try {
+                while (buf.hasRemaining()) {
+                    byte type = buf.get();
+                    long hi = buf.getLong();
+                    long lo = buf.getLong();
+                    if (type == CREATE) {
+                        long createdAt = buf.getLong();
+                        long accessedAt = withAccess ? buf.getLong() : createdAt;
+                        int length = buf.getShort();
+                        if (scratch.length < length) {
+                            scratch = new byte[length];
+                        }
+                        buf.get(scratch, 0, length);
+                        int emailId = emails.id(scratch, length);
+                        replay.created(hi, lo, emailId, emails.email(emailId), createdAt, accessedAt);
+                    } else if (type == REVOKE) {
+                        replay.revoked(hi, lo);
+                    } else {
+                        log.warn("Registro desconocido en {}; se descarta el resto del fichero", file);
+                        break;
+                    }
+                    records++;
+                }
+            } catch (BufferUnderflowException e) {
+                log.warn("Registro incompleto al final de {}; se descarta", file);
+            }
+            return records;
+        }
+    }
+
+    /// Foto de la versión 4: primero el diccionario (del final del fichero) y después las sesiones.
+    /// La escribe entera {@link SnapshotWriter} y se renombra al terminar, así que no puede quedar cortada.
+    private static int readSnapshot(Path file, MappedByteBuffer buf, Replay replay, Emails emails) {
+        try {
+            long dictionaryAt = buf.getLong();
+            if (dictionaryAt < SNAPSHOT_HEADER_BYTES || dictionaryAt > buf.limit()
+                    || (dictionaryAt - SNAPSHOT_HEADER_BYTES) % SNAPSHOT_RECORD_BYTES != 0) {
+                log.warn("Foto de sesiones {} sin diccionario válido; se ignora", file);
+                return 0;
+            }
+            buf.position((int) dictionaryAt);
+            int emailCount = buf.getInt();
+            if (emailCount < 0 || emailCount > buf.remaining() / 2) {
+                log.warn("Foto de sesiones {} con un diccionario dañado; se ignora", file);
+                return 0;
+            }
+            int[] emailIds = new int[emailCount];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < emailIds.length; i++) {
+                int length = buf.getShort();
+                if (scratch.length < length) {
+                    scratch = new byte[length];
+                }
+                buf.get(scratch, 0, length);
+                emailIds[i] = emails.id(scratch, length);
+            }
+            buf.position(SNAPSHOT_HEADER_BYTES);
+            int records = 0;
+            while (buf.position() < dictionaryAt) {
+                long hi = buf.getLong();
+                long lo = buf.getLong();
+                long createdAt = buf.getLong();
+                long accessedAt = buf.getLong();
+                int emailId = emailIds[buf.getInt()];
+                replay.created(hi, lo, emailId, emails.email(emailId), createdAt, accessedAt);
+                records++;
+            }
+            return records;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            log.warn("Foto de sesiones {} dañada; se ignora el resto", file);
+            return 0;
+        }
+    }
+
+    /// Emails ya leídos, buscados por sus bytes, con un número cada uno (0, 1, 2... por orden de llegada).
+    /// Uno repetido no se decodifica ni crea un String nuevo. Tabla abierta de potencia de 2 que se dobla
+    /// al llegar a la mitad.
+    private static final class Emails {
+        private byte[][] keys = new byte[1024][];
+        private int[] slotIds = new int[1024];
+        private String[] byId = new String[1024];
+        private int size;
+
+        int id(byte[] bytes, int length) {
+            int mask = keys.length - 1;
+            int i = hash(bytes, length) & mask;
+            for (byte[] key = keys[i]; key != null; key = keys[i]) {
+                if (Arrays.equals(key, 0, key.length, bytes, 0, length)) {
+                    return slotIds[i];
+                }
+                i = (i + 1) & mask;
+            }
+            int id = size++;
+            if (id == byId.length) {
+                byId = Arrays.copyOf(byId, id * 2);
+            }
+            byId[id] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+            keys[i] = Arrays.copyOf(bytes, length);
+            slotIds[i] = id;
+            if (size * 2 > keys.length) {
+                grow();
+            }
+            return id;
+        }
+
+        String email(int id) {
+            return byId[id];
+        }
+
+        private void grow() {
+            byte[][] oldKeys = keys;
+            int[] oldIds = slotIds;
+            keys = new byte[oldKeys.length * 2][];
+            slotIds = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null) {
+                    int i = hash(oldKeys[j], oldKeys[j].length) & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    slotIds[i] = oldIds[j];
+                }
+            }
+        }
+
+        private static int hash(byte[] bytes, int length) {
+            int h = 0;
+            for (int i = 0; i < length; i++) {
+                h = 31 * h + bytes[i];
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /// Escribe la foto por bloques de 64 KB a medida que el índice va pasando las sesiones.
+    /// Cada email se numera la primera vez que aparece y el diccionario se escribe al final;
+    /// su posición se rellena en la cabecera al terminar.
+    private static final class SnapshotWriter implements Snapshot, AutoCloseable {
+        private static final int SKIP = -2;
+
+        private final FileChannel out;
+        private final ByteBuffer buf = ByteBuffer.allocate(64 * 1024);
+        private final IntFunction<String> emails;
+        /// principal → número en el diccionario (+1; 0 = aún no visto, SKIP = email demasiado largo).
+        private int[] fileIds = new int[1024];
+        private final List<byte[]> dictionary = new ArrayList<>();
+        private int count;
+
+        SnapshotWriter(Path file, IntFunction<String> emails) throws IOException {
+            this.out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.emails = emails;
+            buf.putInt(MAGIC).putInt(VERSION).putLong(0);
+        }
+
+        @Override
+        public void add(long hi, long lo, int principal, long createdAt, long accessedAt) {
+            int fileId = fileId(principal);
+            if (fileId == SKIP) {
+                return;
+            }
+            ensure(SNAPSHOT_RECORD_BYTES);
+            buf.putLong(hi).putLong(lo).putLong(createdAt).putLong(accessedAt).putInt(fileId - 1);
+            count++;
+        }
+
+        private int fileId(int principal) {
+            if (principal >= fileIds.length) {
+                fileIds = Arrays.copyOf(fileIds, Math.max(principal + 1, fileIds.length * 2));
+            }
+            int fileId = fileIds[principal];
+            if (fileId == 0) {
+                byte[] emailBytes = emails.apply(principal).getBytes(StandardCharsets.UTF_8);
+                if (emailBytes.length > MAX_EMAIL_BYTES) {
+                    fileId = SKIP;
+                } else {
+                    dictionary.add(emailBytes);
+                    fileId = dictionary.size();
+                }
+                fileIds[principal] = fileId;
+            }
+            return fileId;
+        }
+
+        void finish() throws IOException {
+            drain(out, buf);
+            long dictionaryAt = out.position();
+            buf.putInt(dictionary.size());
+            for (byte[] email : dictionary) {
+                ensure(2 + email.length);
+                buf.putShort((short) email.length).put(email);
+            }
+            drain(out, buf);
+            buf.putLong(dictionaryAt).flip();
+            while (buf.hasRemaining()) {
+                out.write(buf, 8 + buf.position());
+            }
+            buf.clear();
+            out.force(true);
+        }
+
+        private void ensure(int bytes) {
+            if (buf.remaining() < bytes) {
+                try {
+                    drain(out, buf);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
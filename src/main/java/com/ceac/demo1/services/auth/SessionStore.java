@@ -0,0 +1,185 @@
+package com.ceac.demo1.services.auth;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/// Almacén de sesiones en memoria: token -> email, con caducidad y tamaño máximo.
+///
+/// - TTL por inactividad (idle): si el token no se usa en ese tiempo, caduca.
+/// - TTL absoluto: pasado ese tiempo desde el login, caduca aunque se siga usando.
+/// - Capacidad máxima: si se supera, se desaloja la sesión que antes iba a caducar.
+///
+/// Los tokens son 128 bits aleatorios en base64url ({@link SessionTokens}) y se guardan en un
+/// {@link SessionIndex}: una tabla de arrays primitivos con clave (long, long) cuyo valor es el id
+/// del usuario en una {@link PrincipalTable}, de modo que el email se guarda una sola vez por usuario.
+///
+/// La lectura (get) no toma ningún lock. La caducidad se hace con una {@link TimerWheel} que avanza
+/// un barrido programado, así que nunca se recorren todas las sesiones.
+///
+/// Si app.session.persistence.enabled=true, altas y bajas se apuntan en un {@link SessionJournal}
+/// y al arrancar se restauran, para que un reinicio no cierre la sesión de todo el mundo.
+@Component
+public class SessionStore {
+
+    /// Resumen que se expone hacia fuera (métricas, depuración...).
+    public record Stats(int size, long expired, long evicted, long revoked) {}
+
+    private final SessionIndex index;
+    private final PrincipalTable principals = new PrincipalTable();
+
+    private final Clock clock;
+    private final long idleTtlMs;
+    private final long absoluteTtlMs;
+    private final SessionJournal journal;
+
+    private final LongAdder revoked = new LongAdder();
+
+    @Autowired
+    public SessionStore(@Value("${app.session.idle-ttl-ms:1800000}") long idleTtlMs,
+                        @Value("${app.session.absolute-ttl-ms:86400000}") long absoluteTtlMs,
+                        @Value("${app.session.max-entries:100000}") int maxEntries,
+                        SessionJournal journal) {
+        this(Clock.systemUTC(), idleTtlMs, absoluteTtlMs, maxEntries, journal);
+    }
+
+    SessionStore(Clock clock, long idleTtlMs, long absoluteTtlMs, int maxEntries) {
+        this(clock, idleTtlMs, absoluteTtlMs, maxEntries, SessionJournal.disabled());
+    }
+
+    SessionStore(Clock clock, long idleTtlMs, long absoluteTtlMs, int maxEntries, SessionJournal journal) {
+        if (idleTtlMs <= 0 || absoluteTtlMs <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Los TTL y la capacidad de sesiones deben ser positivos");
+        }
+        this.clock = clock;
+        this.idleTtlMs = idleTtlMs;
+        this.absoluteTtlMs = absoluteTtlMs;
+        this.journal = journal;
+        /// Un desalojo por capacidad se apunta como un logout: si no, la sesión (con sus fechas aún válidas)
+        /// volvería tras un reinicio. Durante restore() el log aún no está abierto y no se apunta nada.
+        this.index = new SessionIndex(maxEntries, idleTtlMs, absoluteTtlMs, clock.millis(), true, journal::appendRevoke);
+    }
+
+    /// Crea una sesión nueva para el email y devuelve su token.
+    /// Si se pasa de la capacidad, desaloja las que antes caducan.
+    public String create(String email) {
+        long hi = SessionTokens.randomHalf();
+        long lo = SessionTokens.randomHalf();
+        long now = clock.millis();
+        index.put(hi, lo, principals.intern(email), now, now, now);
+        /// Primero el índice y después el journal: así una compactación simultánea nunca la pierde.
+        journal.appendCreate(hi, lo, email, now);
+        return SessionTokens.encode(hi, lo);
+    }
+
+    /// Devuelve el email asociado al token, o null si no existe o ya ha caducado.
+    public String get(CharSequence token) {
+        return get(token, 0);
+    }
+
+    /// Igual, pero el token empieza en "offset" (p. ej. 7 para leerlo directamente de "Bearer ...").
+    /// Sin locks ni objetos intermedios: se decodifican los dos long y se busca en la tabla.
+    public String get(CharSequence token, int offset) {
+        if (!SessionTokens.isWellFormed(token, offset)) {
+            return null;
+        }
+        int principal = index.get(SessionTokens.decodeHigh(token, offset), SessionTokens.decodeLow(token, offset),
+                clock.millis());
+        return principal < 0 ? null : principals.email(principal);
+    }
+
+    /// Elimina la sesión (logout).
+    public void remove(CharSequence token) {
+        if (!SessionTokens.isWellFormed(token, 0)) {
+            return;
+        }
+        long hi = SessionTokens.decodeHigh(token, 0);
+        long lo = SessionTokens.decodeLow(token, 0);
+        if (index.remove(hi, lo) < 0) {
+            return;
+        }
+        revoked.increment();
+        journal.appendRevoke(hi, lo);
+    }
+
+    /// Arranque: carga las sesiones guardadas (foto + log) sin volver a apuntarlas en el journal.
+    /// Las que ya han superado su TTL absoluto o el de inactividad (desde el último uso guardado) se descartan.
+    @PostConstruct
+    public void restore() {
+        if (!journal.isEnabled()) {
+            return;
+        }
+        long now = clock.millis();
+        journal.replay(new SessionJournal.Replay() {
+            /// emailId → principal + 1 (0 = aún sin buscar): cada email se busca en PrincipalTable una vez,
+            /// no una por sesión.
+            int[] principalOf = new int[1024];
+
+            @Override
+            public void created(long hi, long lo, int emailId, String email, long createdAt, long accessedAt) {
+                if (createdAt + absoluteTtlMs <= now || accessedAt + idleTtlMs <= now) {
+                    return;
+                }
+                index.put(hi, lo, principal(emailId, email), createdAt, accessedAt, now);
+            }
+
+            private int principal(int emailId, String email) {
+                if (emailId >= principalOf.length) {
+                    principalOf = Arrays.copyOf(principalOf, Math.max(emailId + 1, principalOf.length * 2));
+                }
+                int principal = principalOf[emailId] - 1;
+                if (principal < 0) {
+                    principal = principals.intern(email);
+                    principalOf[emailId] = principal + 1;
+                }
+                return principal;
+            }
+
+            @Override
+            public void revoked(long hi, long lo) {
+                index.remove(hi, lo);
+            }
+        });
+    }
+
+    /// Compactación periódica del journal (foto de las sesiones vivas + log vacío).
+    @Scheduled(fixedDelayString = "${app.session.persistence.snapshot-interval-ms:300000}",
+            initialDelayString = "${app.session.persistence.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        journal.compact(principals::email, sink -> index.forEach(sink::add));
+    }
+
+    /// Al parar la aplicación se deja una foto reciente para que el próximo arranque sea rápido.
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+        journal.close();
+    }
+
+    /// Barrido periódico: avanza la rueda y borra las sesiones caducadas.
+    /// Solo procesa los cubos vencidos desde el último barrido.
+    @Scheduled(fixedDelayString = "${app.session.sweep-interval-ms:1000}")
+    public void expireSessions() {
+        index.expire(clock.millis());
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public Stats stats() {
+        return new Stats(index.size(), index.expiredCount(), index.evictedCount(), revoked.sum());
+    }
+
+    /// Memoria reservada por el índice de sesiones (tablas de capacidad fija).
+    public long footprintBytes() {
+        return index.footprintBytes();
+    }
+}
@@ -0,0 +1,80 @@
+package com.ceac.demo1.services.auth;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+/// Tokens de sesión binarios: 128 bits aleatorios (dos long) codificados en base64url.
+///
+/// Cada mitad de 64 bits ocupa 11 caracteres (22 en total). Así la decodificación se hace
+/// directamente sobre el String recibido, a partir de un desplazamiento, sin substring ni
+/// arrays intermedios: sirve tanto para "abc..." como para "Bearer abc...".
+final class SessionTokens {
+
+    static final int LENGTH = 22;
+    private static final int HALF = 11;
+
+    private static final char[] ALPHABET =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".toCharArray();
+    private static final byte[] DECODE = new byte[128];
+
+    static {
+        Arrays.fill(DECODE, (byte) -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = (byte) i;
+        }
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SessionTokens() {
+    }
+
+    static long randomHalf() {
+        return RANDOM.nextLong();
+    }
+
+    static String encode(long hi, long lo) {
+        char[] out = new char[LENGTH];
+        write(out, 0, hi);
+        write(out, HALF, lo);
+        return new String(out);
+    }
+
+    /// ¿Hay un token bien formado desde "offset" hasta el final?
+    /// 11 caracteres son 66 bits: el primero de cada mitad solo puede llevar 4 bits (valor < 16).
+    static boolean isWellFormed(CharSequence s, int offset) {
+        if (s == null || s.length() - offset != LENGTH) {
+            return false;
+        }
+        for (int i = offset; i < offset + LENGTH; i++) {
+            char c = s.charAt(i);
+            if (c >= 128 || DECODE[c] < 0) {
+                return false;
+            }
+        }
+        return DECODE[s.charAt(offset)] < 16 && DECODE[s.charAt(offset + HALF)] < 16;
+    }
+
+    static long decodeHigh(CharSequence s, int offset) {
+        return decode(s, offset);
+    }
+
+    static long decodeLow(CharSequence s, int offset) {
+        return decode(s, offset + HALF);
+    }
+
+    private static long decode(CharSequence s, int offset) {
+        long v = 0;
+        for (int i = offset; i < offset + HALF; i++) {
+            v = (v << 6) | DECODE[s.charAt(i)];
+        }
+        return v;
+    }
+
+    private static void write(char[] out, int offset, long v) {
+        for (int i = offset + HALF - 1; i >= offset; i--) {
+            out[i] = ALPHABET[(int) (v & 63)];
+            v >>>= 6;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ceac.demo1.services.auth;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.function.IntToLongFunction;
+
+/// Rueda de temporizadores jerárquica (el mismo esquema que usan Kafka o Caffeine).
+///
+/// Cada nivel tiene un número fijo de "cubos" (buckets) y cada cubo es una lista doblemente
+/// enlazada de elementos que caducan en ese intervalo de tiempo:
+/// - Nivel 0 → cubos de ~1 s   (64 cubos, cubre ~1 min)
+/// - Nivel 1 → cubos de ~1 min (64 cubos, cubre ~1 h)
+/// - Nivel 2 → cubos de ~1 h   (32 cubos, cubre ~1,5 días)
+/// - Nivel 3 → cubos de ~1,5 días (4 cubos, cubre ~6 días)
+/// - Nivel 4 → un único cubo de desbordamiento para todo lo que caduque más tarde.
+///
+/// Insertar, quitar y caducar un elemento es O(1) amortizado: no se recorre nunca el conjunto
+/// completo, solo los cubos por los que pasa el reloj. Cuando un cubo de un nivel alto vence,
+/// sus elementos se vuelven a colocar en un nivel más fino ("cascada").
+///
+/// Los elementos son enteros (0..capacity-1, p. ej. la posición en una tabla) y los enlaces
+/// viven en dos arrays de int, así que la rueda no crea ningún objeto por elemento.
+///
+/// La clase NO es thread-safe: quien la use debe protegerla con un lock.
+final class TimerWheel {
+
+    /// Número de cubos por nivel (potencias de 2 para poder usar máscaras).
+    static final int[] BUCKETS = {64, 64, 32, 4, 1};
+
+    /// Duración (en ms) de un cubo de cada nivel. SPANS[i + 1] es lo que abarca el nivel i entero.
+    static final long[] SPANS = {
+            1L << 10, // 1,02 s
+            1L << 16, // 1,09 min
+            1L << 22, // 1,17 h
+            1L << 27, // 1,55 días
+            1L << 29, // 6,21 días
+            1L << 29, // 6,21 días
+    };
+
+    static final int[] SHIFT = {
+            Long.numberOfTrailingZeros(SPANS[0]),
+            Long.numberOfTrailingZeros(SPANS[1]),
+            Long.numberOfTrailingZeros(SPANS[2]),
+            Long.numberOfTrailingZeros(SPANS[3]),
+            Long.numberOfTrailingZeros(SPANS[4]),
+    };
+
+    private static final int UNLINKED = -1;
+
+    /// Enlaces de la lista: posiciones 0..capacity-1 son elementos; a partir de capacity, centinelas de cubo.
+    private final int[] next;
+    private final int[] prev;
+    private final int[] levelOffset;
+
+    private final IntToLongFunction deadline;
+    private final IntConsumer onExpire;
+    private long time;
+
+    /// @param deadline instante (epoch ms) en el que caduca cada elemento. Puede moverse hacia delante
+    ///                 (p. ej. al renovar el TTL por inactividad); la rueda lo vuelve a leer al vencer el cubo.
+    /// @param onExpire se llama con cada elemento caducado, ya fuera de la rueda.
+    TimerWheel(int capacity, long now, IntToLongFunction deadline, IntConsumer onExpire) {
+        this.deadline = deadline;
+        this.onExpire = onExpire;
+        this.time = now;
+
+        this.levelOffset = new int[BUCKETS.length];
+        int sentinels = 0;
+        for (int i = 0; i < BUCKETS.length; i++) {
+            levelOffset[i] = capacity + sentinels;
+            sentinels += BUCKETS[i];
+        }
+        this.next = new int[capacity + sentinels];
+        this.prev = new int[capacity + sentinels];
+        Arrays.fill(next, 0, capacity, UNLINKED);
+        Arrays.fill(prev, 0, capacity, UNLINKED);
+        for (int s = capacity; s < next.length; s++) {
+            next[s] = s; // lista circular vacía: el centinela apunta a sí mismo
+            prev[s] = s;
+        }
+    }
+
+    boolean isScheduled(int id) {
+        return next[id] != UNLINKED;
+    }
+
+    /// Coloca el elemento en el cubo que le corresponde según su deadline.
+    void schedule(int id) {
+        link(findBucket(deadline.applyAsLong(id)), id);
+    }
+
+    /// Quita el elemento de la rueda (si estaba programado).
+    void deschedule(int id) {
+        if (isScheduled(id)) {
+            unlink(id);
+        }
+    }
+
+    /// Avanza el reloj de la rueda hasta "now" y caduca los elementos de los cubos vencidos.
+    /// Los elementos cuyo deadline se haya movido hacia delante se reprograman en vez de caducar.
+    void advance(long now) {
+        long previous = time;
+        time = now;
+        for (int i = 0; i < SHIFT.length; i++) {
+            long previousTicks = previous >>> SHIFT[i];
+            long currentTicks = now >>> SHIFT[i];
+            long delta = currentTicks - previousTicks;
+            if (delta <= 0) {
+                break;
+            }
+            expire(i, previousTicks, delta);
+        }
+    }
+
+    /// Saca de la rueda el elemento que caduca antes (aproximado a la resolución del cubo).
+    /// Se usa para desalojar cuando se supera la capacidad máxima. Devuelve -1 si está vacía.
+    int pollFirst() {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            int mask = BUCKETS[i] - 1;
+            int start = (int) ((time >>> SHIFT[i]) & mask);
+            for (int j = 0; j < BUCKETS[i]; j++) {
+                int sentinel = levelOffset[i] + ((start + j) & mask);
+                int first = next[sentinel];
+                if (first != sentinel) {
+                    unlink(first);
+                    return first;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void expire(int level, long previousTicks, long delta) {
+        int mask = BUCKETS[level] - 1;
+        int steps = (int) Math.min(1 + delta, BUCKETS[level]);
+        int start = (int) (previousTicks & mask);
+        int end = start + steps;
+
+        for (int i = start; i < end; i++) {
+            int sentinel = levelOffset[level] + (i & mask);
+            int id = next[sentinel];
+            next[sentinel] = sentinel;
+            prev[sentinel] = sentinel;
+
+            while (id != sentinel) {
+                int following = next[id];
+                next[id] = UNLINKED;
+                prev[id] = UNLINKED;
+
+                if (deadline.applyAsLong(id) <= time) {
+                    onExpire.accept(id);
+                } else {
+                    schedule(id);
+                }
+                id = following;
+            }
+        }
+    }
+
+    private int findBucket(long deadline) {
+        long duration = deadline - time;
+        int last = BUCKETS.length - 1;
+        for (int i = 0; i < last; i++) {
+            if (duration < SPANS[i + 1]) {
+                long ticks = deadline >>> SHIFT[i];
+                return levelOffset[i] + (int) (ticks & (BUCKETS[i] - 1));
+            }
+        }
+        return levelOffset[last];
+    }
+
+    private void link(int sentinel, int id) {
+        int tail = prev[sentinel];
+        prev[id] = tail;
+        next[id] = sentinel;
+        next[tail] = id;
+        prev[sentinel] = id;
+    }
+
+    private void unlink(int id) {
+        int before = prev[id];
+        int after = next[id];
+        next[before] = after;
+        prev[after] = before;
+        next[id] = UNLINKED;
+        prev[id] = UNLINKED;
+    }
+}
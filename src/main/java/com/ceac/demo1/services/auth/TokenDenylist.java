@@ -0,0 +1,50 @@
+package com.ceac.demo1.services.auth;
+
+/// Lista de tokens revocados (logout) en modo JWT, indexada por el id del token (claim "jti").
+///
+/// El jti son 128 bits aleatorios codificados igual que los tokens de sesión, así que se guarda
+/// en el mismo {@link SessionIndex} compacto (dos long por entrada, sin objetos).
+/// Cada entrada vive solo hasta que el propio token habría caducado: a partir de ahí la firma
+/// ya lo rechaza por "exp" y no hace falta recordarlo.
+///
+/// Nunca se descarta una revocación viva: si se llena (app.jwt.denylist-max-entries), {@link #add}
+/// devuelve false y el logout se rechaza. Si se desalojara, bastaría con hacer muchos logouts para que
+/// los tokens revocados volvieran a valer. El tamaño debe cubrir los logouts que caben en app.jwt.expiration-ms.
+final class TokenDenylist {
+
+    private final SessionIndex index;
+    private final long lifetimeMs;
+
+    /// @param lifetimeMs duración de los tokens (app.jwt.expiration-ms).
+    TokenDenylist(int maxEntries, long lifetimeMs, long now) {
+        this.index = new SessionIndex(maxEntries, lifetimeMs, lifetimeMs, now, false);
+        this.lifetimeMs = lifetimeMs;
+    }
+
+    /// Devuelve false si la lista está llena (el token sigue siendo válido).
+    boolean add(String tokenId, long expiresAt, long now) {
+        if (!SessionTokens.isWellFormed(tokenId, 0)) {
+            return true; // no lo ha emitido JwtTokens: su firma ya no valdría
+        }
+        /// El índice caduca en "creado + lifetime": se usa exp - lifetime como "creado" para que
+        /// la entrada caduque justo a la vez que el token, aunque la configuración haya cambiado.
+        long created = expiresAt - lifetimeMs;
+        return index.put(SessionTokens.decodeHigh(tokenId, 0), SessionTokens.decodeLow(tokenId, 0), 0, created, created, now);
+    }
+
+    /// Sin locks: es la comprobación que se hace en cada petición autenticada.
+    boolean contains(String tokenId, long now) {
+        if (!SessionTokens.isWellFormed(tokenId, 0)) {
+            return false;
+        }
+        return index.get(SessionTokens.decodeHigh(tokenId, 0), SessionTokens.decodeLow(tokenId, 0), now) >= 0;
+    }
+
+    void expire(long now) {
+        index.expire(now);
+    }
+
+    int size() {
+        return index.size();
+    }
+}
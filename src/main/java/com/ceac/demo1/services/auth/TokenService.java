@@ -1,38 +1,63 @@
 package com.ceac.demo1.services.auth;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Locale;
 
 @Service
 public class TokenService {
 
-    /// token -> email
-    private final Map<String, String> sessions = new ConcurrentHashMap<>();
+    /// Modo de los tokens (app.auth.token-mode):
+    /// - SESSION → token opaco (128 bits aleatorios) guardado en memoria. Cada nodo solo conoce sus propias sesiones.
+    /// - JWT     → token firmado y con caducidad. Cualquier nodo con el mismo secreto lo valida.
+    public enum TokenMode { SESSION, JWT }
 
-    ///  UUID.randomUUID() genera un identificador único universal (por ejemplo: tcfhvgbhnjmkl213425)
-    /// Lo convertimos a texto con .toString()
-    /// Lo guardamos en el mapa session, asociado al email asociado que acaba de autenticarse.
+    private static final String BEARER = "Bearer ";
+
+    /// token -> email (con caducidad por inactividad, caducidad absoluta y tamaño máximo)
+    private final SessionStore sessions;
+    private final JwtTokens jwt;
+    private final TokenMode mode;
+
+    public TokenService(SessionStore sessions, JwtTokens jwt,
+                        @Value("${app.auth.token-mode:session}") String mode) {
+        this.sessions = sessions;
+        this.jwt = jwt;
+        this.mode = TokenMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public TokenMode mode() {
+        return mode;
+    }
+
+    /// En modo JWT el token lo firma JwtTokens (no se guarda nada en memoria).
+    ///  En modo SESSION: se generan 128 bits aleatorios y se codifican en base64url (por ejemplo: Qh3v0aZ9xK2LmN8pRt5wYb)
+    /// Lo guardamos en el almacén de sesiones, asociado al email que acaba de autenticarse.
     /// Devolvemos el token para enviarlo como respuesta al cliente (por ejemplo, al hacer /auth/login)
     public String createToken(String email) {
-        String token = UUID.randomUUID().toString();
-        sessions.put(token, email);
-        return token;
+        if (mode == TokenMode.JWT) return jwt.createToken(email);
+
+        return sessions.create(email);
     }
 
-    /// Busca en el mapa si esxiste ese token.
+    /// Busca en el mapa si esxiste ese token (y no ha caducado).
     public String getEmail(String token) {
+        if (mode == TokenMode.JWT) return jwt.getEmail(token);
         return sessions.get(token);
     }
 
     ///  Eliminamos el token del mapa sessions.
     /// Se usa en el logout principalmente para "cerrar sesión"
     /// Después de hacer logout, ese token deja de ser válido y ya no podrá usarse.
+    /// En modo JWT no hay mapa: el id del token pasa a la lista negra hasta que caduque.
     public void revoke(String token) {
+        if (mode == TokenMode.JWT) {
+            jwt.revoke(token);
+            return;
+        }
         sessions.remove(token);
     }
 
@@ -40,18 +65,18 @@ public class TokenService {
         /// Si el header Autorization no existe o no empieza con "Bearer " (¡espacio incluido!)
         /// ... se lanza una excepción 401 Unathorized.
         ///  El mensaje "Debes iniciar sesión para continuar." se devuelve al cliente en formato JSON
-        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer "))
+        if (authorizationHeader == null || !authorizationHeader.startsWith(BEARER))
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Debes iniciar sesión para continuar.");
 
-        ///Cortar la palabra "Bearer " del inicio del header (que tiene 7 caracter).
-        /// Dejamos solo el token
-        String token = authorizationHeader.substring(7);
-
-        ///  Buscar el email asociado a ese token en el mapa sessions
-        /// Si el no token, getEmail() devuelve null;
-        String email = getEmail(token);
+        /// El token empieza justo después de "Bearer " (7 caracteres).
+        /// No se corta con substring: se lee directamente desde esa posición del header,
+        /// así validar un token no crea ningún String nuevo.
+        ///  Si el token no existe, devuelve null;
+        String email = mode == TokenMode.JWT
+                ? jwt.getEmail(authorizationHeader, BEARER.length())
+                : sessions.get(authorizationHeader, BEARER.length());
 
-        ///  Si el token no existe en el mapa (por ejemplo, porque el usuario no hizo login, o logout)
+        ///  Si el token no existe en el mapa (por ejemplo, porque el usuario no hizo login, hizo logout o caducó)
         if (email == null)
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token inválido o expirado");
 
@@ -60,4 +85,14 @@ public class TokenService {
         ///  Si todo va bien, devuelve el mail del usuario autenticado.
         /// Este valor puede ser usado en los controladores si se necesita saber quién está realizando la acción.
     }
-}
\ No newline at end of file
+
+    /// Número de sesiones vivas y contadores de caducadas / desalojadas / revocadas.
+    public SessionStore.Stats stats() {
+        return sessions.stats();
+    }
+
+    /// Aciertos/fallos de la caché de JWT verificados y tamaño de la lista de revocados.
+    public JwtTokens.Stats jwtStats() {
+        return jwt.stats();
+    }
+}
@@ -0,0 +1,64 @@
+package com.ceac.demo1.services.catalog;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Versión del catálogo, para responder a las peticiones condicionales sin leer la base de datos:
+/// - {@link #lastModified()}: cuándo cambió por última vez (If-Modified-Since → 304).
+/// - {@link #etag(String)}: ETag fuerte de una respuesta (If-None-Match → 304).
+///
+/// Ambas se mueven con cada {@link ProductsChangedEvent}. Al arrancar no se sabe qué pasó mientras la
+/// aplicación estaba parada: lastModified vale la hora de arranque y los ETag llevan un "epoch" (el
+/// instante de arranque), así que los clientes vuelven a descargar una vez en lugar de recibir un 304 falso.
+/// Los cambios hechos directamente en la base de datos, sin pasar por la aplicación, no se detectan
+/// (igual que en {@link ProductCache}).
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instant lastModified = now();
+
+    public Instant lastModified() {
+        return lastModified;
+    }
+
+    /// Número de cambios del catálogo desde el arranque.
+    public long version() {
+        return version.get();
+    }
+
+    /// ETag de la respuesta a "key" (ruta + parámetros) con el catálogo en su versión actual.
+    /// No mira el cuerpo: si el catálogo no ha cambiado, la misma petición devuelve lo mismo.
+    /// Se debe calcular antes de leer los datos, para que un cambio a mitad nunca quede con el ETag nuevo.
+    public String etag(String key) {
+        long h = 0xcbf29ce484222325L; // FNV-1a de 64 bits, como ProductModel#computeContentHash
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h = (h ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return "\"" + epoch + "-" + version.get() + "-" + Long.toHexString(h) + "\"";
+    }
+
+    /// Precisión de segundos, la de las fechas HTTP: dos cambios en el mismo segundo avanzan un segundo más,
+    /// para que quien descargó entre ambos no reciba un 304 con datos viejos.
+    /// Se ejecuta la última, cuando la caché y los índices ya tienen los datos nuevos: si no, una petición
+    /// entre medias podría guardar datos viejos con el ETag nuevo.
+    @EventListener
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public synchronized void onProductsChanged(ProductsChangedEvent event) {
+        version.incrementAndGet();
+        Instant now = now();
+        lastModified = now.isAfter(lastModified) ? now : lastModified.plusSeconds(1);
+    }
+
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+}
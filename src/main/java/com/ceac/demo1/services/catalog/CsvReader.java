@@ -0,0 +1,159 @@
+package com.ceac.demo1.services.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/// Lector de CSV (RFC 4180) registro a registro, sin cargar el fichero.
+/// Admite campos entre comillas con comas, saltos de línea y comillas dobles ("") dentro.
+/// Las líneas en blanco se saltan.
+///
+/// Un registro de más de maxChars caracteres (sumando todos sus campos y las comas que los separan) no se
+/// guarda: se sigue leyendo hasta su final sin acumular nada y {@link #tooLong()} lo indica. Sin ese límite,
+/// un campo entre comillas que no se cierra nunca (o una ristra de comas sin salto de línea, que crea un
+/// campo vacío por coma) acabaría con el fichero entero en memoria.
+final class CsvReader {
+
+    private final Reader in;
+    private final int maxChars;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int len;
+    private long line = 1;
+    private long recordLine;
+    private int chars;
+    private boolean tooLong;
+
+    CsvReader(Reader in, int maxChars) {
+        this.in = in;
+        this.maxChars = maxChars;
+    }
+
+    /// Línea (empezando en 1) en la que empieza el último registro devuelto por {@link #next()}.
+    long line() {
+        return recordLine;
+    }
+
+    /// El último registro devuelto por {@link #next()} pasaba del máximo: sus campos están incompletos.
+    boolean tooLong() {
+        return tooLong;
+    }
+
+    /// Siguiente registro, o null al final del fichero.
+    /// @throws IllegalArgumentException si el último registro tiene unas comillas sin cerrar
+    List<String> next() throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        recordLine = line;
+        chars = 0;
+        tooLong = false;
+        while (true) {
+            int c = read();
+            if (c < 0) {
+                if (quoted) {
+                    throw new IllegalArgumentException("comillas sin cerrar");
+                }
+                if (!any) {
+                    return null;
+                }
+                if (!tooLong) {
+                    fields.add(field.toString());
+                }
+                return fields;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        append(field, '"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') line++;
+                    append(field, (char) c);
+                }
+                continue;
+            }
+            switch (c) {
+                case ',' -> {
+                    if (fits()) {
+                        fields.add(field.toString());
+                    } else {
+                        fields.clear();
+                    }
+                    field.setLength(0);
+                    any = true;
+                }
+                case '\r' -> { }
+                case '\n' -> {
+                    line++;
+                    if (!any && field.isEmpty()) {
+                        recordLine = line; // línea en blanco
+                        continue;
+                    }
+                    if (!tooLong) {
+                        fields.add(field.toString());
+                    }
+                    return fields;
+                }
+                case '"' -> {
+                    quoted = true;
+                    any = true;
+                }
+                default -> {
+                    append(field, (char) c);
+                    any = true;
+                }
+            }
+        }
+    }
+
+    /// Añade el carácter al campo mientras el registro no pase de maxChars; después solo se cuenta.
+    private void append(StringBuilder field, char c) {
+        if (fits()) {
+            field.append(c);
+        } else {
+            field.setLength(0);
+        }
+    }
+
+    /// Cuenta un carácter más del registro (dato o coma); false si ya pasa de maxChars.
+    private boolean fits() {
+        if (tooLong) {
+            return false;
+        }
+        if (++chars > maxChars) {
+            tooLong = true;
+            return false;
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (pos == len && !fill()) {
+            return -1;
+        }
+        return buf[pos++];
+    }
+
+    private int peek() throws IOException {
+        if (pos == len && !fill()) {
+            return -1;
+        }
+        return buf[pos];
+    }
+
+    private boolean fill() throws IOException {
+        len = in.read(buf, 0, buf.length);
+        pos = 0;
+        if (len <= 0) {
+            len = 0; // al final del fichero, len = -1 dejaría pos != len y read() se saldría de buf
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,248 @@
+package com.ceac.demo1.services.catalog;
+
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/// Índice de facetas del catálogo: un bitmap comprimido (Roaring) de ids de producto por cada
+/// plataforma, etiqueta, banda de precio y banda de descuento.
+///
+/// Filtrar "PC + rpg + con descuento + menos de 30 €" es hacer OR de los valores elegidos dentro
+/// de cada faceta y AND entre facetas. Son operaciones sobre bloques de 64 bits, sin tocar la tabla.
+/// Los recuentos de cada valor se calculan en la misma consulta con el resto de filtros aplicados
+/// (los de su propia faceta no, para que se vea cuántos saldrían eligiendo otro valor).
+///
+/// - Precio: el que paga el cliente (con el descuento aplicado), en bandas de {@link #PRICE_EDGES}.
+/// - Los textos se guardan en minúsculas; los nombres de banda ordenan bien como texto.
+/// Lecturas concurrentes con un ReadWriteLock, igual que {@link TrigramIndex}.
+/// Los ids de producto deben caber en un int.
+///
+/// Para cada producto se guardan los bitmaps en los que está (unos pocos: plataforma, etiquetas y dos
+/// bandas). Así sustituirlo o borrarlo toca solo esos, no todos los valores de todas las facetas.
+public final class FacetIndex {
+
+    public static final String PLATFORM = "platform";
+    public static final String TAG = "tag";
+    public static final String PRICE = "price";
+    public static final String DISCOUNT = "discount";
+    private static final List<String> FACETS = List.of(PLATFORM, TAG, PRICE, DISCOUNT);
+
+    /// Bandas de descuento distintas de "0" (el filtro "con descuento").
+    public static final List<String> DISCOUNTED_BANDS = List.of("1-24", "25-49", "50-74", "75+");
+
+    /// Límites de las bandas de precio en euros: 0-10, 10-20, 20-30, 30-50, 50-70, 70+.
+    private static final int[] PRICE_EDGES = {10, 20, 30, 50, 70};
+
+    /// Ids de la página pedida (orden de id), total de coincidencias y
+    /// recuentos faceta -> valor -> productos.
+    public record Result(long[] ids, int total, Map<String, Map<String, Integer>> counts) {}
+
+    /// faceta -> valor -> productos con ese valor.
+    private final Map<String, Map<String, RoaringBitmap>> values = new LinkedHashMap<>();
+    private final RoaringBitmap all = new RoaringBitmap();
+    /// id de producto -> bitmaps de {@link #values} que lo contienen.
+    private final Map<Integer, RoaringBitmap[]> memberOf = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public FacetIndex() {
+        for (String facet : FACETS) {
+            values.put(facet, new TreeMap<>());
+        }
+    }
+
+    /// Da de alta o sustituye un producto.
+    public void put(long productId, String platform, String tags, BigDecimal price, Integer discount) {
+        int id = Math.toIntExact(productId);
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            List<RoaringBitmap> in = new ArrayList<>(4);
+            if (platform != null && !platform.isBlank()) {
+                add(PLATFORM, platform, id, in);
+            }
+            if (tags != null) {
+                for (String tag : tags.split(",")) {
+                    if (!tag.isBlank()) {
+                        add(TAG, tag, id, in);
+                    }
+                }
+            }
+            String band = priceBand(price, discount);
+            if (band != null) {
+                add(PRICE, band, id, in);
+            }
+            add(DISCOUNT, discountBand(discount), id, in);
+            all.add(id);
+            memberOf.put(id, in.toArray(new RoaringBitmap[0]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// @param selected faceta -> valores elegidos (sin mayúsculas). Facetas ausentes o vacías no filtran.
+    /// @param offset   primer resultado (page * size)
+    /// @param limit    resultados a devolver (size)
+    public Result filter(Map<String, ? extends Collection<String>> selected, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            /// Un bitmap por faceta filtrada: la unión de sus valores elegidos (un solo valor: su bitmap, sin copiarlo).
+            List<Filter> filters = new ArrayList<>(FACETS.size());
+            for (String facet : FACETS) {
+                Collection<String> chosen = selected.get(facet);
+                if (chosen != null && !chosen.isEmpty()) {
+                    filters.add(new Filter(facet, union(facet, chosen)));
+                }
+            }
+            /// De menor a mayor: los ANDs encogen enseguida y los bitmaps pequeños se cruzan rápido.
+            filters.sort(Comparator.comparingInt(f -> f.bitmap().getCardinality()));
+
+            /// Para contar los valores de una faceta se aplican los filtros de las demás (no el suyo).
+            /// Con prefijos y sufijos de ANDs cada "todas menos una" sale de un solo AND más:
+            /// before[i] = f0 & ... & f(i-1), after[i] = f(i) & ... & f(n-1).
+            /// Cada AND crea un bitmap nuevo, que es lo caro; los recuentos (andCardinality) no crean nada.
+            int n = filters.size();
+            RoaringBitmap[] before = new RoaringBitmap[n + 1];
+            RoaringBitmap[] after = new RoaringBitmap[n + 1];
+            before[0] = all;
+            after[n] = all;
+            for (int i = 0; i < n; i++) {
+                RoaringBitmap f = filters.get(i).bitmap();
+                before[i + 1] = i == 0 ? f : RoaringBitmap.and(before[i], f);
+            }
+            for (int i = n - 1; i > 0; i--) {
+                RoaringBitmap f = filters.get(i).bitmap();
+                after[i] = i == n - 1 ? f : RoaringBitmap.and(f, after[i + 1]);
+            }
+            RoaringBitmap matches = before[n];
+
+            Map<String, RoaringBitmap> bases = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                RoaringBitmap base = i == 0 ? after[1] : i == n - 1 ? before[i] : RoaringBitmap.and(before[i], after[i + 1]);
+                bases.put(filters.get(i).facet(), base);
+            }
+            Map<String, Map<String, Integer>> counts = new LinkedHashMap<>();
+            for (String facet : FACETS) {
+                RoaringBitmap base = bases.getOrDefault(facet, matches);
+                Map<String, Integer> facetCounts = new LinkedHashMap<>();
+                for (Map.Entry<String, RoaringBitmap> value : values.get(facet).entrySet()) {
+                    int c = RoaringBitmap.andCardinality(base, value.getValue());
+                    if (c > 0) {
+                        facetCounts.put(value.getKey(), c);
+                    }
+                }
+                counts.put(facet, facetCounts);
+            }
+
+            int total = matches.getCardinality();
+            long[] ids = new long[Math.max(0, Math.min(limit, total - offset))];
+            if (ids.length > 0) {
+                PeekableIntIterator it = matches.getIntIterator();
+                it.advanceIfNeeded(matches.select(offset));
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = it.next();
+                }
+            }
+            return new Result(ids, total, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private record Filter(String facet, RoaringBitmap bitmap) {}
+
+    private RoaringBitmap union(String facet, Collection<String> chosen) {
+        List<RoaringBitmap> bitmaps = new ArrayList<>(chosen.size());
+        for (String value : chosen) {
+            RoaringBitmap bitmap = values.get(facet).get(normalize(value));
+            if (bitmap != null) {
+                bitmaps.add(bitmap);
+            }
+        }
+        return bitmaps.size() == 1 ? bitmaps.get(0) : RoaringBitmap.or(bitmaps.iterator());
+    }
+
+    /// Banda del precio final (precio con descuento), o null si el producto no tiene precio.
+    static String priceBand(BigDecimal price, Integer discount) {
+        if (price == null) {
+            return null;
+        }
+        double finalPrice = price.doubleValue() * (100 - (discount == null ? 0 : discount)) / 100;
+        int low = 0;
+        for (int edge : PRICE_EDGES) {
+            if (finalPrice < edge) {
+                return low + "-" + edge;
+            }
+            low = edge;
+        }
+        return low + "+";
+    }
+
+    /// "0" (sin descuento), "1-24", "25-49", "50-74" o "75+".
+    static String discountBand(Integer discount) {
+        int d = discount == null ? 0 : discount;
+        if (d <= 0) return "0";
+        if (d < 25) return "1-24";
+        if (d < 50) return "25-49";
+        if (d < 75) return "50-74";
+        return "75+";
+    }
+
+    /// Añade el id al bitmap del valor y lo apunta en "in" (una vez, aunque una etiqueta se repita).
+    private void add(String facet, String value, int id, List<RoaringBitmap> in) {
+        RoaringBitmap bitmap = values.get(facet).computeIfAbsent(normalize(value), v -> new RoaringBitmap());
+        if (bitmap.checkedAdd(id)) {
+            in.add(bitmap);
+        }
+    }
+
+    private void removeLocked(int id) {
+        RoaringBitmap[] in = memberOf.remove(id);
+        if (in == null) {
+            return;
+        }
+        all.remove(id);
+        for (RoaringBitmap bitmap : in) {
+            bitmap.remove(id);
+            if (bitmap.isEmpty()) {
+                /// Era el último producto con ese valor: el valor desaparece de la faceta (y de los recuentos).
+                /// Solo entonces se busca en qué faceta estaba.
+                for (Map<String, RoaringBitmap> facet : values.values()) {
+                    facet.values().removeIf(b -> b == bitmap);
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
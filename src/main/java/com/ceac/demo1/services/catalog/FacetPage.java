@@ -0,0 +1,9 @@
+package com.ceac.demo1.services.catalog;
+
+import java.util.List;
+import java.util.Map;
+
+/// Una página de /products/filter: los productos, el total que cumple los filtros y los recuentos
+/// por faceta (p. ej. facets.tag.rpg = cuántos productos saldrían añadiendo "rpg" a la selección).
+public record FacetPage<T>(List<T> content, int page, int size, int totalElements,
+                           Map<String, Map<String, Integer>> facets) {}
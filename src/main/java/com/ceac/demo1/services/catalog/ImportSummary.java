@@ -0,0 +1,15 @@
+package com.ceac.demo1.services.catalog;
+
+import java.util.List;
+
+/// Resumen de POST /products/import.
+///
+/// @param rows          registros leídos (aceptados + rechazados)
+/// @param rejected      registros rechazados; solo los primeros aparecen en rejectedLines
+/// @param rowsPerSecond registros leídos por segundo, de principio a fin
+public record ImportSummary(long rows, long inserted, long updated, long unchanged, long rejected,
+                            List<RejectedLine> rejectedLines, long elapsedMs, long rowsPerSecond) {
+
+    /// Un registro que no se ha importado: línea del fichero (empezando en 1) y motivo.
+    public record RejectedLine(long line, String reason) {}
+}
@@ -0,0 +1,81 @@
+package com.ceac.demo1.services.catalog;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/// Lector de líneas con un máximo de caracteres por línea (a diferencia de BufferedReader.readLine,
+/// que guarda la línea entera aunque ocupe varios GB, p. ej. un array JSON enviado sin saltos de línea).
+///
+/// Una línea más larga no se guarda: se salta hasta el siguiente '\n' y {@link #tooLong()} lo indica.
+/// Así la memoria no depende del fichero. Admite "\n" y "\r\n" como fin de línea.
+final class LineReader {
+
+    private final Reader in;
+    private final int maxChars;
+    private final char[] buf = new char[8192];
+    private final StringBuilder line = new StringBuilder();
+    private int pos;
+    private int len;
+    private boolean tooLong;
+
+    LineReader(Reader in, int maxChars) {
+        this.in = in;
+        this.maxChars = maxChars;
+    }
+
+    /// Siguiente línea sin el salto, o null al final del fichero.
+    /// Si la línea pasaba de maxChars se devuelve vacía y {@link #tooLong()} es true.
+    String next() throws IOException {
+        line.setLength(0);
+        tooLong = false;
+        boolean any = false;
+        while (true) {
+            if (pos == len) {
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return any ? result() : null;
+                }
+            }
+            any = true;
+            int start = pos;
+            while (pos < len && buf[pos] != '\n') {
+                pos++;
+            }
+            if (!tooLong) {
+                int chunk = pos - start;
+                if (line.length() + chunk > maxChars + 1) { // +1: el '\r' de "\r\n"
+                    tooLong = true;
+                    line.setLength(0);
+                } else {
+                    line.append(buf, start, chunk);
+                }
+            }
+            if (pos < len) {
+                pos++; // el '\n'
+                return result();
+            }
+        }
+    }
+
+    /// La última línea devuelta por {@link #next()} pasaba del máximo (y se ha descartado).
+    boolean tooLong() {
+        return tooLong;
+    }
+
+    private String result() {
+        if (tooLong) {
+            return "";
+        }
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            end--;
+        }
+        if (end > maxChars) {
+            tooLong = true;
+            return "";
+        }
+        return line.substring(0, end);
+    }
+}
@@ -0,0 +1,189 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/// Caché en memoria delante de la base de datos para las lecturas del catálogo (read-through):
+/// - productos por id        (GET /products/{id})
+/// - páginas de resultados   (GET /products y GET /products/platform/{platform})
+///
+/// Usa Caffeine, cuya política W-TinyLFU lleva la cuenta aproximada de la frecuencia de cada clave:
+/// un producto que se pide una sola vez no desplaza a los que se piden a menudo.
+/// Tamaño máximo y caducidad configurables (app.catalog.cache.*).
+///
+/// Al guardar productos ({@link ProductsChangedEvent}) se borran esos ids y todas las páginas,
+/// porque un alta o un cambio puede mover productos de una página a otra.
+///
+/// Borrar no basta: invalidateAll no detiene las cargas que ya están en marcha, y una página leída
+/// antes del cambio se guardaría después y duraría todo el TTL (servida, además, con el ETag nuevo
+/// de CatalogVersion). Por eso cada entrada lleva la generación (número de cambios vistos) leída
+/// antes de cargarla, y al leerla se descarta si desde entonces ha habido un cambio que le afecta:
+/// cualquiera para las páginas, el suyo (o uno de "todo") para un producto.
+///
+/// Se guardan copias de las entidades ({@link ProductModel#copy()}), no las que devuelve JPA, porque
+/// se comparten entre peticiones. Lo que devuelve esta caché es de solo lectura.
+@Component
+public class ProductCache {
+
+    /// Contadores de una caché: entradas, aciertos, fallos, desalojos y tasa de aciertos.
+    public record Usage(long size, long hits, long misses, long evictions, double hitRate) {}
+
+    public record Stats(Usage products, Usage pages) {}
+
+    /// Clave de una página: plataforma en minúsculas (null = todo el catálogo), número y tamaño.
+    private record PageKey(String platform, int page, int size) {}
+
+    /// Valor guardado y generación leída antes de cargarlo.
+    private record Entry<V>(long generation, V value) {}
+
+    /// Los cambios por id se apuntan en una tabla fija de franjas (id % STRIPES), no por id: un cambio
+    /// descarta también los productos de su franja cargados antes, a cambio de no crecer nunca.
+    private static final int STRIPES = 1024;
+
+    /// Se guarda también Optional.empty(): así un id inexistente no consulta la BD en cada petición.
+    private final Cache<Long, Entry<Optional<ProductModel>>> products;
+    private final Cache<PageKey, Entry<Page<ProductModel>>> pages;
+
+    /// Número de cambios recibidos; el último es a la vez el último cambio de cualquier página.
+    private final AtomicLong generation = new AtomicLong();
+    /// Generación del último cambio de cada franja de ids, y del último cambio de "todo".
+    private final AtomicLongArray stripeChanged = new AtomicLongArray(STRIPES);
+    private volatile long everythingChanged;
+
+    public ProductCache(@Value("${app.catalog.cache.products.max-entries:10000}") long maxProducts,
+                        @Value("${app.catalog.cache.pages.max-entries:1000}") long maxPages,
+                        @Value("${app.catalog.cache.ttl-ms:600000}") long ttlMs) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maxProducts)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maxPages)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+    }
+
+    public Optional<ProductModel> getById(Long id, Function<Long, Optional<ProductModel>> loader) {
+        long gen = generation.get();
+        long seen = changedAt(id);
+        Entry<Optional<ProductModel>> entry = products.get(id, k -> new Entry<>(gen, loader.apply(k).map(ProductModel::copy)));
+        while (entry.generation() < seen) {
+            /// Cargado antes de un cambio suyo que esta petición ya ha visto: se borra (solo si sigue
+            /// siendo esa entrada) y se vuelve a cargar.
+            products.asMap().remove(id, entry);
+            long now = generation.get();
+            entry = products.get(id, k -> new Entry<>(now, loader.apply(k).map(ProductModel::copy)));
+        }
+        return entry.value();
+    }
+
+    /// Varios productos por id, en el orden de "ids" (los que no existen se omiten).
+    /// Los que faltan en la caché se piden todos juntos a "loader" (una sola consulta, no una por id);
+    /// los ids que "loader" no devuelve se guardan como inexistentes.
+    public List<ProductModel> getAllById(long[] ids, Function<List<Long>, List<ProductModel>> loader) {
+        List<Long> keys = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            keys.add(id);
+        }
+        long gen = generation.get();
+        Map<Long, Entry<Optional<ProductModel>>> found = new HashMap<>(products.getAllPresent(keys));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : keys) {
+            Entry<Optional<ProductModel>> entry = found.get(id);
+            if (entry == null || entry.generation() < changedAt(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            /// getAll de Caffeine no es atómico (carga y luego guarda): una entrada que se guarde tras un
+            /// cambio lleva "gen", anterior a él, y la próxima lectura la descarta.
+            Map<Long, Entry<Optional<ProductModel>>> loaded = new HashMap<>();
+            for (Long id : missing) {
+                loaded.put(id, new Entry<>(gen, Optional.empty()));
+            }
+            for (ProductModel product : loader.apply(List.copyOf(new LinkedHashSet<>(missing)))) {
+                loaded.put(product.getId(), new Entry<>(gen, Optional.of(product.copy())));
+            }
+            products.putAll(loaded);
+            found.putAll(loaded);
+        }
+        List<ProductModel> content = new ArrayList<>(ids.length);
+        for (Long id : keys) {
+            found.get(id).value().ifPresent(content::add);
+        }
+        return content;
+    }
+
+    /// @param platform null para las páginas de todo el catálogo.
+    public Page<ProductModel> getPage(String platform, int page, int size, Supplier<Page<ProductModel>> loader) {
+        PageKey key = new PageKey(platform == null ? null : platform.toLowerCase(Locale.ROOT), page, size);
+        long gen = generation.get();
+        Entry<Page<ProductModel>> entry = pages.get(key, k -> new Entry<>(gen, loader.get().map(ProductModel::copy)));
+        while (entry.generation() < gen) {
+            /// Cargada antes de un cambio que esta petición ya ha visto: se borra (solo si sigue siendo
+            /// esa) y se vuelve a cargar.
+            pages.asMap().remove(key, entry);
+            long now = generation.get();
+            entry = pages.get(key, k -> new Entry<>(now, loader.get().map(ProductModel::copy)));
+        }
+        return entry.value();
+    }
+
+    /// La generación se mueve antes de borrar: una carga que empezó antes queda con una generación
+    /// menor y se descarta aunque se guarde después del borrado.
+    @EventListener
+    @Order(0) // antes que CatalogVersion
+    public void onProductsChanged(ProductsChangedEvent event) {
+        long gen = generation.incrementAndGet();
+        if (event.isEverything()) {
+            everythingChanged = gen;
+            products.invalidateAll();
+        } else {
+            for (Long id : event.ids()) {
+                stripeChanged.accumulateAndGet(stripe(id), gen, Math::max);
+            }
+            products.invalidateAll(event.ids());
+        }
+        pages.invalidateAll();
+    }
+
+    /// Generación del último cambio que afecta al producto "id".
+    private long changedAt(long id) {
+        return Math.max(everythingChanged, stripeChanged.get(stripe(id)));
+    }
+
+    private static int stripe(long id) {
+        return (int) Math.floorMod(id, (long) STRIPES);
+    }
+
+    public Stats stats() {
+        return new Stats(usage(products), usage(pages));
+    }
+
+    private static Usage usage(Cache<?, ?> cache) {
+        CacheStats s = cache.stats();
+        return new Usage(cache.estimatedSize(), s.hitCount(), s.missCount(), s.evictionCount(), s.hitRate());
+    }
+}
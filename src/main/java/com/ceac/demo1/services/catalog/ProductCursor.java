@@ -0,0 +1,52 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.exceptions.InvalidCursorException;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/// Posición de un listado en modo cursor: el último (puntuación, id) devuelto.
+///
+/// Al cliente se le entrega opaca (base64url de 13 bytes: versión + id + puntuación) y la devuelve
+/// tal cual para pedir la página siguiente. La consulta continúa "a partir de" esa posición,
+/// así que cuesta lo mismo en la página 1 que en la 10 000 y no necesita COUNT.
+///
+/// En los listados ordenados por id la puntuación es NaN.
+/// Los listados que no son del catálogo (p. ej. usuarios) usan {@link com.ceac.demo1.services.IdCursor}.
+public record ProductCursor(long id, float score) {
+
+    private static final byte VERSION = 1;
+    private static final int BYTES = 1 + Long.BYTES + Float.BYTES;
+
+    public static ProductCursor byId(long id) {
+        return new ProductCursor(id, Float.NaN);
+    }
+
+    public boolean ranked() {
+        return !Float.isNaN(score);
+    }
+
+    public String encode() {
+        ByteBuffer buf = ByteBuffer.allocate(BYTES).put(VERSION).putLong(id).putFloat(score);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+    }
+
+    /// null o "" → primera página (devuelve null).
+    /// @throws InvalidCursorException si el texto no es un cursor emitido por esta versión
+    public static ProductCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        byte[] raw;
+        try {
+            raw = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+        if (raw.length != BYTES || raw[0] != VERSION) {
+            throw new InvalidCursorException();
+        }
+        ByteBuffer buf = ByteBuffer.wrap(raw, 1, BYTES - 1);
+        return new ProductCursor(buf.getLong(), buf.getFloat());
+    }
+}
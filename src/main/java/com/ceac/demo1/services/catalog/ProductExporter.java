@@ -0,0 +1,130 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.repositories.ExportQueries;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/// Exportación del catálogo completo (NDJSON o CSV) escrita a medida que se lee de la base de datos.
+///
+/// En lugar de cargar páginas enteras, se recorre un único SELECT ordenado por id con un cursor de solo
+/// avance ({@link ExportQueries#products()}): el driver trae las filas por bloques (o una a una)
+/// y cada producto se escribe y se separa (detach) del contexto de persistencia, para que Hibernate no
+/// los vaya acumulando. La memoria usada es la misma para 100 productos que para 10 millones.
+///
+/// El CSV tiene las mismas columnas que acepta POST /products/import: exportar e importar es un viaje de ida y vuelta.
+@Service
+public class ProductExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductExporter.class);
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String CSV_HEADER =
+            "title,platform,price,discount,imageUrl,description,releaseDate,publisher,stock,tags\n";
+
+    private final ExportQueries queries;
+    private final EntityManager em;
+    private final ObjectMapper mapper;
+    private final TransactionTemplate readOnlyTx;
+
+    public ProductExporter(ExportQueries queries, EntityManager em, ObjectMapper mapper,
+                           PlatformTransactionManager txManager) {
+        this.queries = queries;
+        this.em = em;
+        this.mapper = mapper;
+        this.readOnlyTx = new TransactionTemplate(txManager);
+        this.readOnlyTx.setReadOnly(true);
+    }
+
+    /// Escribe todo el catálogo en "out" (sin cerrarlo) y devuelve cuántos productos se han exportado.
+    /// Abre su propia transacción: el Stream de la consulta solo se puede recorrer dentro de una.
+    public long export(Format format, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        long rows;
+        try {
+            rows = readOnlyTx.execute(status -> {
+                try (Stream<ProductModel> products = queries.products()) {
+                    return format == Format.CSV ? writeCsv(products.iterator(), writer) : writeNdjson(products.iterator(), writer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // normalmente, el cliente ha cortado la descarga
+        }
+        writer.flush();
+        long ms = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Exportación {}: {} productos en {} ms ({} productos/s)", format, rows, ms, rows * 1000 / ms);
+        return rows;
+    }
+
+    private long writeNdjson(Iterator<ProductModel> products, Writer writer) throws IOException {
+        long rows = 0;
+        try (JsonGenerator json = mapper.getFactory().createGenerator(writer)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.setRootValueSeparator(null); // por defecto separa los objetos con un espacio; aquí va '\n'
+            while (products.hasNext()) {
+                ProductModel p = products.next();
+                json.writeObject(p);
+                json.writeRaw('\n');
+                em.detach(p);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private long writeCsv(Iterator<ProductModel> products, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        long rows = 0;
+        while (products.hasNext()) {
+            ProductModel p = products.next();
+            writeCsvField(writer, p.getTitle(), ',');
+            writeCsvField(writer, p.getPlatform(), ',');
+            writeCsvField(writer, p.getPrice() == null ? null : p.getPrice().toPlainString(), ',');
+            writeCsvField(writer, p.getDiscount(), ',');
+            writeCsvField(writer, p.getImageUrl(), ',');
+            writeCsvField(writer, p.getDescription(), ',');
+            writeCsvField(writer, p.getReleaseDate(), ',');
+            writeCsvField(writer, p.getPublisher(), ',');
+            writeCsvField(writer, p.getStock(), ',');
+            writeCsvField(writer, p.getTags(), '\n');
+            em.detach(p);
+            rows++;
+        }
+        return rows;
+    }
+
+    /// Vacío si es null; entre comillas (y con las comillas duplicadas) si lleva comas, comillas o saltos de línea.
+    private static void writeCsvField(Writer writer, Object value, char end) throws IOException {
+        if (value != null) {
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write(end);
+    }
+}
@@ -0,0 +1,170 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.repositories.ProductBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/// Tubería de carga masiva: quien lee el fichero va llamando a {@link #add} producto a producto,
+/// y aquí se agrupan en bloques que escriben (upsert) varios hilos mientras se sigue leyendo.
+///
+/// La cola de bloques es acotada (tantos como hilos) y con CallerRunsPolicy: si está llena escribe
+/// el propio hilo lector, que deja de leer mientras tanto. Como mucho hay 2 * hilos + 1 bloques
+/// en memoria, da igual lo grande que sea el fichero.
+///
+/// Con virtualThreads los escritores son hilos virtuales: mientras esperan a la BD no ocupan un hilo
+/// del sistema (el número de escritores sigue siendo "writerThreads").
+///
+/// Uso: try (pipeline) { add(...)...; finish(); } y después publicar {@link #changes()}.
+public final class ProductImportPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportPipeline.class);
+
+    private final ProductBatchWriter writer;
+    private final String label;
+    private final int batchSize;
+    private final long logEvery;
+    private final int changedIdsLimit;
+    private final ThreadPoolExecutor writers;
+    private final long start = System.nanoTime();
+
+    private final List<Future<?>> tasks = new ArrayList<>();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong inserted = new AtomicLong();
+    private final AtomicLong updated = new AtomicLong();
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    /// Ids cambiados, mientras no pasen de changedIdsLimit (si pasan: null y se avisa de "todo").
+    private List<Long> changedIds;
+    private List<ProductModel> batch;
+
+    /// @param label           prefijo de los mensajes de progreso y nombre de los hilos
+    /// @param changedIdsLimit hasta cuántos ids cambiados se guardan para avisar uno a uno (0: nunca)
+    public ProductImportPipeline(ProductBatchWriter writer, String label, int batchSize, int writerThreads,
+                                 long logEvery, int changedIdsLimit, boolean virtualThreads) {
+        this.writer = writer;
+        this.label = label;
+        this.batchSize = Math.max(1, batchSize);
+        this.logEvery = Math.max(1, logEvery);
+        this.changedIdsLimit = changedIdsLimit;
+        this.changedIds = changedIdsLimit > 0 ? new ArrayList<>() : null;
+        int threads = Math.max(1, writerThreads);
+        AtomicInteger n = new AtomicInteger();
+        ThreadFactory factory = virtualThreads
+                ? Thread.ofVirtual().name(label + "-writer-", 1).factory()
+                : r -> new Thread(r, label + "-writer-" + n.incrementAndGet());
+        this.writers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.batch = new ArrayList<>(this.batchSize);
+    }
+
+    /// Añade un producto al bloque en curso. Si un bloque anterior falló, relanza ese error.
+    public void add(ProductModel product) {
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+        product.setId(null); // el id lo pone la base de datos (o el upsert, si ya existía)
+        batch.add(product);
+        if (batch.size() == batchSize) {
+            flush();
+        }
+    }
+
+    /// Escribe el último bloque, espera a todos y devuelve el resumen.
+    public UpsertReport finish() throws InterruptedException {
+        if (!batch.isEmpty()) {
+            flush();
+        }
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                failure.compareAndSet(null, e.getCause() instanceof RuntimeException r ? r : new IllegalStateException(e.getCause()));
+            }
+        }
+        tasks.clear();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        return report();
+    }
+
+    public UpsertReport report() {
+        long ins = inserted.get();
+        long upd = updated.get();
+        return new UpsertReport(ins, upd, written.get() - ins - upd);
+    }
+
+    public long elapsedMs() {
+        return Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /// Evento a publicar con lo que ha cambiado (aunque la carga se haya quedado a medias),
+    /// o null si no ha cambiado nada.
+    public synchronized ProductsChangedEvent changes() {
+        if (inserted.get() + updated.get() == 0) {
+            return null;
+        }
+        return changedIds == null ? ProductsChangedEvent.everything() : new ProductsChangedEvent(List.copyOf(changedIds));
+    }
+
+    /// Espera a los bloques que ya estaban en marcha (también si la carga ha fallado),
+    /// para que {@link #changes()} incluya todo lo que se ha llegado a escribir.
+    @Override
+    public void close() {
+        writers.shutdown();
+        try {
+            writers.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void flush() {
+        List<ProductModel> full = batch;
+        batch = new ArrayList<>(batchSize);
+        tasks.removeIf(Future::isDone); // los errores ya se han anotado en "failure"
+        tasks.add(writers.submit(() -> write(full)));
+    }
+
+    private void write(List<ProductModel> rows) {
+        ProductBatchWriter.Upserted result;
+        try {
+            result = writer.upsert(rows, changedIdsLimit > 0);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        }
+        inserted.addAndGet(result.inserted());
+        updated.addAndGet(result.updated());
+        collect(result.changedIds());
+        long total = written.addAndGet(rows.size());
+        if (total / logEvery != (total - rows.size()) / logEvery) {
+            log.info("{}: {} productos ({} productos/s)", label, total, total * 1000 / elapsedMs());
+        }
+    }
+
+    private synchronized void collect(List<Long> ids) {
+        if (changedIds == null) {
+            return;
+        }
+        if (changedIds.size() + ids.size() > changedIdsLimit) {
+            changedIds = null;
+        } else {
+            changedIds.addAll(ids);
+        }
+    }
+}
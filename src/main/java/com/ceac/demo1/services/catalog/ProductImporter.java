@@ -0,0 +1,254 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.exceptions.InvalidImportException;
+import com.ceac.demo1.repositories.ProductBatchWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/// Importación masiva de productos desde el cuerpo de una petición (NDJSON o CSV), sin cargarlo en memoria.
+///
+/// El hilo de la petición lee y valida registro a registro y los pasa a una {@link ProductImportPipeline}
+/// (bloques + hilos escritores con cola acotada), así que la memoria no depende del tamaño del fichero.
+/// Un registro con errores se rechaza y se anota (línea + motivo) sin detener la importación.
+/// Las líneas (NDJSON) y registros (CSV) de más de app.catalog.import.max-line-chars caracteres se rechazan
+/// sin guardarlos en memoria: un fichero sin saltos de línea no puede agotar el heap.
+/// Los productos se guardan por clave natural (title, platform): reimportar no duplica.
+@Service
+public class ProductImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImporter.class);
+
+    /// Columnas del CSV (sin distinguir mayúsculas; también en snake_case).
+    private static final List<String> CSV_COLUMNS = List.of(
+            "title", "platform", "price", "discount", "imageurl", "description", "releasedate", "publisher", "stock", "tags");
+
+    private final ProductBatchWriter writer;
+    private final ObjectMapper mapper;
+    private final ApplicationEventPublisher events;
+    private final int batchSize;
+    private final int writerThreads;
+    private final long logEvery;
+    private final int maxReportedErrors;
+    private final int changedIdsLimit;
+    private final boolean virtualThreads;
+    private final int maxLineChars;
+
+    public ProductImporter(ProductBatchWriter writer, ObjectMapper mapper, ApplicationEventPublisher events,
+                           @Value("${app.catalog.import.batch-size:1000}") int batchSize,
+                           @Value("${app.catalog.import.writer-threads:2}") int writerThreads,
+                           @Value("${app.catalog.import.log-every:100000}") long logEvery,
+                           @Value("${app.catalog.import.max-reported-errors:100}") int maxReportedErrors,
+                           @Value("${app.catalog.import.changed-ids-limit:10000}") int changedIdsLimit,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                           @Value("${app.catalog.import.max-line-chars:65536}") int maxLineChars) {
+        this.writer = writer;
+        this.mapper = mapper;
+        this.events = events;
+        this.batchSize = batchSize;
+        this.writerThreads = writerThreads;
+        this.logEvery = logEvery;
+        this.maxReportedErrors = maxReportedErrors;
+        this.changedIdsLimit = changedIdsLimit;
+        this.virtualThreads = virtualThreads;
+        this.maxLineChars = maxLineChars;
+    }
+
+    /// Un producto JSON por línea.
+    public ImportSummary importNdjson(InputStream body, Charset charset) throws IOException, InterruptedException {
+        LineReader reader = new LineReader(new InputStreamReader(body, charset), maxLineChars);
+        return run(ctx -> {
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.next()) != null) {
+                lineNumber++;
+                if (reader.tooLong()) {
+                    ctx.reject(lineNumber, "línea de más de " + maxLineChars + " caracteres");
+                    continue;
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                ProductModel product;
+                try {
+                    product = mapper.readValue(line, ProductModel.class);
+                } catch (JsonProcessingException e) {
+                    ctx.reject(lineNumber, "JSON no válido: " + e.getOriginalMessage());
+                    continue;
+                }
+                ctx.accept(lineNumber, product);
+            }
+        });
+    }
+
+    /// CSV con cabecera; title y platform son obligatorias, el resto de columnas opcionales.
+    public ImportSummary importCsv(InputStream body, Charset charset) throws IOException, InterruptedException {
+        CsvReader reader = new CsvReader(new InputStreamReader(body, charset), maxLineChars);
+        List<String> header = reader.next();
+        if (header == null) {
+            throw new InvalidImportException("CSV vacío");
+        }
+        if (reader.tooLong()) {
+            throw new InvalidImportException("Cabecera del CSV de más de " + maxLineChars + " caracteres");
+        }
+        int[] columns = new int[header.size()]; // posición en CSV_COLUMNS de cada columna, o -1
+        for (int i = 0; i < header.size(); i++) {
+            columns[i] = CSV_COLUMNS.indexOf(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT));
+        }
+        for (String required : List.of("title", "platform")) {
+            if (!contains(columns, CSV_COLUMNS.indexOf(required))) {
+                throw new InvalidImportException("Falta la columna " + required + " en la cabecera del CSV");
+            }
+        }
+        return run(ctx -> {
+            while (true) {
+                List<String> record;
+                try {
+                    record = reader.next();
+                } catch (IllegalArgumentException e) {
+                    ctx.reject(reader.line(), e.getMessage());
+                    return;
+                }
+                if (record == null) {
+                    return;
+                }
+                if (reader.tooLong()) {
+                    ctx.reject(reader.line(), "registro de más de " + maxLineChars + " caracteres");
+                    continue;
+                }
+                if (record.size() != columns.length) {
+                    ctx.reject(reader.line(), "se esperaban " + columns.length + " columnas y hay " + record.size());
+                    continue;
+                }
+                try {
+                    ctx.accept(reader.line(), fromCsv(columns, record));
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    ctx.reject(reader.line(), "valor no válido: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    private interface Source {
+        void readInto(Context ctx) throws IOException;
+    }
+
+    /// Estado de una importación: la tubería de escritura y los rechazados.
+    private final class Context {
+        final ProductImportPipeline pipeline;
+        final List<ImportSummary.RejectedLine> rejectedLines = new ArrayList<>();
+        long rows;
+        long rejected;
+
+        Context(ProductImportPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        void accept(long line, ProductModel product) {
+            String problem = validate(product);
+            if (problem != null) {
+                reject(line, problem);
+                return;
+            }
+            rows++;
+            pipeline.add(product);
+        }
+
+        void reject(long line, String reason) {
+            rows++;
+            rejected++;
+            if (rejectedLines.size() < maxReportedErrors) {
+                rejectedLines.add(new ImportSummary.RejectedLine(line, reason));
+            }
+        }
+    }
+
+    private ImportSummary run(Source source) throws IOException, InterruptedException {
+        ProductImportPipeline pipeline =
+                new ProductImportPipeline(writer, "import", batchSize, writerThreads, logEvery, changedIdsLimit, virtualThreads);
+        Context ctx = new Context(pipeline);
+        UpsertReport report;
+        try (pipeline) {
+            source.readInto(ctx);
+            report = pipeline.finish();
+        } finally {
+            ProductsChangedEvent changes = pipeline.changes();
+            if (changes != null) {
+                events.publishEvent(changes);
+            }
+        }
+        long ms = pipeline.elapsedMs();
+        ImportSummary summary = new ImportSummary(ctx.rows, report.inserted(), report.updated(), report.unchanged(),
+                ctx.rejected, ctx.rejectedLines, ms, ctx.rows * 1000 / ms);
+        log.info("Importación terminada: {} registros en {} ms ({} registros/s): {} nuevos, {} actualizados, "
+                        + "{} sin cambios, {} rechazados",
+                summary.rows(), ms, summary.rowsPerSecond(), summary.inserted(), summary.updated(),
+                summary.unchanged(), summary.rejected());
+        return summary;
+    }
+
+    /// Motivo por el que el producto no se puede guardar, o null si es válido
+    /// (las mismas restricciones que las columnas de la tabla).
+    static String validate(ProductModel p) {
+        if (p.getTitle() == null || p.getTitle().isBlank()) return "title vacío";
+        if (p.getPlatform() == null || p.getPlatform().isBlank()) return "platform vacío";
+        if (p.getTitle().length() > 255) return "title de más de 255 caracteres";
+        if (p.getPlatform().length() > 255) return "platform de más de 255 caracteres";
+        if (p.getPublisher() != null && p.getPublisher().length() > 255) return "publisher de más de 255 caracteres";
+        if (p.getImageUrl() != null && p.getImageUrl().length() > 512) return "imageUrl de más de 512 caracteres";
+        if (p.getDescription() != null && p.getDescription().length() > 1024) return "description de más de 1024 caracteres";
+        if (p.getTags() != null && p.getTags().length() > 256) return "tags de más de 256 caracteres";
+        if (p.getPrice() != null && (p.getPrice().signum() < 0 || p.getPrice().precision() - p.getPrice().scale() > 8)) {
+            return "price fuera de rango";
+        }
+        if (p.getDiscount() != null && (p.getDiscount() < 0 || p.getDiscount() > 100)) return "discount fuera de 0-100";
+        return null;
+    }
+
+    private static ProductModel fromCsv(int[] columns, List<String> record) {
+        Map<Integer, String> values = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            String value = record.get(i).trim();
+            if (columns[i] >= 0 && !value.isEmpty()) {
+                values.put(columns[i], value);
+            }
+        }
+        ProductModel p = new ProductModel();
+        p.setTitle(values.get(0));
+        p.setPlatform(values.get(1));
+        p.setPrice(values.containsKey(2) ? new BigDecimal(values.get(2)) : null);
+        p.setDiscount(values.containsKey(3) ? Integer.valueOf(values.get(3)) : null);
+        p.setImageUrl(values.get(4));
+        p.setDescription(values.get(5));
+        p.setReleaseDate(values.containsKey(6) ? LocalDate.parse(values.get(6)) : null);
+        p.setPublisher(values.get(7));
+        p.setStock(values.containsKey(8) ? Integer.valueOf(values.get(8)) : null);
+        p.setTags(values.get(9));
+        return p;
+    }
+
+    private static boolean contains(int[] values, int value) {
+        for (int v : values) {
+            if (v == value) return true;
+        }
+        return false;
+    }
+}
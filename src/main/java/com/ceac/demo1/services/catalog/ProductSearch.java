@@ -0,0 +1,178 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.repositories.IProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/// Motor de búsqueda del catálogo: mantiene un {@link TrigramIndex} sobre title, tags y publisher
+/// y un {@link FacetIndex} sobre platform, tags, precio y descuento.
+///
+/// - Al arrancar (ApplicationReadyEvent, después del seed) carga todos los productos por bloques
+///   (una sola lectura de la tabla para los dos índices).
+/// - Con cada {@link ProductsChangedEvent} vuelve a leer esos productos y los reindexa. Si ha cambiado
+///   todo, relee la tabla entera y quita del índice lo que ya no está.
+/// Las actualizaciones van de una en una (lock "writes"): leer y escribir en el índice es un solo paso,
+/// así una lectura más antigua nunca pisa a otra más nueva que se haya indexado antes.
+/// Mientras los índices no están listos, {@link #isReady()} es false y ProductService usa la consulta LIKE.
+@Component
+public class ProductSearch {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearch.class);
+
+    private final IProductRepository repo;
+    private final TrigramIndex index = new TrigramIndex();
+    private final FacetIndex facets = new FacetIndex();
+    private final int batchSize;
+
+    /// Cambios que llegan mientras se construye el índice: se aplican al terminar.
+    private final List<Long> pending = new ArrayList<>();
+    /// Ha llegado un "ha cambiado todo" durante la carga: puede que la carga ya hubiera pasado por
+    /// esas filas, así que al terminar se relee la tabla.
+    private boolean pendingRescan;
+    private volatile boolean ready;
+    private final ReentrantLock writes = new ReentrantLock();
+
+    public ProductSearch(IProductRepository repo,
+                         @Value("${app.catalog.search.load-batch-size:5000}") int batchSize) {
+        this.repo = repo;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        writes.lock();
+        try {
+            scanAll();
+
+            List<Long> changed;
+            boolean rescan;
+            synchronized (pending) {
+                ready = true;
+                changed = new ArrayList<>(pending);
+                rescan = pendingRescan;
+                pending.clear();
+                pendingRescan = false;
+            }
+            if (rescan) {
+                scanAll();
+            } else {
+                reindex(changed);
+            }
+        } finally {
+            writes.unlock();
+        }
+        log.info("Índice de búsqueda construido: {} productos en {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @EventListener
+    @Order(0) // antes que CatalogVersion
+    public void onProductsChanged(ProductsChangedEvent event) {
+        synchronized (pending) {
+            if (!ready) {
+                if (event.isEverything()) {
+                    pendingRescan = true;
+                } else {
+                    pending.addAll(event.ids());
+                }
+                return;
+            }
+        }
+        writes.lock();
+        try {
+            if (event.isEverything()) {
+                scanAll();
+            } else {
+                reindex(event.ids());
+            }
+        } finally {
+            writes.unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /// Ids de la página pedida ordenados por relevancia y total de coincidencias.
+    public TrigramIndex.Hits search(String query, int page, int size) {
+        return index.search(query, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+    }
+
+    /// Los "size" resultados siguientes a la posición (score, id) de una página anterior.
+    public TrigramIndex.Hits searchAfter(String query, float score, long id, int size) {
+        return index.searchAfter(query, score, id, size);
+    }
+
+    /// Productos que cumplen los filtros (orden de id) y recuentos por faceta.
+    public FacetIndex.Result filter(Map<String, ? extends Collection<String>> selected, int page, int size) {
+        return facets.filter(selected, (int) Math.min((long) page * size, Integer.MAX_VALUE), size);
+    }
+
+    /// Lee toda la tabla por bloques, la indexa y quita del índice los productos que ya no están.
+    private void scanAll() {
+        long[] seen = new long[Math.max(16, index.size())];
+        int seenCount = 0;
+        long lastId = 0;
+        List<ProductModel> batch;
+        do {
+            /// Paginación por clave (id > último visto): cada bloque usa el índice de la PK, sin OFFSET ni COUNT.
+            batch = repo.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(batchSize));
+            for (ProductModel product : batch) {
+                put(product);
+                lastId = product.getId();
+                if (seenCount == seen.length) {
+                    seen = Arrays.copyOf(seen, seenCount * 2);
+                }
+                seen[seenCount++] = lastId;
+            }
+        } while (batch.size() == batchSize);
+
+        /// "seen" sale ordenado (la tabla se recorre por id). Nadie más escribe mientras tanto (writes),
+        /// así que lo que está en el índice y no se ha leído es que se ha borrado.
+        for (long id : index.productIds()) {
+            if (Arrays.binarySearch(seen, 0, seenCount, id) < 0) {
+                index.remove(id);
+                facets.remove(id);
+            }
+        }
+    }
+
+    private void reindex(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<ProductModel> products = repo.findAllById(ids);
+        for (ProductModel product : products) {
+            put(product);
+        }
+        if (products.size() < ids.size()) {
+            /// Los que ya no existen se quitan del índice.
+            List<Long> gone = new ArrayList<>(ids);
+            gone.removeAll(products.stream().map(ProductModel::getId).toList());
+            gone.forEach(id -> {
+                index.remove(id);
+                facets.remove(id);
+            });
+        }
+    }
+
+    private void put(ProductModel product) {
+        index.put(product.getId(), product.getTitle(), product.getTags(), product.getPublisher());
+        facets.put(product.getId(), product.getPlatform(), product.getTags(), product.getPrice(), product.getDiscount());
+    }
+}
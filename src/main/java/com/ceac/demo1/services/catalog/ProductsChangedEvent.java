@@ -0,0 +1,21 @@
+package com.ceac.demo1.services.catalog;
+
+import java.util.List;
+
+/// Se publica (ApplicationEventPublisher) cada vez que se guardan productos.
+/// Quien tenga datos derivados del catálogo (cachés, índices...) lo escucha con @EventListener.
+///
+/// @param ids ids de los productos creados o modificados, o null si ha cambiado todo el catálogo
+///            (carga masiva): ver {@link #everything()}.
+public record ProductsChangedEvent(List<Long> ids) {
+
+    /// Cambios demasiado grandes para listarlos (p. ej. el seed de un catálogo de millones de filas):
+    /// hay que descartar o releer todo.
+    public static ProductsChangedEvent everything() {
+        return new ProductsChangedEvent(null);
+    }
+
+    public boolean isEverything() {
+        return ids == null;
+    }
+}
@@ -0,0 +1,93 @@
+package com.ceac.demo1.services.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/// Caché de respuestas ya convertidas a JSON (bytes UTF-8, y también comprimidas con gzip) de las
+/// lecturas del catálogo: GET /products, /products/search, /products/platform/{platform} y /products/{id}.
+///
+/// {@link ProductCache} evita ir a la base de datos, pero cada respuesta sigue pasando por Jackson.
+/// Aquí se guarda el resultado final: un acierto copia los bytes a la respuesta sin serializar nada.
+///
+/// - La clave es la URL (ruta + parámetros) y cada cuerpo guarda el ETag con el que se generó
+///   ({@link CatalogVersion#etag}): si el catálogo ha cambiado desde entonces no coincide y es un fallo,
+///   aunque el evento de cambio aún no haya llegado.
+/// - Con cada {@link ProductsChangedEvent} se vacía entera (para liberar la memoria de lo que ya no vale).
+/// - Tamaño máximo en bytes (app.catalog.response-cache.max-bytes); como en ProductCache, Caffeine
+///   (W-TinyLFU) se queda con las URLs que más se piden.
+@Component
+public class ResponseBodyCache {
+
+    /// Cuerpo listo para escribir. gzip es null si el JSON es demasiado pequeño para que compense comprimirlo.
+    public record Body(String etag, byte[] json, byte[] gzip) {}
+
+    private final ObjectMapper mapper;
+    private final Cache<String, Body> bodies;
+    private final int gzipMinBytes;
+
+    public ResponseBodyCache(ObjectMapper mapper,
+                             @Value("${app.catalog.response-cache.max-bytes:33554432}") long maxBytes,
+                             @Value("${app.catalog.response-cache.gzip-min-bytes:512}") int gzipMinBytes) {
+        this.mapper = mapper;
+        this.gzipMinBytes = gzipMinBytes;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Body body) -> key.length() * 2 + body.json().length
+                        + (body.gzip() == null ? 0 : body.gzip().length))
+                .recordStats()
+                .build();
+    }
+
+    /// El cuerpo guardado para esa URL, o null si no hay o se generó con otro ETag (otra versión del catálogo).
+    public Body get(String key, String etag) {
+        Body body = bodies.getIfPresent(key);
+        return body != null && body.etag().equals(etag) ? body : null;
+    }
+
+    /// Convierte "value" a JSON (y gzip), lo guarda y lo devuelve.
+    /// @param etag el calculado antes de leer los datos de "value"
+    public Body put(String key, String etag, Object value) {
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo convertir la respuesta a JSON", e);
+        }
+        Body body = new Body(etag, json, json.length >= gzipMinBytes ? gzip(json) : null);
+        bodies.put(key, body);
+        return body;
+    }
+
+    @EventListener
+    @Order(0) // antes que CatalogVersion
+    public void onProductsChanged(ProductsChangedEvent event) {
+        bodies.invalidateAll();
+    }
+
+    public ProductCache.Usage stats() {
+        CacheStats s = bodies.stats();
+        return new ProductCache.Usage(bodies.estimatedSize(), s.hitCount(), s.missCount(), s.evictionCount(), s.hitRate());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // no ocurre: se escribe en memoria
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,579 @@
+package com.ceac.demo1.services.catalog;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/// Índice invertido de trigramas (grupos de 3 caracteres) para buscar productos por texto.
+///
+/// "Elden Ring" se normaliza a "elden ring" y se parte en trigramas con un espacio delante y
+/// detrás de cada palabra: " el", "eld", "lde", "den", "en ", " ri", "rin", "ing", "ng ".
+/// Para cada trigrama se guarda la lista de documentos que lo contienen (posting list).
+/// Buscar es recorrer solo las listas de los trigramas de la consulta, en lugar de hacer
+/// LIKE '%q%' sobre toda la tabla.
+///
+/// - Búsqueda mientras se escribe: la última palabra de la consulta no lleva espacio al final,
+///   así "eld" ya encuentra "Elden".
+/// - Tolera alguna errata: basta con que coincidan 3 de cada 4 trigramas de la consulta.
+/// - Ranking BM25: pesan más los trigramas raros y los documentos cortos. El título cuenta x3
+///   frente a etiquetas y editor.
+///
+/// Los cambios no reescriben las listas: el documento viejo se marca como borrado y se añade
+/// uno nuevo. Cuando los borrados superan a los vivos se compacta todo de una vez.
+/// Lecturas concurrentes con un ReadWriteLock (las escrituras son raras: seed, importaciones).
+/// Admite hasta 16 millones de documentos, contando los borrados sin compactar (el doc va en los
+/// 24 bits altos de cada entrada): al llegar al límite se compacta, y si no hay borrados, put falla.
+public final class TrigramIndex {
+
+    /// Ids de producto de una página de resultados ordenados por relevancia, su puntuación
+    /// y el total de coincidencias. Empates: primero el id más bajo.
+    public record Hits(long[] ids, float[] scores, int total) {}
+
+    private static final Hits NONE = new Hits(new long[0], new float[0], 0);
+
+    /// 2^24: números de documento que caben en una entrada de las posting lists.
+    static final int MAX_DOCS = 1 << 24;
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int MAX_TF = 255;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    /// trigrama -> documentos. Cada entrada es (doc << 8) | tf, con tf ya ponderado por campo.
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> docByProduct = new HashMap<>();
+    private long[] productIds = new long[1024];
+    private int[] docLengths = new int[1024];
+    /// Parte de BM25 que solo depende de la longitud del documento: k1 * (1 - b + b * long / longMedia).
+    /// Se precalcula con la longitud media del momento y se recalcula si esta se mueve más de un 10 %.
+    private float[] lengthNorms = new float[1024];
+    private float normAvgLength = 1;
+    private final BitSet live = new BitSet();
+    private int docCount;
+    private int liveCount;
+    private long totalLength;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /// Arrays de trabajo reutilizables, como mucho uno por núcleo: cada uno ocupa ~10 bytes por documento,
+    /// así que uno por hilo (200 de Tomcat, o uno nuevo por petición con hilos virtuales) sería demasiado.
+    private final BlockingQueue<Scratch> scratchPool =
+            new ArrayBlockingQueue<>(Math.max(1, Runtime.getRuntime().availableProcessors()));
+
+    /// Da de alta o sustituye un producto.
+    public void put(long productId, String title, String tags, String publisher) {
+        Map<Long, Integer> tf = new HashMap<>();
+        int length = 0;
+        length += collect(title, TITLE_WEIGHT, tf);
+        length += collect(tags, 1, tf);
+        length += collect(publisher, 1, tf);
+
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+            if (docCount == MAX_DOCS) {
+                if (liveCount == docCount) {
+                    throw new IllegalStateException("El índice de búsqueda admite " + MAX_DOCS + " productos");
+                }
+                compactLocked();
+            }
+            int doc = docCount++;
+            if (doc >= productIds.length) {
+                productIds = Arrays.copyOf(productIds, productIds.length * 2);
+                docLengths = Arrays.copyOf(docLengths, docLengths.length * 2);
+                lengthNorms = Arrays.copyOf(lengthNorms, lengthNorms.length * 2);
+            }
+            productIds[doc] = productId;
+            docLengths[doc] = Math.max(1, length);
+            live.set(doc);
+            liveCount++;
+            totalLength += docLengths[doc];
+            lengthNorms[doc] = lengthNorm(docLengths[doc], normAvgLength);
+            refreshNormsIfDrifted();
+            docByProduct.put(productId, doc);
+            for (Map.Entry<Long, Integer> e : tf.entrySet()) {
+                postings.computeIfAbsent(e.getKey(), k -> new Postings()).add(doc, Math.min(MAX_TF, e.getValue()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// Ids de producto de todos los documentos vivos, sin orden.
+    public long[] productIds() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[docByProduct.size()];
+            int i = 0;
+            for (long id : docByProduct.keySet()) {
+                ids[i++] = id;
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /// @param offset primer resultado (page * size)
+    /// @param limit  resultados a devolver (size)
+    public Hits search(String query, int offset, int limit) {
+        return search(query, offset, limit, Float.NaN, 0);
+    }
+
+    /// Modo cursor: los "limit" resultados que van justo detrás de (afterScore, afterId) en el ranking,
+    /// sin recorrer ni ordenar las páginas anteriores.
+    public Hits searchAfter(String query, float afterScore, long afterId, int limit) {
+        return search(query, 0, limit, afterScore, afterId);
+    }
+
+    /// Toma unos arrays de trabajo del pool (o crea otros si hay más búsquedas a la vez que núcleos)
+    /// y los devuelve al terminar. Si la búsqueda falla a medias se descartan, por si quedan sucios.
+    private Hits search(String query, int offset, int limit, float afterScore, long afterId) {
+        Scratch s = scratchPool.poll();
+        if (s == null) {
+            s = new Scratch();
+        }
+        Hits hits = search(s, query, offset, limit, afterScore, afterId);
+        scratchPool.offer(s); // con el pool lleno, este se queda para el GC
+        return hits;
+    }
+
+    private Hits search(Scratch s, String query, int offset, int limit, float afterScore, long afterId) {
+        long[] terms = queryTrigrams(query);
+        if (terms.length == 0 || limit <= 0) {
+            return NONE;
+        }
+        boolean after = !Float.isNaN(afterScore);
+        int required = terms.length < 4 ? terms.length : terms.length - terms.length / 4;
+
+        lock.readLock().lock();
+        try {
+            s.ensure(docCount);
+            boolean hasDeleted = liveCount < docCount;
+            float[] norms = lengthNorms;
+            float[] score = s.score;
+            short[] matched = s.matched;
+            int[] touched = s.touched;
+            int touchedCount = 0;
+
+            /// Listas de los trigramas de la consulta, de la más corta (trigrama más raro) a la más larga.
+            Postings[] lists = new Postings[terms.length];
+            int present = 0;
+            for (long term : terms) {
+                Postings list = postings.get(term);
+                if (list != null) {
+                    lists[present++] = list;
+                }
+            }
+            if (present < required) {
+                return NONE;
+            }
+            Arrays.sort(lists, 0, present, (a, b) -> Integer.compare(a.size, b.size));
+
+            /// Un documento que coincide en "required" listas está por fuerza en alguna de las
+            /// (present - required + 1) más cortas. Solo esas se recorren enteras y crean candidatos;
+            /// en las largas (trigramas comunes como " ma") solo se buscan los candidatos que ya hay.
+            int essential = present - required + 1;
+            boolean sorted = false;
+            for (int t = 0; t < present; t++) {
+                Postings list = lists[t];
+                /// list.size cuenta también los documentos borrados sin compactar, así que puede pasar de
+                /// liveCount; se acota para que el idf no salga negativo (un trigrama común restaría puntos).
+                int df = Math.min(list.size, liveCount);
+                float idf = (float) Math.log(1 + (liveCount - df + 0.5) / (df + 0.5));
+                float weight = idf * (K1 + 1);
+                int[] entries = list.entries;
+                if (t < essential) {
+                    for (int i = 0, n = list.size; i < n; i++) {
+                        int entry = entries[i];
+                        int doc = entry >>> 8;
+                        if (hasDeleted && !live.get(doc)) {
+                            continue;
+                        }
+                        int tf = entry & 0xFF;
+                        if (matched[doc]++ == 0) {
+                            touched[touchedCount++] = doc;
+                        }
+                        score[doc] += weight * tf / (tf + norms[doc]);
+                    }
+                    continue;
+                }
+                if (touchedCount * 4L >= list.size) {
+                    /// Muchos candidatos para esta lista: sale más barato recorrerla entera.
+                    for (int i = 0, n = list.size; i < n; i++) {
+                        int entry = entries[i];
+                        int doc = entry >>> 8;
+                        if (matched[doc] != 0) {
+                            int tf = entry & 0xFF;
+                            matched[doc]++;
+                            score[doc] += weight * tf / (tf + norms[doc]);
+                        }
+                    }
+                    continue;
+                }
+                if (!sorted) {
+                    Arrays.sort(touched, 0, touchedCount); // para recorrer candidatos y lista a la vez
+                    sorted = true;
+                }
+                /// Búsqueda galopante: desde la última posición se salta 1, 2, 4, 8... y luego binaria.
+                int pos = 0;
+                for (int c = 0; c < touchedCount && pos < list.size; c++) {
+                    int doc = touched[c];
+                    int bound = 1;
+                    while (pos + bound < list.size && (entries[pos + bound] >>> 8) < doc) {
+                        bound <<= 1;
+                    }
+                    int lo = pos;
+                    int hi = Math.min(pos + bound, list.size - 1);
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        if ((entries[mid] >>> 8) < doc) {
+                            lo = mid + 1;
+                        } else {
+                            hi = mid;
+                        }
+                    }
+                    pos = lo;
+                    int entry = entries[pos];
+                    if ((entry >>> 8) == doc) {
+                        int tf = entry & 0xFF;
+                        matched[doc]++;
+                        score[doc] += weight * tf / (tf + norms[doc]);
+                    }
+                }
+            }
+            s.touchedCount = touchedCount;
+
+            /// Montículo con los (offset + limit) mejores; el resto de candidatos solo se cuentan.
+            int keep = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            TopDocs top = new TopDocs(Math.min(keep, s.touchedCount), s.score, productIds);
+            int total = 0;
+            for (int i = 0; i < s.touchedCount; i++) {
+                int doc = s.touched[i];
+                if (s.matched[doc] >= required) {
+                    total++;
+                    float sc = s.score[doc];
+                    if (!after || sc < afterScore || (sc == afterScore && productIds[doc] > afterId)) {
+                        top.offer(doc);
+                    }
+                }
+                s.matched[doc] = 0;
+            }
+            int[] ranked = top.sorted();
+            int from = Math.min(offset, ranked.length);
+            long[] ids = new long[ranked.length - from];
+            float[] scores = new float[ranked.length - from];
+            for (int i = from; i < ranked.length; i++) {
+                ids[i - from] = productIds[ranked[i]];
+                scores[i - from] = s.score[ranked[i]];
+            }
+            for (int i = 0; i < s.touchedCount; i++) {
+                s.score[s.touched[i]] = 0;
+            }
+            s.touchedCount = 0;
+            return new Hits(ids, scores, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeLocked(long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) {
+            return;
+        }
+        live.clear(doc);
+        liveCount--;
+        totalLength -= docLengths[doc];
+        if (docCount - liveCount > Math.max(1024, liveCount)) {
+            compactLocked();
+        }
+        refreshNormsIfDrifted();
+    }
+
+    private void refreshNormsIfDrifted() {
+        float avg = liveCount == 0 ? 1 : (float) totalLength / liveCount;
+        if (Math.abs(avg - normAvgLength) > 0.1f * normAvgLength) {
+            normAvgLength = avg;
+            for (int doc = 0; doc < docCount; doc++) {
+                lengthNorms[doc] = lengthNorm(docLengths[doc], avg);
+            }
+        }
+    }
+
+    private static float lengthNorm(int length, float avgLength) {
+        return K1 * (1 - B + B * length / avgLength);
+    }
+
+    /// Renumera los documentos vivos (0..liveCount-1) y quita de las listas los borrados.
+    private void compactLocked() {
+        int[] remap = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (live.get(doc)) {
+                remap[doc] = next;
+                productIds[next] = productIds[doc];
+                docLengths[next] = docLengths[doc];
+                lengthNorms[next] = lengthNorms[doc];
+                next++;
+            } else {
+                remap[doc] = -1;
+            }
+        }
+        postings.values().removeIf(list -> list.compact(remap) == 0);
+        docByProduct.replaceAll((product, doc) -> remap[doc]);
+        live.clear();
+        live.set(0, next);
+        docCount = next;
+    }
+
+    /// Suma al mapa los trigramas del texto (con el peso del campo) y devuelve cuántos había.
+    private static int collect(String text, int weight, Map<Long, Integer> tf) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        String normalized = normalize(text);
+        int count = 0;
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean end = i == normalized.length() || normalized.charAt(i) == ' ';
+            if (!end && start < 0) {
+                start = i;
+            } else if (end && start >= 0) {
+                count += forEachTrigram(normalized, start, i, true, t -> tf.merge(t, weight, Integer::sum));
+                start = -1;
+            }
+        }
+        return count * weight;
+    }
+
+    /// Trigramas distintos de la consulta. La última palabra se trata como prefijo (sin espacio final).
+    static long[] queryTrigrams(String query) {
+        if (query == null) {
+            return new long[0];
+        }
+        String normalized = normalize(query);
+        LongSet terms = new LongSet();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean end = i == normalized.length() || normalized.charAt(i) == ' ';
+            if (!end && start < 0) {
+                start = i;
+            } else if (end && start >= 0) {
+                forEachTrigram(normalized, start, i, i < normalized.length(), terms::add);
+                start = -1;
+            }
+        }
+        return terms.toArray();
+    }
+
+    private interface TrigramSink {
+        void accept(long trigram);
+    }
+
+    /// Trigramas de la palabra [start, end) con un espacio delante (y detrás si closed).
+    private static int forEachTrigram(String s, int start, int end, boolean closed, TrigramSink sink) {
+        int length = end - start + 1 + (closed ? 1 : 0);
+        int count = 0;
+        for (int i = 0; i + 3 <= length; i++) {
+            sink.accept(pack(charAt(s, start, end, i), charAt(s, start, end, i + 1), charAt(s, start, end, i + 2)));
+            count++;
+        }
+        if (count == 0) {
+            /// Palabra de una sola letra sin cerrar (" a"): no llega a formar un trigrama,
+            /// así que se usa la palabra completa " a ".
+            sink.accept(pack(' ', s.charAt(start), ' '));
+            count = 1;
+        }
+        return count;
+    }
+
+    /// Carácter i de " palabra " (posición 0 = espacio inicial).
+    private static char charAt(String s, int start, int end, int i) {
+        int pos = start + i - 1;
+        return pos < start || pos >= end ? ' ' : s.charAt(pos);
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /// Minúsculas, sin tildes y con cualquier signo convertido en espacio: "Pokémon: Rojo" → "pokemon  rojo".
+    static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder out = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            out.append(Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ');
+        }
+        return out.toString();
+    }
+
+    private static final class Postings {
+        int[] entries = new int[4];
+        int size;
+
+        void add(int doc, int tf) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = (doc << 8) | tf;
+        }
+
+        int compact(int[] remap) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = remap[entries[i] >>> 8];
+                if (doc >= 0) {
+                    entries[n++] = (doc << 8) | (entries[i] & 0xFF);
+                }
+            }
+            size = n;
+            return n;
+        }
+    }
+
+    /// Arrays de trabajo para acumular puntuaciones sin reservar memoria en cada búsqueda (ver scratchPool).
+    /// Solo se limpian las posiciones tocadas.
+    private static final class Scratch {
+        float[] score = new float[0];
+        short[] matched = new short[0];
+        int[] touched = new int[0];
+        int touchedCount;
+
+        void ensure(int docs) {
+            if (score.length < docs) {
+                int n = Math.max(docs, score.length * 2);
+                score = new float[n];
+                matched = new short[n];
+                touched = new int[n];
+            }
+        }
+    }
+
+    /// Montículo de mínimos con los k documentos de mayor puntuación (empates: el id de producto más bajo primero).
+    private static final class TopDocs {
+        private final int[] heap;
+        private final float[] score;
+        private final long[] productIds;
+        private int size;
+
+        TopDocs(int k, float[] score, long[] productIds) {
+            this.heap = new int[k];
+            this.score = score;
+            this.productIds = productIds;
+        }
+
+        void offer(int doc) {
+            if (heap.length == 0) {
+                return;
+            }
+            if (size < heap.length) {
+                heap[size] = doc;
+                up(size++);
+            } else if (better(doc, heap[0])) {
+                heap[0] = doc;
+                down(0);
+            }
+        }
+
+        int[] sorted() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = heap[0];
+                heap[0] = heap[--size];
+                down(0);
+            }
+            return out;
+        }
+
+        private boolean better(int a, int b) {
+            return score[a] > score[b] || (score[a] == score[b] && productIds[a] < productIds[b]);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(heap[parent], heap[i])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            for (;;) {
+                int left = 2 * i + 1;
+                int worst = i;
+                if (left < size && better(heap[worst], heap[left])) {
+                    worst = left;
+                }
+                if (left + 1 < size && better(heap[worst], heap[left + 1])) {
+                    worst = left + 1;
+                }
+                if (worst == i) {
+                    return;
+                }
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+    }
+
+    /// Trigramas de una consulta sin repetir. Se guardan todos y se deduplican al final ordenando:
+    /// O(n log n) también con consultas muy largas (comparar cada uno con los anteriores era O(n²)).
+    private static final class LongSet {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+
+        long[] toArray() {
+            Arrays.sort(values, 0, size);
+            int distinct = 0;
+            for (int i = 0; i < size; i++) {
+                if (distinct == 0 || values[i] != values[distinct - 1]) {
+                    values[distinct++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, distinct);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.ceac.demo1.services.catalog;
+
+/// Resultado de una carga masiva de productos (clave natural: title + platform).
+///
+/// @param inserted  productos nuevos
+/// @param updated   productos que ya existían y han cambiado
+/// @param unchanged productos que ya existían con el mismo contenido (no se han escrito)
+public record UpsertReport(long inserted, long updated, long unchanged) {
+
+    public static final UpsertReport EMPTY = new UpsertReport(0, 0, 0);
+
+    public UpsertReport plus(long inserted, long updated, long unchanged) {
+        return new UpsertReport(this.inserted + inserted, this.updated + updated, this.unchanged + unchanged);
+    }
+}
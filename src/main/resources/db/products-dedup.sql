@@ -0,0 +1,22 @@
+-- Productos repetidos (title, platform) antes de crear uk_products_title_platform (MySQL).
+--
+-- ddl-auto=update crea la clave única al arrancar, pero si la tabla ya tiene duplicados el
+-- ALTER TABLE falla y Hibernate solo lo anota como WARN. Sin la clave, las importaciones crearían
+-- más duplicados, así que ProductBatchWriter no deja arrancar la aplicación y remite aquí.
+--
+-- Uso (con la aplicación parada, y mejor con una copia de seguridad):
+--   mysql -u root -p ceacfp < src/main/resources/db/products-dedup.sql
+--
+-- 1. Cuántos sobran. La comparación usa la collation de las columnas (utf8mb4_0900_ai_ci: sin
+--    distinguir mayúsculas ni tildes), la misma que usará la clave única.
+SELECT COUNT(*) AS duplicados
+FROM products p
+JOIN products keep ON keep.title = p.title AND keep.platform = p.platform AND keep.id < p.id;
+
+-- 2. Se queda el de menor id de cada (title, platform).
+DELETE p
+FROM products p
+JOIN products keep ON keep.title = p.title AND keep.platform = p.platform AND keep.id < p.id;
+
+-- 3. La clave que no pudo crear ddl-auto=update.
+ALTER TABLE products ADD CONSTRAINT uk_products_title_platform UNIQUE (title, platform);
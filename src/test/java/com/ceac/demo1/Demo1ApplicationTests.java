@@ -2,8 +2,11 @@ package com.ceac.demo1;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
+/// Arranca la aplicación completa con el perfil "local" (H2 en memoria, sin MySQL).
 @SpringBootTest
+@ActiveProfiles("local")
 class Demo1ApplicationTests {
 
 	@Test
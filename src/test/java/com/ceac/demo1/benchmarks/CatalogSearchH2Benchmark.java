@@ -0,0 +1,76 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.Demo1Application;
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.load.CatalogGenerator;
+import com.ceac.demo1.repositories.IProductRepository;
+import com.ceac.demo1.services.ProductService;
+import com.ceac.demo1.services.catalog.ProductSearch;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/// GET /products/search de principio a fin (sin HTTP) con la aplicación real sobre H2 en memoria
+/// (perfil "local"), con 20 000 productos de {@link CatalogGenerator}:
+/// - index: ProductService.search → índice de trigramas + productos de la página por id (caché).
+/// - like:  la consulta que se usaba antes (y mientras el índice no está listo): LIKE '%q%' + count.
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="CatalogSearchH2Benchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class CatalogSearchH2Benchmark {
+
+    private static final int PRODUCTS = 20_000;
+
+    @Param({"elden", "souls dark"}) // "elden": la palabra más frecuente de CatalogGenerator
+    String query;
+
+    ConfigurableApplicationContext context;
+    ProductService products;
+    IProductRepository repo;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        SpringApplication app = new SpringApplication(Demo1Application.class);
+        app.setWebApplicationType(WebApplicationType.NONE);
+        app.setAdditionalProfiles("local");
+        /// Como argumentos (no propiedades por defecto) para que ganen a application.properties.
+        context = app.run("--spring.jpa.show-sql=false",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        products = context.getBean(ProductService.class);
+        repo = context.getBean(IProductRepository.class);
+
+        CatalogGenerator.generate(PRODUCTS, 42, 5_000, products::upsertAll);
+
+        /// El índice se construye al arrancar; hasta entonces search() usaría LIKE.
+        ProductSearch search = context.getBean(ProductSearch.class);
+        while (!search.isReady()) {
+            Thread.sleep(50);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<ProductModel> index() {
+        return products.search(query, 0, 20);
+    }
+
+    @Benchmark
+    public Page<ProductModel> like() {
+        return repo.findByTitleContainingIgnoreCase(query, PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,62 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.services.catalog.FacetIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/// Latencia de /products/filter (bitmaps + recuentos por faceta) con un catálogo sintético grande.
+///
+/// - "pc+rpg+discounted+under30": el ejemplo típico, cuatro facetas combinadas.
+/// - "pc": una sola faceta muy poco selectiva (1 de cada 4 productos).
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="FacetFilterBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class FacetFilterBenchmark {
+
+    private static final String[] PLATFORMS = {"PC", "PS5", "Xbox Series", "Switch"};
+    private static final String[] TAGS = {"rpg", "accion", "aventura", "openworld", "shooter", "lucha", "carreras",
+            "terror", "indie", "estrategia", "deportes", "puzle", "simulacion", "plataformas", "cooperativo", "retro"};
+
+    @Param({"300000"})
+    int products;
+
+    @Param({"pc+rpg+discounted+under30", "pc"})
+    String filter;
+
+    FacetIndex index;
+    Map<String, List<String>> selected;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        index = new FacetIndex();
+        for (int i = 1; i <= products; i++) {
+            String tags = TAGS[random.nextInt(TAGS.length)] + "," + TAGS[random.nextInt(TAGS.length)];
+            BigDecimal price = BigDecimal.valueOf(5 + random.nextInt(75));
+            int discount = random.nextInt(3) == 0 ? 5 * random.nextInt(17) : 0;
+            index.put(i, PLATFORMS[random.nextInt(PLATFORMS.length)], tags, price, discount);
+        }
+        selected = filter.equals("pc")
+                ? Map.of(FacetIndex.PLATFORM, List.of("pc"))
+                : Map.of(FacetIndex.PLATFORM, List.of("pc"),
+                         FacetIndex.TAG, List.of("rpg"),
+                         FacetIndex.DISCOUNT, FacetIndex.DISCOUNTED_BANDS,
+                         FacetIndex.PRICE, List.of("0-10", "10-20", "20-30"));
+    }
+
+    /// Página 50 de 20 resultados con todos los recuentos.
+    @Benchmark
+    public FacetIndex.Result filter() {
+        return index.filter(selected, 1000, 20);
+    }
+}
@@ -0,0 +1,42 @@
+package com.ceac.demo1.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/// Coste de BCrypt según el "strength" (cada punto más duplica el tiempo): hash de un registro
+/// y comprobación de un login. Sirve para elegir app.security.bcrypt.strength / target-ms
+/// en la máquina donde se va a desplegar.
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="PasswordHashBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    int strength;
+
+    BCryptPasswordEncoder encoder;
+    String hash;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("contraseña-de-prueba");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("contraseña-de-prueba");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("contraseña-de-prueba", hash);
+    }
+}
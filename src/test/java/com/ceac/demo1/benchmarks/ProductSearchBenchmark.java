@@ -0,0 +1,76 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.services.catalog.TrigramIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/// Latencia de una búsqueda en el índice de trigramas con un catálogo sintético grande.
+///
+/// Títulos de 2-4 palabras: 1 de cada 10 sale de una lista de palabras típicas de juegos y el resto
+/// de un vocabulario de 30 000 palabras inventadas (como un catálogo real, con muchas palabras raras).
+/// "nintendo" es el peor caso: es el editor de 1 de cada 6 productos.
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="ProductSearchBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "elden", "ring", "dark", "souls", "legend", "zelda", "mario", "kart", "pokemon", "rojo",
+            "final", "fantasy", "call", "duty", "warfare", "street", "fighter", "resident", "evil", "village",
+            "grand", "theft", "auto", "horizon", "forbidden", "west", "god", "war", "ragnarok", "spider",
+            "man", "miles", "morales", "halo", "infinite", "forza", "motorsport", "cyberpunk", "witcher", "hunt",
+            "monster", "hunter", "rise", "sunbreak", "animal", "crossing", "splatoon", "metroid", "dread", "persona"};
+    private static final String[] TAGS = {"rpg", "accion", "aventura", "openworld", "shooter", "lucha", "carreras", "terror"};
+    private static final String[] PUBLISHERS = {"Nintendo", "Sony", "Microsoft", "Capcom", "Bandai Namco", "Square Enix"};
+
+    @Param({"300000"})
+    int products;
+
+    @Param({"zel", "dark souls", "monster huntr rise", "nintendo"})
+    String query;
+
+    TrigramIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[30_000];
+        String syllables = "bacadafagalamanaparasatavazobekolumi";
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int k = 2 + random.nextInt(3); k > 0; k--) {
+                int at = random.nextInt(syllables.length() / 2) * 2;
+                word.append(syllables, at, at + 2);
+            }
+            vocabulary[i] = word.toString();
+        }
+
+        index = new TrigramIndex();
+        for (int i = 0; i < products; i++) {
+            int words = 2 + random.nextInt(3);
+            StringBuilder title = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                title.append(random.nextInt(10) == 0
+                        ? WORDS[random.nextInt(WORDS.length)]
+                        : vocabulary[random.nextInt(vocabulary.length)]).append(' ');
+            }
+            title.append(i); // títulos distintos
+            index.put(i + 1, title.toString(),
+                    TAGS[random.nextInt(TAGS.length)] + "," + TAGS[random.nextInt(TAGS.length)],
+                    PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+        }
+    }
+
+    /// Primera página de 20 resultados, como GET /products/search?q=...
+    @Benchmark
+    public TrigramIndex.Hits search() {
+        return index.search(query, 0, 20);
+    }
+}
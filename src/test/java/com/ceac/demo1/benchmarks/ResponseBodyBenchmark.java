@@ -0,0 +1,111 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/// Coste de escribir la respuesta de GET /products/{id} y de una página de 20 productos:
+/// - serialize:       Jackson convierte el objeto y escribe en la salida (lo que hace Spring MVC sin caché).
+/// - serializeGzip:   lo mismo comprimiendo al vuelo (lo que haría server.compression).
+/// - cached/cachedGzip: copiar los bytes que guarda ResponseBodyCache.
+///
+/// SampleTime para ver percentiles (p99); con "-prof gc" se ve también la memoria reservada por operación.
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="ResponseBodyBenchmark -prof gc"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx1g")
+public class ResponseBodyBenchmark {
+
+    @Param({"product", "page"})
+    String response;
+
+    ObjectMapper mapper;
+    Object value;
+    byte[] json;
+    byte[] gzip;
+    OutputStream sink;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) throws IOException {
+        /// Igual que el ObjectMapper de Spring Boot (fechas como texto, módulos de java.time...).
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductModel> products = new ArrayList<>();
+        for (int i = 1; i <= 20; i++) {
+            products.add(product(i));
+        }
+        value = response.equals("product") ? products.get(0) : new PageImpl<>(products, PageRequest.of(0, 20), 4000);
+        json = mapper.writeValueAsBytes(value);
+        var out = new java.io.ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(json);
+        }
+        gzip = out.toByteArray();
+        /// La salida de la respuesta: los bytes van al Blackhole, sin guardarlos.
+        sink = new OutputStream() {
+            @Override
+            public void write(int b) {
+                blackhole.consume(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                blackhole.consume(b);
+            }
+        };
+    }
+
+    private static ProductModel product(int i) {
+        ProductModel p = new ProductModel();
+        p.setId((long) i);
+        p.setTitle("Elden Ring Shadow of the Erdtree " + i);
+        p.setPlatform(i % 2 == 0 ? "PS5" : "PC");
+        p.setPrice(new BigDecimal("39.99"));
+        p.setDiscount(10);
+        p.setImageUrl("https://gaming-cdn.com/images/products/13652/616x353/elden-ring-shadow-of-the-erdtree-pc-juego-steam-europe-cover.jpg");
+        p.setDescription("Expansión de Elden Ring que lleva al jugador a la Tierra Sombría, con nuevas armas, "
+                + "jefes y zonas por explorar. Requiere el juego base para poder jugar.");
+        p.setReleaseDate(LocalDate.of(2024, 6, 21));
+        p.setPublisher("Bandai Namco");
+        p.setStock(100 + i);
+        p.setTags("rpg,openworld,soulslike");
+        return p;
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        mapper.writeValue(sink, value);
+    }
+
+    @Benchmark
+    public void serializeGzip() throws IOException {
+        try (GZIPOutputStream zip = new GZIPOutputStream(sink)) {
+            mapper.writeValue(zip, value);
+        }
+    }
+
+    @Benchmark
+    public void cached() throws IOException {
+        sink.write(json, 0, json.length);
+    }
+
+    @Benchmark
+    public void cachedGzip() throws IOException {
+        sink.write(gzip, 0, gzip.length);
+    }
+}
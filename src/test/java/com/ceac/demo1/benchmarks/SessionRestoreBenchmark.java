@@ -0,0 +1,104 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.services.auth.SessionJournal;
+import com.ceac.demo1.services.auth.SessionStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/// Tiempo de arranque con sesiones guardadas: SessionStore.restore() lee la foto (mmap) y reproduce
+/// el log, y deja todas las sesiones en el índice.
+///
+/// Cada medición parte de los mismos ficheros (una foto de "sessions" sesiones y un log con
+/// "logTail" altas más), copiados antes de medir. El tiempo incluye leer, decodificar los emails
+/// y llenar el índice; no incluye crear el índice vacío (eso pasa al construir el SessionStore).
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="SessionRestoreBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SessionRestoreBenchmark {
+
+    private static final Path SOURCE = Path.of("target/bench/restore-source");
+    private static final Path WORK = Path.of("target/bench/restore");
+
+    @Param({"1000000"})
+    int sessions;
+
+    @Param({"10000"})
+    int logTail;
+
+    /// Usuarios distintos: cada uno tiene varias sesiones abiertas.
+    @Param({"200000"})
+    int users;
+
+    SessionStore store;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        clean(SOURCE);
+        SessionStore writer = newStore(SOURCE);
+        writer.restore(); // abre el log
+        for (int i = 0; i < sessions; i++) {
+            writer.create(email(i));
+        }
+        writer.snapshot();
+        for (int i = 0; i < logTail; i++) {
+            writer.create(email(sessions + i));
+        }
+        /// Sin shutdown(): escribiría otra foto con todo y el log quedaría vacío.
+    }
+
+    @Setup(Level.Invocation)
+    public void copyJournal() throws IOException {
+        clean(WORK);
+        try (var files = Files.list(SOURCE)) {
+            for (Path file : files.toList()) {
+                Files.copy(file, WORK.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        store = null;
+        /// El índice de la medición anterior es basura de cientos de MB: se recoge aquí, fuera de la
+        /// medición, porque en un arranque real no existe.
+        System.gc();
+        store = newStore(WORK);
+    }
+
+    @Benchmark
+    public int restore() {
+        store.restore();
+        return store.size();
+    }
+
+    @TearDown(Level.Invocation)
+    public void check() {
+        if (store.size() != sessions + logTail) {
+            throw new IllegalStateException("Restauradas " + store.size() + " de " + (sessions + logTail));
+        }
+        store.shutdown();
+    }
+
+    private SessionStore newStore(Path dir) {
+        return new SessionStore(1_800_000, 86_400_000, sessions + logTail, new SessionJournal(true, dir.toString()));
+    }
+
+    private String email(int session) {
+        return "user" + (session % users) + "@example.com";
+    }
+
+    private static void clean(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
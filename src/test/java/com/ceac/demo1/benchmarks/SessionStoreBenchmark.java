@@ -0,0 +1,138 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.services.auth.JwtTokens;
+import com.ceac.demo1.services.auth.SessionJournal;
+import com.ceac.demo1.services.auth.SessionStore;
+import com.ceac.demo1.services.auth.TokenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/// Compara el índice compacto de sesiones con el mapa original (UUID String -> email String).
+///
+/// - requireUser / legacyRequireUser: latencia de validar un "Bearer ..." ya existente.
+/// - En el @Setup se imprimen los bytes por sesión de cada estructura (diferencia de heap tras GC).
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="SessionStoreBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionStoreBenchmark {
+
+    @Param({"100000"})
+    int sessions;
+
+    /// Número de usuarios distintos: cada uno tiene varias sesiones abiertas (móvil, web...).
+    @Param({"20000"})
+    int users;
+
+    TokenService tokenService;
+    LegacyTokens legacy;
+    String[] headers;
+    String[] legacyHeaders;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        printFootprint();
+
+        tokenService = newTokenService();
+        headers = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            headers[i] = "Bearer " + tokenService.createToken(email(i % users));
+        }
+        legacy = new LegacyTokens();
+        legacyHeaders = new String[sessions];
+        for (int i = 0; i < sessions; i++) {
+            legacyHeaders[i] = "Bearer " + legacy.createToken(email(i % users));
+        }
+    }
+
+    /// Memoria retenida por cada almacén lleno (los tokens devueltos se descartan: son del cliente).
+    private void printFootprint() {
+        long before = usedHeap();
+        TokenService index = newTokenService();
+        for (int i = 0; i < sessions; i++) {
+            index.createToken(email(i % users));
+        }
+        long indexBytes = usedHeap() - before;
+
+        before = usedHeap();
+        LegacyTokens map = new LegacyTokens();
+        for (int i = 0; i < sessions; i++) {
+            map.createToken(email(i % users));
+        }
+        long mapBytes = usedHeap() - before;
+
+        System.out.printf("%nBytes por sesión con %d sesiones y %d usuarios: índice=%d mapa=%d%n",
+                sessions, users, indexBytes / sessions, mapBytes / sessions);
+        if (index.stats().size() != sessions || map.sessions.size() != sessions) {
+            throw new IllegalStateException("Almacenes incompletos");
+        }
+    }
+
+    private TokenService newTokenService() {
+        SessionStore store = new SessionStore(1_800_000, 86_400_000, sessions, new SessionJournal(false, "target/bench"));
+        return new TokenService(store,
+                new JwtTokens("clave-de-benchmark-con-al-menos-32-bytes", 86_400_000, 4096, 1024), "session");
+    }
+
+    @Benchmark
+    public String requireUser(Cursor cursor) {
+        int i = cursor.i++;
+        if (cursor.i == headers.length) cursor.i = 0;
+        return tokenService.requireUser(headers[i]);
+    }
+
+    @Benchmark
+    public String legacyRequireUser(Cursor cursor) {
+        int i = cursor.i++;
+        if (cursor.i == legacyHeaders.length) cursor.i = 0;
+        return legacy.requireUser(legacyHeaders[i]);
+    }
+
+    /// Cada login trae su propio String con el email (viene del JSON de la petición).
+    private static String email(int user) {
+        return new String(("user" + user + "@example.com").toCharArray());
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /// Copia del TokenService original: UUID como String y un ConcurrentHashMap token -> email.
+    static final class LegacyTokens {
+        private final Map<String, String> sessions = new ConcurrentHashMap<>();
+
+        String createToken(String email) {
+            String token = UUID.randomUUID().toString();
+            sessions.put(token, email);
+            return token;
+        }
+
+        String requireUser(String authorizationHeader) {
+            if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+                throw new IllegalStateException("401");
+            }
+            String email = sessions.get(authorizationHeader.substring(7));
+            if (email == null) {
+                throw new IllegalStateException("401");
+            }
+            return email;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.ceac.demo1.benchmarks;
+
+import com.ceac.demo1.services.auth.JwtTokens;
+import com.ceac.demo1.services.auth.SessionJournal;
+import com.ceac.demo1.services.auth.SessionStore;
+import com.ceac.demo1.services.auth.TokenService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/// TokenService con varios hilos a la vez (como varias peticiones concurrentes):
+/// - createToken: login (en modo session escribe en el almacén compartido).
+/// - requireUser: lo que hace AuthFilter en cada petición protegida (header "Bearer ...").
+/// Cada hilo valida tokens distintos, repartidos entre 10 000 sesiones vivas.
+///
+/// ./mvnw -Pbench -DskipTests verify -Djmh.args="TokenServiceBenchmark"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class TokenServiceBenchmark {
+
+    private static final int TOKENS = 10_000;
+
+    @Param({"session", "jwt"})
+    String mode;
+
+    TokenService tokens;
+    String[] headers;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int i;
+        long created;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SessionStore store = new SessionStore(1_800_000, 86_400_000, 1_000_000, new SessionJournal(false, "target/bench"));
+        tokens = new TokenService(store,
+                new JwtTokens("clave-de-benchmark-con-al-menos-32-bytes", 86_400_000, 4096, 1024), mode);
+        headers = new String[TOKENS];
+        for (int i = 0; i < TOKENS; i++) {
+            headers[i] = "Bearer " + tokens.createToken("user" + i + "@example.com");
+        }
+    }
+
+    @Benchmark
+    public String createToken(Cursor cursor) {
+        return tokens.createToken("login" + (cursor.created++ & 1023) + "@example.com");
+    }
+
+    @Benchmark
+    public String requireUser(Cursor cursor) {
+        int i = cursor.i;
+        cursor.i = (i + 7) % TOKENS;
+        return tokens.requireUser(headers[i]);
+    }
+}
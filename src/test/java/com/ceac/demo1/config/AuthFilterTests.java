@@ -0,0 +1,58 @@
+package com.ceac.demo1.config;
+
+import com.ceac.demo1.services.auth.SessionJournal;
+import com.ceac.demo1.services.auth.SessionStore;
+import com.ceac.demo1.services.auth.TokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuthFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SessionStore sessions = new SessionStore(60_000, 3_600_000, 10, new SessionJournal(false, "data/sessions"));
+    private final AuthFilter filter = new AuthFilter(new TokenService(sessions, null, "session"),
+            new String[]{"/auth/**"}, registry);
+
+    /// Un error del controlador con un token válido no es un 401 ni cuenta como token inválido.
+    @Test
+    void errorsAfterAuthenticationPropagate() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addHeader("Authorization", "Bearer " + sessions.create("a@mail.com"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        IllegalStateException failure = new IllegalStateException("fallo del controlador");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request, response, (req, res) -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown);
+        assertEquals(200, response.getStatus());
+        assertEquals(0, rejections("invalid"));
+        assertEquals(0, rejections("missing"));
+    }
+
+    @Test
+    void invalidTokensAreRejectedWithoutCallingTheChain() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        request.addHeader("Authorization", "Bearer nope");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            throw new AssertionError("no debe llegar al controlador");
+        });
+
+        assertEquals(401, response.getStatus());
+        assertEquals(1, rejections("invalid"));
+    }
+
+    private double rejections(String reason) {
+        return registry.get("auth.filter.rejections").tag("reason", reason).counter().count();
+    }
+}
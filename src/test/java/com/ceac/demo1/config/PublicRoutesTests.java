@@ -0,0 +1,27 @@
+package com.ceac.demo1.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PublicRoutesTests {
+
+    /// Debe decidir lo mismo que el AntPathMatcher que sustituye.
+    @Test
+    void matchesLikeAntPathMatcher() {
+        String[] routes = {"/auth/**", "/actuator/**", "/health", "/docs/*/index.html"};
+        PublicRoutes publicRoutes = new PublicRoutes(routes);
+        AntPathMatcher ant = new AntPathMatcher();
+
+        String[] paths = {"/auth", "/auth/", "/auth/login", "/authx", "/actuator/health/db", "/health",
+                "/health/x", "/docs/v1/index.html", "/docs/v1/v2/index.html", "/products", "/", ""};
+        for (String path : paths) {
+            boolean expected = false;
+            for (String route : routes) {
+                expected |= ant.match(route, path);
+            }
+            assertEquals(expected, publicRoutes.matches(path), path);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.ceac.demo1.config;
+
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Aserciones sobre el número de sentencias SQL que ejecuta un bloque de código (una llamada a un
+/// servicio, una o varias peticiones de MockMvc...). Usan el mismo contador que la métrica
+/// hibernate.statements.per.request ({@link SqlStatementMetrics}), así que cuentan también lo que
+/// pase en los hilos virtuales de /auth.
+///
+///   assertStatements(2, () -> mvc.perform(get("/products")));
+///
+/// Si falla, el mensaje lista las sentencias ejecutadas y cuántas veces cada una.
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    /// Ejecuta "work" y devuelve las sentencias que ha lanzado.
+    public static RequestStatements statements(Executable work) throws Throwable {
+        RequestStatements statements = SqlStatementMetrics.begin();
+        try {
+            work.execute();
+        } finally {
+            SqlStatementMetrics.end(statements);
+        }
+        return statements;
+    }
+
+    public static void assertStatements(int expected, Executable work) throws Throwable {
+        RequestStatements statements = statements(work);
+        assertEquals(expected, statements.count(), () -> "Sentencias SQL:\n" + describe(statements));
+    }
+
+    /// Ninguna sentencia repetida "threshold" veces o más (N+1).
+    public static void assertNoRepeatedStatements(int threshold, Executable work) throws Throwable {
+        RequestStatements statements = statements(work);
+        assertTrue(statements.repeated(threshold).isEmpty(), () -> "Posible N+1:\n" + describe(statements));
+    }
+
+    private static String describe(RequestStatements statements) {
+        return statements.bySql().entrySet().stream()
+                .map(e -> "  " + e.getValue() + "x " + e.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.ceac.demo1.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/// El límite de 30 min de la exportación no debe aplicarse a las demás peticiones asíncronas (/auth).
+/// app.catalog.export.timeout-ms=1800000 (application.properties); mismo contexto que EndpointStatementCountTests.
+@SpringBootTest(properties = "app.security.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class AsyncTimeoutTests {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Test
+    void onlyTheExportGetsTheLongTimeout() throws Exception {
+        MvcResult register = mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"timeout@example.com\",\"password\":\"secret123\",\"firstName\":\"a\",\"lastName\":\"b\"}"))
+                .andReturn();
+        assertTrue(register.getRequest().isAsyncStarted());
+        assertNotEquals(1_800_000L, register.getRequest().getAsyncContext().getTimeout());
+        String token = mapper.readTree(mvc.perform(asyncDispatch(register)).andReturn().getResponse().getContentAsString())
+                .get("token").asText();
+
+        MvcResult export = mvc.perform(get("/products/export").header("Authorization", "Bearer " + token)).andReturn();
+        assertTrue(export.getRequest().isAsyncStarted());
+        assertEquals(1_800_000L, export.getRequest().getAsyncContext().getTimeout());
+    }
+}
@@ -0,0 +1,78 @@
+package com.ceac.demo1.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/// ETag y 304 de las lecturas del catálogo: el cuerpo gzip y el JSON sin comprimir son bytes distintos
+/// y llevan ETag distintos. Mismo contexto que EndpointStatementCountTests.
+@SpringBootTest(properties = "app.security.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class ConditionalResponseTests {
+
+    /// Una página de 20 productos del seed pasa de app.catalog.response-cache.gzip-min-bytes.
+    private static final String PAGE = "/products?page=0&size=20";
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    private String token;
+
+    @BeforeEach
+    void register() throws Exception {
+        MvcResult result = mvc.perform(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"etag-" + System.nanoTime() + "@example.com\",\"password\":\"secret123\","
+                        + "\"firstName\":\"a\",\"lastName\":\"b\"}")).andReturn();
+        result = mvc.perform(asyncDispatch(result)).andReturn();
+        token = mapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+
+    @Test
+    void eachEncodingHasItsOwnEtag() throws Exception {
+        MvcResult gzip = call(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "gzip"));
+        MvcResult plain = call(get(PAGE));
+        assertEquals(200, gzip.getResponse().getStatus());
+        assertEquals("gzip", gzip.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertNull(plain.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+
+        String gzipEtag = gzip.getResponse().getHeader(HttpHeaders.ETAG);
+        String plainEtag = plain.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(gzipEtag, plainEtag);
+
+        assertEquals(304, call(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, gzipEtag)).getResponse().getStatus());
+        assertEquals(304, call(get(PAGE).header(HttpHeaders.IF_NONE_MATCH, plainEtag)).getResponse().getStatus());
+
+        /// El ETag de una codificación no valida la otra: se envía el cuerpo que toca.
+        MvcResult crossed = call(get(PAGE).header(HttpHeaders.IF_NONE_MATCH, gzipEtag));
+        assertEquals(200, crossed.getResponse().getStatus());
+        assertNull(crossed.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(plainEtag, crossed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(200, call(get(PAGE).header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .header(HttpHeaders.IF_NONE_MATCH, plainEtag)).getResponse().getStatus());
+    }
+
+    private MvcResult call(MockHttpServletRequestBuilder request) throws Exception {
+        return mvc.perform(request.header("Authorization", "Bearer " + token)).andReturn();
+    }
+}
@@ -0,0 +1,124 @@
+package com.ceac.demo1.controllers;
+
+import com.ceac.demo1.services.catalog.ProductCache;
+import com.ceac.demo1.services.catalog.ProductSearch;
+import com.ceac.demo1.services.catalog.ProductsChangedEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.UUID;
+
+import static com.ceac.demo1.config.SqlStatementAssertions.assertStatements;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/// Número de sentencias SQL de cada endpoint. Si un cambio añade consultas (un N+1, un count de más...),
+/// falla aquí con la lista de sentencias. Cada test usa parámetros propios para no depender de las
+/// cachés que hayan llenado los demás.
+@SpringBootTest(properties = "app.security.bcrypt.strength=4")
+@AutoConfigureMockMvc
+@ActiveProfiles("local")
+class EndpointStatementCountTests {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Autowired
+    ProductSearch search;
+
+    @Autowired
+    ProductCache cache;
+
+    private String email;
+    private String token;
+
+    @BeforeEach
+    void register() throws Throwable {
+        email = "sql-" + UUID.randomUUID() + "@example.com";
+        // existsByEmail + insert
+        assertStatements(2, () -> token = token(call(post("/auth/register").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"secret123\",\"firstName\":\"a\",\"lastName\":\"b\"}"))));
+    }
+
+    @Test
+    void login() throws Throwable {
+        // findByEmail
+        assertStatements(1, () -> call(post("/auth/login").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"password\":\"secret123\"}")));
+    }
+
+    @Test
+    void productPageIsDataPlusCountThenCached() throws Throwable {
+        assertStatements(2, () -> call(get("/products?page=1&size=7")));
+        assertStatements(0, () -> call(get("/products?page=1&size=7")));
+    }
+
+    @Test
+    void productByIdIsOneSelectThenCached() throws Throwable {
+        assertStatements(1, () -> call(get("/products/3")));
+        assertStatements(0, () -> call(get("/products/3")));
+    }
+
+    @Test
+    void searchLoadsThePageInOneQuery() throws Throwable {
+        while (!search.isReady()) {
+            Thread.sleep(20);
+        }
+        /// Sin caché, los 5 productos de la página son fallos y se leen juntos (findAllById).
+        cache.onProductsChanged(ProductsChangedEvent.everything());
+        // "edition" aparece en 9 productos del seed: la página de 5 va llena
+        assertStatements(1, () -> assertEquals(5, mapper.readTree(call(get("/products/search?q=edition&size=5"))
+                .getResponse().getContentAsString()).get("content").size()));
+    }
+
+    @Test
+    void updateUser() throws Throwable {
+        long id = idOf(email);
+        // findById + update
+        assertStatements(2, () -> call(put("/user/" + id).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"" + email + "\",\"firstName\":\"c\",\"lastName\":\"d\"}")));
+    }
+
+    private long idOf(String email) throws Exception {
+        JsonNode users = mapper.readTree(call(get("/user?size=100")).getResponse().getContentAsString()).get("content");
+        for (JsonNode user : users) {
+            if (user.get("email").asText().equals(email)) {
+                return user.get("id").asLong();
+            }
+        }
+        throw new AssertionError("No está " + email);
+    }
+
+    /// Hace la petición (con token si ya lo hay), espera a las asíncronas y comprueba que es 200.
+    private MvcResult call(MockHttpServletRequestBuilder request) throws Exception {
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        MvcResult result = mvc.perform(request).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals(200, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        return result;
+    }
+
+    private String token(MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsString()).get("token").asText();
+    }
+}
@@ -0,0 +1,42 @@
+package com.ceac.demo1.controllers;
+
+import com.ceac.demo1.exceptions.ExportBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExportSlotsTests {
+
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("GET", "/products/export"));
+
+    @Test
+    void rejectsExportsOverTheLimitUntilOneFinishes() throws IOException {
+        ExportSlots slots = new ExportSlots(2);
+        StreamingResponseBody first = slots.limit(request, out -> out.write('a'));
+        slots.limit(request, out -> {});
+
+        assertThrows(ExportBusyException.class, () -> slots.limit(request, out -> {}));
+
+        first.writeTo(new ByteArrayOutputStream());
+        slots.limit(request, out -> {});
+    }
+
+    @Test
+    void aFailedExportFreesItsSlot() {
+        ExportSlots slots = new ExportSlots(1);
+        StreamingResponseBody failing = slots.limit(request, out -> {
+            throw new IOException("el cliente ha cortado la descarga");
+        });
+
+        assertThrows(IOException.class, () -> failing.writeTo(new ByteArrayOutputStream()));
+        assertThrows(IOException.class, () -> failing.writeTo(new ByteArrayOutputStream())); // no libera dos veces
+        slots.limit(request, out -> {});
+        assertThrows(ExportBusyException.class, () -> slots.limit(request, out -> {}));
+    }
+}
@@ -0,0 +1,82 @@
+package com.ceac.demo1.load;
+
+import com.ceac.demo1.entities.ProductModel;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/// Catálogo sintético de cualquier tamaño para pruebas de carga y benchmarks.
+///
+/// Siempre genera los mismos productos para la misma semilla (las ejecuciones se pueden comparar).
+/// Las palabras de los títulos siguen una distribución tipo Zipf: unas pocas ("elden", "mario"...)
+/// aparecen en muchos productos y la mayoría en muy pocos, como en un catálogo real.
+/// Se entrega por bloques para no tener millones de productos en memoria a la vez.
+public final class CatalogGenerator {
+
+    /// Palabras que se usan también como búsquedas en las pruebas (las primeras son las más frecuentes).
+    public static final String[] WORDS = {
+            "elden", "ring", "mario", "zelda", "dark", "souls", "legend", "kart", "pokemon", "final",
+            "fantasy", "call", "duty", "street", "fighter", "resident", "evil", "horizon", "halo", "forza",
+            "grand", "theft", "auto", "god", "war", "spider", "man", "cyberpunk", "witcher", "monster",
+            "hunter", "animal", "crossing", "splatoon", "metroid", "persona", "tekken", "sonic", "fifa", "minecraft"};
+    private static final String[] PLATFORMS = {"PC", "PS5", "PS4", "XBOX", "SWITCH"};
+    private static final String[] TAGS = {"rpg", "accion", "aventura", "openworld", "shooter", "lucha", "carreras", "terror"};
+
+    private CatalogGenerator() {
+    }
+
+    /// Todos los productos en una lista (para tamaños pequeños).
+    public static List<ProductModel> generate(int count, long seed) {
+        List<ProductModel> all = new ArrayList<>(count);
+        generate(count, seed, count, all::addAll);
+        return all;
+    }
+
+    /// "count" productos entregados en listas de como mucho "chunkSize".
+    public static void generate(int count, long seed, int chunkSize, Consumer<List<ProductModel>> chunks) {
+        Random random = new Random(seed);
+        List<ProductModel> chunk = new ArrayList<>(Math.min(count, chunkSize));
+        for (int i = 0; i < count; i++) {
+            chunk.add(product(i, random));
+            if (chunk.size() == chunkSize) {
+                chunks.accept(chunk);
+                chunk = new ArrayList<>(Math.min(count - i - 1, chunkSize));
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.accept(chunk);
+        }
+    }
+
+    /// Una palabra con probabilidad aproximadamente proporcional a 1/rango.
+    public static String word(Random random) {
+        double u = random.nextDouble();
+        int rank = (int) Math.floor(Math.pow(WORDS.length + 1, u)) - 1;
+        return WORDS[Math.min(rank, WORDS.length - 1)];
+    }
+
+    private static ProductModel product(int i, Random random) {
+        ProductModel p = new ProductModel();
+        int words = 2 + random.nextInt(3);
+        StringBuilder title = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            title.append(word(random)).append(' ');
+        }
+        /// El número hace único el par (title, platform), que es la clave natural del upsert.
+        p.setTitle(title.append(i).toString());
+        p.setPlatform(PLATFORMS[random.nextInt(PLATFORMS.length)]);
+        p.setPrice(BigDecimal.valueOf(499 + random.nextInt(7000), 2));
+        p.setDiscount(random.nextInt(4) == 0 ? 0 : random.nextInt(80));
+        p.setImageUrl("https://cdn.example.com/products/" + i + ".jpg");
+        p.setDescription("Producto de prueba " + i + " generado para las pruebas de carga del catálogo.");
+        p.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(random.nextInt(9000)));
+        p.setPublisher("Editor " + random.nextInt(300));
+        p.setStock(random.nextInt(500));
+        p.setTags(TAGS[random.nextInt(TAGS.length)] + "," + TAGS[random.nextInt(TAGS.length)]);
+        return p;
+    }
+}
@@ -0,0 +1,258 @@
+package com.ceac.demo1.load;
+
+import com.ceac.demo1.load.LatencyRecorder.Summary;
+import com.ceac.demo1.services.ProductService;
+import com.ceac.demo1.services.catalog.ProductSearch;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Prueba de carga de extremo a extremo: la aplicación completa (Tomcat + H2 en memoria, perfil "local")
+/// con un catálogo sintético y muchos clientes, cada uno en su hilo virtual, que hacen una mezcla de
+/// GET /products, GET /products/search y login/logout. Las latencias van a histogramas HdrHistogram.
+///
+/// No se ejecuta con "mvn test" (etiqueta "load"); se lanza con el perfil "load":
+///   ./mvnw -Pload test -Dload.update-baseline=true   (primera vez en esta máquina: guarda la base)
+///   ./mvnw -Pload test
+///   ./mvnw -Pload test -Dload.products=200000 -Dload.clients=256 -Dload.duration-seconds=60
+///
+/// Resultado en target/load (load.report-dir): report.json (resumen por endpoint) y un .hgrm por endpoint.
+///
+/// Hilos de plataforma frente a virtuales (perfil "virtual"), sin login para medir solo lecturas
+/// (la primera vez, con -Dload.update-baseline=true):
+///   ./mvnw -Pload test -Dload.clients=400 -Dload.search-percent=30 \
+///       -Dload.report-dir=target/load-platform -Dload.baseline=target/load-platform/baseline.json
+///   ./mvnw -Pload test -Dload.clients=400 -Dload.search-percent=30 -Dspring.profiles.include=virtual \
+///       -Dload.report-dir=target/load-virtual -Dload.baseline=target/load-virtual/baseline.json
+/// La prueba se compara con la línea base (load.baseline, por defecto load-baseline.json) y falla cuando
+/// el p99 o las peticiones/s empeoran más de lo permitido, o cuando los errores pasan de load.max-error-rate
+/// (ver {@link LoadBaseline}). Si la base no existe la prueba falla: no se crea sola, porque entonces la
+/// primera ejecución (aunque sea lenta) se daría por buena. Se crea o se sustituye a propósito con
+/// -Dload.update-baseline=true. La base solo vale para la máquina en la que se midió: hay que generarla
+/// en la misma máquina (o runner de CI) en la que se compara, y por eso no está en el repositorio.
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=WARN",
+        "logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+        /// Coste fijo (sin calibrar) para que el login cueste lo mismo en todas las ejecuciones.
+        "app.security.bcrypt.strength=${load.bcrypt-strength:10}",
+        /// Todos los clientes vienen de 127.0.0.1 y repiten login: sin límite de intentos.
+        "app.auth.throttle.enabled=false"})
+@ActiveProfiles("local")
+class CatalogLoadTests {
+
+    private static final int PRODUCTS = Integer.getInteger("load.products", 20_000);
+    private static final int USERS = Integer.getInteger("load.users", 32);
+    private static final int CLIENTS = Integer.getInteger("load.clients", 64);
+    private static final int WARMUP_SECONDS = Integer.getInteger("load.warmup-seconds", 5);
+    private static final int DURATION_SECONDS = Integer.getInteger("load.duration-seconds", 20);
+    /// Porcentaje de cada operación; el resto hasta 100 es login + logout.
+    private static final int LIST_PERCENT = Integer.getInteger("load.list-percent", 70);
+    private static final int SEARCH_PERCENT = Integer.getInteger("load.search-percent", 25);
+    private static final Path BASELINE = Path.of(System.getProperty("load.baseline", "load-baseline.json"));
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load"));
+    private static final String PASSWORD = "contraseña-de-carga";
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ProductService products;
+
+    @Autowired
+    ProductSearch search;
+
+    @Autowired
+    ObjectMapper mapper;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    boolean virtualThreads;
+
+    private HttpClient http;
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    @Test
+    void mixedWorkload() throws Exception {
+        CatalogGenerator.generate(PRODUCTS, 42, 5_000, products::upsertAll);
+        while (!search.isReady()) {
+            Thread.sleep(50);
+        }
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            http = HttpClient.newBuilder().executor(clients).connectTimeout(Duration.ofSeconds(5)).build();
+            register();
+
+            List<Future<?>> workers = new ArrayList<>(CLIENTS);
+            CountDownLatch loggedIn = new CountDownLatch(CLIENTS);
+            for (int c = 0; c < CLIENTS; c++) {
+                String email = email(c % USERS);
+                workers.add(clients.submit(() -> client(email, loggedIn)));
+            }
+            /// El primer login de todos los clientes (BCrypt) no es parte de la medición.
+            loggedIn.await();
+            Thread.sleep(WARMUP_SECONDS * 1000L);
+            measuring = true;
+            long start = System.nanoTime();
+            Thread.sleep(DURATION_SECONDS * 1000L);
+            measuring = false;
+            double seconds = (System.nanoTime() - start) / 1e9;
+            running = false;
+            for (Future<?> client : workers) {
+                client.get();
+            }
+            report(latencies.summaries(seconds));
+        }
+    }
+
+    /// Crea los usuarios de la prueba (el registro también calcula BCrypt: de pocos en pocos).
+    private void register() throws Exception {
+        for (int u = 0; u < USERS; u++) {
+            String body = mapper.writeValueAsString(Map.of(
+                    "email", email(u), "password", PASSWORD, "firstName", "Carga", "lastName", String.valueOf(u)));
+            HttpResponse<String> response = http.send(post("/auth/register", body, null), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode(), response.body());
+        }
+    }
+
+    /// Un cliente: inicia sesión y repite operaciones hasta el final, una detrás de otra (sin pausas).
+    private void client(String email, CountDownLatch loggedIn) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String token = login(email);
+        while (token == null) {
+            /// Con muchos clientes a la vez el pool de hash responde 503: se reintenta poco después.
+            LockSupport.parkNanos(50_000_000);
+            token = login(email);
+        }
+        loggedIn.countDown();
+        while (running) {
+            int dice = random.nextInt(100);
+            if (token == null) {
+                token = login(email);
+            } else if (dice < LIST_PERCENT) {
+                call("products", get("/products?page=" + random.nextInt(50) + "&size=20", token));
+            } else if (dice < LIST_PERCENT + SEARCH_PERCENT) {
+                String q = URLEncoder.encode(CatalogGenerator.word(random), StandardCharsets.UTF_8);
+                call("search", get("/products/search?q=" + q + "&size=20", token));
+            } else {
+                call("logout", post("/auth/logout", "", token));
+                token = login(email);
+            }
+        }
+    }
+
+    private String login(String email) {
+        String body = "{\"email\":\"" + email + "\",\"password\":\"" + PASSWORD + "\"}";
+        HttpResponse<String> response = call("login", post("/auth/login", body, null));
+        if (response == null) {
+            return null;
+        }
+        try {
+            return mapper.readTree(response.body()).get("token").asText();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /// Envía la petición y registra su latencia (o un error si no es 200). Devuelve null si falla.
+    private HttpResponse<String> call(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+            if (response.statusCode() != 200) {
+                if (measuring) latencies.error(endpoint);
+                return null;
+            }
+            if (measuring) latencies.record(endpoint, elapsed);
+            return response;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (measuring) latencies.error(endpoint);
+            return null;
+        }
+    }
+
+    private HttpRequest get(String path, String token) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + token).GET().build();
+    }
+
+    private HttpRequest post(String path, String json, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String email(int user) {
+        return "carga" + user + "@example.com";
+    }
+
+    private void report(Map<String, Summary> summaries) throws Exception {
+        LoadBaseline.write(REPORT_DIR.resolve("report.json"), summaries);
+        latencies.writeDistributions(REPORT_DIR);
+
+        System.out.printf("%nPrueba de carga: %d productos, %d clientes, %d s, hilos %s%n", PRODUCTS, CLIENTS,
+                DURATION_SECONDS, virtualThreads ? "virtuales" : "de plataforma");
+        System.out.printf("%-10s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "peticiones", "errores", "pet/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        summaries.forEach((endpoint, s) -> System.out.printf("%-10s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, s.requests(), s.errors(), s.throughput(), s.p50Ms(), s.p90Ms(), s.p99Ms(), s.p999Ms(), s.maxMs()));
+
+        LoadBaseline gate = new LoadBaseline(
+                Double.parseDouble(System.getProperty("load.p99-tolerance", "0.25")),
+                Double.parseDouble(System.getProperty("load.throughput-tolerance", "0.20")),
+                Double.parseDouble(System.getProperty("load.p99-floor-ms", "2")),
+                Double.parseDouble(System.getProperty("load.max-error-rate", "0.01")));
+        if (Boolean.getBoolean("load.update-baseline")) {
+            /// Una ejecución con errores no sirve de base: se comprueba antes de guardarla.
+            List<String> errors = gate.errorRates(summaries);
+            assertTrue(errors.isEmpty(), "No se guarda la línea base:\n" + String.join("\n", errors));
+            LoadBaseline.write(BASELINE, summaries);
+            System.out.println("Línea base guardada en " + BASELINE.toAbsolutePath());
+            return;
+        }
+        assertTrue(Files.exists(BASELINE), "No existe la línea base " + BASELINE.toAbsolutePath()
+                + "; se genera en esta máquina con -Dload.update-baseline=true");
+        List<String> regressions = gate.regressions(LoadBaseline.read(BASELINE), summaries);
+        assertTrue(regressions.isEmpty(), "Regresiones respecto a " + BASELINE + ":\n" + String.join("\n", regressions));
+    }
+}
@@ -0,0 +1,71 @@
+package com.ceac.demo1.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/// Latencias por endpoint en histogramas HdrHistogram (microsegundos, 3 cifras significativas):
+/// guardan la distribución completa con memoria fija, así que p99/p99.9 son exactos y no una media.
+/// Varios hilos pueden registrar a la vez (ConcurrentHistogram).
+public class LatencyRecorder {
+
+    /// Resumen de un endpoint; es lo que se guarda como línea base.
+    public record Summary(long requests, long errors, double throughput,
+                          double p50Ms, double p90Ms, double p99Ms, double p999Ms, double maxMs) {}
+
+    private static final long MAX_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    /// Una respuesta correcta que ha tardado "nanos".
+    public void record(String endpoint, long nanos) {
+        long micros = Math.max(1, Math.min(MAX_MICROS, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        histograms.computeIfAbsent(endpoint, e -> new ConcurrentHistogram(MAX_MICROS, 3)).recordValue(micros);
+    }
+
+    /// Un error (estado HTTP inesperado o excepción): no entra en el histograma.
+    public void error(String endpoint) {
+        errors.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+    }
+
+    /// Resumen por endpoint (orden alfabético); "seconds" es la duración de la medición.
+    public Map<String, Summary> summaries(double seconds) {
+        Map<String, Summary> result = new LinkedHashMap<>();
+        /// También los endpoints que solo han dado errores (sin histograma), para que cuenten en la tasa de error.
+        Stream.concat(histograms.keySet().stream(), errors.keySet().stream()).distinct().sorted().forEach(endpoint -> {
+            Histogram h = histograms.computeIfAbsent(endpoint, e -> new ConcurrentHistogram(MAX_MICROS, 3));
+            LongAdder failed = errors.get(endpoint);
+            result.put(endpoint, new Summary(h.getTotalCount(), failed == null ? 0 : failed.sum(),
+                    h.getTotalCount() / seconds, ms(h.getValueAtPercentile(50)), ms(h.getValueAtPercentile(90)),
+                    ms(h.getValueAtPercentile(99)), ms(h.getValueAtPercentile(99.9)), ms(h.getMaxValue())));
+        });
+        return result;
+    }
+
+    /// Escribe la distribución completa de cada endpoint (formato .hgrm, se puede dibujar con
+    /// HistogramLogAnalyzer o hdrhistogram.github.io/HdrHistogram/plotFiles.html).
+    public void writeDistributions(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Path file = dir.resolve(entry.getKey() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue().outputPercentileDistribution(out, 1000.0); // en milisegundos
+            }
+        }
+    }
+
+    private static double ms(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.ceac.demo1.load;
+
+import com.ceac.demo1.load.LatencyRecorder.Summary;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/// Línea base de la prueba de carga (resumen por endpoint en JSON) y comparación con una ejecución nueva.
+///
+/// Es una regresión si, en algún endpoint de la línea base:
+/// - el p99 sube más de "p99Tolerance" (0.25 = un 25 %) y además más de "p99FloorMs"
+///   (por debajo de un par de milisegundos el ruido de la máquina pesa más que el cambio), o
+/// - las respuestas correctas por segundo bajan más de "throughputTolerance".
+///
+/// Aparte, con o sin línea base, una ejecución no vale si en algún endpoint los errores pasan de
+/// "maxErrorRate" (0.01 = un 1 % de las peticiones): unas respuestas de error rápidas no deben
+/// hacer que el p99 parezca mejor.
+public record LoadBaseline(double p99Tolerance, double throughputTolerance, double p99FloorMs, double maxErrorRate) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static Map<String, Summary> read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), new TypeReference<>() {});
+    }
+
+    public static void write(Path file, Map<String, Summary> summaries) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        MAPPER.writeValue(file.toFile(), summaries);
+    }
+
+    /// Una línea por cada endpoint con más errores de los permitidos; vacía si no hay ninguno.
+    public List<String> errorRates(Map<String, Summary> current) {
+        List<String> problems = new ArrayList<>();
+        current.forEach((endpoint, now) -> {
+            long total = now.requests() + now.errors();
+            double rate = total == 0 ? 0 : (double) now.errors() / total;
+            if (rate > maxErrorRate) {
+                problems.add(String.format("%s: %d errores de %d peticiones (%.2f %%, máximo %.2f %%)",
+                        endpoint, now.errors(), total, rate * 100, maxErrorRate * 100));
+            }
+        });
+        return problems;
+    }
+
+    /// Una línea por cada regresión (incluida la tasa de error); vacía si la ejecución es al menos
+    /// tan buena como la base.
+    public List<String> regressions(Map<String, Summary> baseline, Map<String, Summary> current) {
+        List<String> problems = errorRates(current);
+        baseline.forEach((endpoint, base) -> {
+            Summary now = current.get(endpoint);
+            if (now == null || now.requests() == 0) {
+                problems.add(endpoint + ": sin respuestas correctas en esta ejecución");
+                return;
+            }
+            double p99Limit = Math.max(base.p99Ms() * (1 + p99Tolerance), base.p99Ms() + p99FloorMs);
+            if (now.p99Ms() > p99Limit) {
+                problems.add(String.format("%s: p99 %.2f ms (base %.2f ms, límite %.2f ms)",
+                        endpoint, now.p99Ms(), base.p99Ms(), p99Limit));
+            }
+            double throughputLimit = base.throughput() * (1 - throughputTolerance);
+            if (now.throughput() < throughputLimit) {
+                problems.add(String.format("%s: %.1f peticiones/s (base %.1f, mínimo %.1f)",
+                        endpoint, now.throughput(), base.throughput(), throughputLimit));
+            }
+        });
+        return problems;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ceac.demo1.load;
+
+import com.ceac.demo1.load.LatencyRecorder.Summary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBaselineTests {
+
+    private final LoadBaseline gate = new LoadBaseline(0.25, 0.20, 2, 0.01);
+
+    private static Summary summary(long requests, long errors, double throughput, double p99Ms) {
+        return new Summary(requests, errors, throughput, 1, 2, p99Ms, p99Ms, p99Ms);
+    }
+
+    @Test
+    void fastErrorsDoNotPassTheGate() {
+        Map<String, Summary> base = Map.of("products", summary(1000, 0, 100, 10));
+        /// p99 y peticiones/s iguales que la base, pero el 5 % de las peticiones han fallado.
+        Map<String, Summary> now = Map.of("products", summary(950, 50, 100, 10));
+
+        List<String> problems = gate.regressions(base, now);
+
+        assertEquals(1, problems.size());
+        assertTrue(problems.getFirst().startsWith("products: 50 errores de 1000"), problems.getFirst());
+    }
+
+    @Test
+    void anEndpointWithOnlyErrorsIsReported() {
+        LatencyRecorder recorder = new LatencyRecorder();
+        recorder.record("products", 1_000_000);
+        recorder.error("login");
+
+        Map<String, Summary> now = recorder.summaries(1);
+
+        assertEquals(List.of("login", "products"), List.copyOf(now.keySet()));
+        assertEquals(1, gate.errorRates(now).size());
+        assertTrue(gate.regressions(Map.of("login", summary(10, 0, 10, 5)), now)
+                .contains("login: sin respuestas correctas en esta ejecución"));
+    }
+
+    @Test
+    void aRunWithinTolerancesHasNoProblems() {
+        Map<String, Summary> base = Map.of("products", summary(1000, 0, 100, 10));
+        Map<String, Summary> now = Map.of("products", summary(1000, 5, 90, 12));
+
+        assertEquals(List.of(), gate.regressions(base, now));
+    }
+}
@@ -0,0 +1,59 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.entities.UserModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/// Proyecciones de los listados de usuarios, contra el H2 del perfil "local".
+@DataJpaTest
+@ActiveProfiles("local")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ExportQueries.class)
+class IUserRepositoryTests {
+
+    @Autowired
+    IUserRepository repo;
+
+    @Autowired
+    ExportQueries exportQueries;
+
+    private UserModel save(String email) {
+        UserModel u = new UserModel();
+        u.setFirstName("Ana");
+        u.setLastName("Pérez");
+        u.setEmail(email);
+        u.setPassword("$2a$10$hash");
+        return repo.save(u);
+    }
+
+    @Test
+    void listsSummariesByPageCursorAndStream() {
+        long first = save("a@demo.es").getId();
+        save("b@demo.es");
+        save("c@demo.es");
+
+        Page<UserSummary> page = repo.findAllBy(PageRequest.of(0, 2, Sort.by("id")));
+        assertEquals(3, page.getTotalElements());
+        assertEquals(new UserSummary(first, "Ana", "Pérez", "a@demo.es"), page.getContent().get(0));
+
+        List<UserSummary> after = repo.findByIdGreaterThanOrderByIdAsc(first, Limit.of(5));
+        assertEquals(List.of("b@demo.es", "c@demo.es"), after.stream().map(UserSummary::email).toList());
+
+        try (Stream<UserSummary> all = exportQueries.users()) {
+            assertEquals(List.of("a@demo.es", "b@demo.es", "c@demo.es"), all.map(UserSummary::email).toList());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.entities.ProductModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Contra el H2 en memoria del perfil "local" (el esquema lo crea Hibernate a partir de las entidades).
+@DataJpaTest
+@ActiveProfiles("local")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductBatchWriter.class)
+class ProductBatchWriterTests {
+
+    @Autowired
+    ProductBatchWriter writer;
+
+    @Autowired
+    IProductRepository repo;
+
+    private static ProductModel product(String title, String platform, String price) {
+        ProductModel p = new ProductModel();
+        p.setTitle(title);
+        p.setPlatform(platform);
+        p.setPrice(new BigDecimal(price));
+        p.setTags("rpg");
+        return p;
+    }
+
+    @Autowired
+    JdbcTemplate jdbc;
+
+    /// Sin la clave única (ddl-auto no pudo crearla por haber duplicados) la aplicación no arranca.
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED) // DDL: H2 confirma la transacción
+    void refusesToStartWithoutTheNaturalKey() {
+        writer.checkNaturalKey();
+        jdbc.execute("ALTER TABLE products DROP CONSTRAINT uk_products_title_platform");
+        try {
+            IllegalStateException e = assertThrows(IllegalStateException.class, writer::checkNaturalKey);
+            assertTrue(e.getMessage().contains("products-dedup.sql"), e.getMessage());
+        } finally {
+            jdbc.execute("ALTER TABLE products ADD CONSTRAINT uk_products_title_platform UNIQUE (title, platform)");
+        }
+        writer.checkNaturalKey();
+    }
+
+    @Test
+    void upsertIsIdempotentAndSkipsUnchangedRows() {
+        long before = repo.count();
+        List<ProductModel> first = List.of(product("Elden Ring", "PC", "59.99"), product("Elden Ring", "PS5", "69.99"));
+        ProductBatchWriter.Upserted created = writer.upsert(first, true);
+        assertEquals(2, created.inserted());
+        assertEquals(2, created.changedIds().size());
+
+        ProductBatchWriter.Upserted again = writer.upsert(
+                List.of(product("Elden Ring", "PC", "59.990"), product("Elden Ring", "PS5", "39.99"),
+                        product("Hades", "PC", "24.50")), true);
+        assertEquals(1, again.inserted());
+        assertEquals(1, again.updated());
+        assertEquals(1, again.unchanged());
+        assertEquals(2, again.changedIds().size());
+
+        assertEquals(before + 3, repo.count());
+        assertEquals(0, new BigDecimal("39.99").compareTo(
+                repo.findByPlatformIgnoreCaseAndIdGreaterThanOrderByIdAsc("ps5", 0L,
+                        Limit.of(1)).get(0).getPrice()));
+    }
+
+    /// La clave única de MySQL no distingue mayúsculas: "elden ring" es la fila de "Elden Ring".
+    @Test
+    void keysDifferingOnlyInCaseUpdateTheSameRow() {
+        long before = repo.count();
+        writer.upsert(List.of(product("Hollow Knight", "Switch", "14.99")), true);
+
+        ProductBatchWriter.Upserted same = writer.upsert(List.of(product("HOLLOW KNIGHT", "switch", "14.99")), true);
+        assertEquals(0, same.inserted());
+        assertEquals(1, same.unchanged());
+
+        ProductBatchWriter.Upserted cheaper = writer.upsert(
+                List.of(product("hollow knight", "SWITCH", "9.99"), product("Hollow knight", "Switch", "7.99")), true);
+        assertEquals(0, cheaper.inserted());
+        assertEquals(1, cheaper.updated());
+        assertEquals(1, cheaper.unchanged());
+
+        assertEquals(before + 1, repo.count());
+        ProductModel stored = repo.findByPlatformIgnoreCaseAndIdGreaterThanOrderByIdAsc("switch", 0L, Limit.of(10))
+                .stream().filter(p -> p.getTitle().equalsIgnoreCase("hollow knight")).findFirst().orElseThrow();
+        assertEquals("Hollow Knight", stored.getTitle()); // se conserva la clave guardada
+        assertEquals(0, new BigDecimal("7.99").compareTo(stored.getPrice()));
+    }
+}
@@ -0,0 +1,70 @@
+package com.ceac.demo1.repositories;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.exceptions.InvalidFieldsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/// Contra el H2 del perfil "local".
+@DataJpaTest
+@ActiveProfiles("local")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ProductProjections.class)
+class ProductProjectionsTests {
+
+    @Autowired
+    ProductProjections projections;
+
+    @Autowired
+    IProductRepository repo;
+
+    private long save(String title, String platform, String price) {
+        ProductModel p = new ProductModel();
+        p.setTitle(title);
+        p.setPlatform(platform);
+        p.setPrice(new BigDecimal(price));
+        p.setDescription("Una descripción larga que el listado no necesita");
+        return repo.saveAndFlush(p).getId();
+    }
+
+    @Test
+    void parsesFieldsAlwaysStartingWithId() {
+        assertNull(ProductProjections.parseFields(" "));
+        assertEquals(List.of("id", "title", "price"), ProductProjections.parseFields("title, price,id"));
+        assertThrows(InvalidFieldsException.class, () -> ProductProjections.parseFields("title,password"));
+    }
+
+    @Test
+    void selectsOnlyRequestedColumns() {
+        long hades = save("Hades", "PC", "24.50");
+        long sale = save("Rebajas 100% Edition", "PS5", "9.99");
+        long other = save("Rebajas 1000 Edition", "PS5", "19.99");
+        List<String> fields = ProductProjections.parseFields("title,price");
+
+        Page<Map<String, Object>> ps5 = projections.findPage(fields, "ps5", null, PageRequest.of(0, 10));
+        assertEquals(2, ps5.getTotalElements());
+        assertEquals(List.of("id", "title", "price"), List.copyOf(ps5.getContent().get(0).keySet()));
+
+        /// "%" se busca literalmente, no como comodín.
+        List<Map<String, Object>> percent = projections.findAfter(fields, null, "100%", 0, 10);
+        assertEquals(List.of(sale), percent.stream().map(r -> r.get("id")).toList());
+
+        List<Map<String, Object>> byIds = projections.findByIds(fields, List.of(other, hades));
+        assertEquals(List.of(other, hades), byIds.stream().map(r -> r.get("id")).toList());
+        assertEquals(0, new BigDecimal("24.50").compareTo((BigDecimal) byIds.get(1).get("price")));
+    }
+}
@@ -0,0 +1,37 @@
+package com.ceac.demo1.services.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BCryptStrengthTests {
+
+    @Test
+    void keepsTheSavedCostWithinOneStep() {
+        assertEquals(12, BCryptStrength.settle(12, 13));
+        assertEquals(12, BCryptStrength.settle(12, 11));
+        assertEquals(14, BCryptStrength.settle(12, 14));
+        assertEquals(10, BCryptStrength.settle(12, 10));
+    }
+
+    /// Con target-ms = 0 la medida siempre da min-strength (5): así el resultado no depende de la máquina.
+    @Test
+    void savesTheCalibratedCostAndOnlyMovesItOnALargeChange(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("bcrypt-strength");
+
+        assertEquals(5, BCryptStrength.calibrate(0, 5, file).value());
+        assertEquals("5", Files.readString(file).trim());
+
+        Files.writeString(file, "6");
+        assertEquals(6, BCryptStrength.calibrate(0, 5, file).value()); // medido 5: ruido, se queda el 6
+        assertEquals("6", Files.readString(file).trim());
+
+        Files.writeString(file, "7");
+        assertEquals(5, BCryptStrength.calibrate(0, 5, file).value());
+        assertEquals("5", Files.readString(file).trim());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.RevocationListFullException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokensTests {
+
+    private static final String SECRET = "clave-de-tests-con-al-menos-32-bytes!!";
+
+    @Test
+    void verifiedTokensAreServedFromCacheUntilRevoked() {
+        SessionStoreTests.MutableClock clock = new SessionStoreTests.MutableClock();
+        JwtTokens tokens = new JwtTokens(clock, SECRET, 60_000, 16, 100);
+
+        String token = tokens.createToken("ana@mail.com");
+        assertEquals("ana@mail.com", tokens.getEmail(token));
+        assertEquals("ana@mail.com", tokens.getEmail(token));
+        assertEquals(1, tokens.stats().cacheMisses());
+        assertEquals(1, tokens.stats().cacheHits());
+
+        tokens.revoke(token);
+        assertNull(tokens.getEmail(token));
+        assertEquals(1, tokens.stats().revoked());
+
+        clock.advance(61_000);
+        tokens.expireRevoked();
+        assertEquals(0, tokens.stats().revoked());
+        assertNull(tokens.getEmail(token));
+    }
+
+    @Test
+    void fullDenylistRejectsTheLogoutInsteadOfForgettingRevocations() {
+        SessionStoreTests.MutableClock clock = new SessionStoreTests.MutableClock();
+        JwtTokens tokens = new JwtTokens(clock, SECRET, 60_000, 16, 2);
+
+        String first = tokens.createToken("a@mail.com");
+        String second = tokens.createToken("b@mail.com");
+        tokens.revoke(first);
+        clock.advance(1_000);
+        tokens.revoke(second);
+
+        String third = tokens.createToken("c@mail.com");
+        assertThrows(RevocationListFullException.class, () -> tokens.revoke(third));
+        assertNull(tokens.getEmail(first));
+        assertNull(tokens.getEmail(second));
+        assertEquals("c@mail.com", tokens.getEmail(third));
+
+        /// En cuanto caduca la primera revocación vuelve a haber sitio.
+        clock.advance(59_500);
+        tokens.revoke(third);
+        assertNull(tokens.getEmail(third));
+        assertNull(tokens.getEmail(second));
+    }
+
+    @Test
+    void rejectsExpiredAndForeignTokens() {
+        SessionStoreTests.MutableClock clock = new SessionStoreTests.MutableClock();
+        JwtTokens tokens = new JwtTokens(clock, SECRET, 60_000, 16, 100);
+        JwtTokens other = new JwtTokens(clock, SECRET.replace('!', '?'), 60_000, 16, 100);
+
+        String token = tokens.createToken("ana@mail.com");
+        assertNull(other.getEmail(token));
+        assertNull(tokens.getEmail("no-es-un-jwt"));
+
+        clock.advance(61_000);
+        assertNull(tokens.getEmail(token));
+    }
+}
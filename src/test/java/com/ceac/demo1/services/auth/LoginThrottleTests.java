@@ -0,0 +1,79 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.LoginThrottledException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTests {
+
+    /// Reloj manual (nanoTime) para poder "avanzar el tiempo".
+    private final AtomicLong now = new AtomicLong(1_000_000_000_000L);
+
+    /// IP: 3 seguidos y 60/min (1 por segundo). Email: 2 seguidos y 6/min (1 cada 10 s).
+    private LoginThrottle throttle() {
+        return new LoginThrottle(true, 3, 60, 2, 6, 1000, new SimpleMeterRegistry(), now::get);
+    }
+
+    @Test
+    void emailBucketRefillsAtItsRate() {
+        LoginThrottle throttle = throttle();
+        throttle.acquire("10.0.0.1", "ana@example.com");
+        throttle.acquire("10.0.0.2", "ANA@example.com "); // misma cuenta aunque cambie la IP o las mayúsculas
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> throttle.acquire("10.0.0.3", "ana@example.com"));
+        assertEquals(10, e.getRetryAfterSeconds());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        throttle.acquire("10.0.0.3", "ana@example.com");
+        assertThrows(LoginThrottledException.class, () -> throttle.acquire("10.0.0.3", "ana@example.com"));
+    }
+
+    @Test
+    void ipBucketLimitsManyEmails() {
+        LoginThrottle throttle = throttle();
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("10.0.0.1", "user" + i + "@example.com");
+        }
+        LoginThrottledException e = assertThrows(LoginThrottledException.class,
+                () -> throttle.acquire("10.0.0.1", "otro@example.com"));
+        assertEquals(1, e.getRetryAfterSeconds());
+        throttle.acquire("10.0.0.2", "otro@example.com"); // otra IP no está afectada
+    }
+
+    @Test
+    void concurrentAttemptsNeverExceedTheBurst() throws Exception {
+        LoginThrottle throttle = new LoginThrottle(true, 50, 1, 1000, 1, 1000, new SimpleMeterRegistry(), now::get);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        try {
+                            throttle.acquire("10.0.0.1", null);
+                            allowed.incrementAndGet();
+                        } catch (LoginThrottledException ignored) {
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(50, allowed.get());
+    }
+}
@@ -0,0 +1,84 @@
+package com.ceac.demo1.services.auth;
+
+import com.ceac.demo1.exceptions.PasswordHasherBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHasherTests {
+
+    /// Encoder que no termina hasta que se abre el latch, para llenar el pool a voluntad.
+    static final class BlockingEncoder implements PasswordEncoder {
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+
+        @Override
+        public String encode(CharSequence raw) {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence raw, String encoded) {
+            return encode(raw).equals(encoded);
+        }
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws Exception {
+        BlockingEncoder encoder = new BlockingEncoder();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(encoder, new BCryptStrength(10), 1, 1, 3, registry);
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+        assertTrue(encoder.started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+        while (hasher.stats().queued() < 1) {
+            Thread.onSpinWait();
+        }
+
+        PasswordHasherBusyException busy = assertThrows(PasswordHasherBusyException.class, () -> hasher.encode("c"));
+        assertEquals(3, busy.getRetryAfterSeconds());
+
+        encoder.release.countDown();
+        assertEquals("hash:a", running.get(5, TimeUnit.SECONDS));
+        assertEquals("hash:b", queued.get(5, TimeUnit.SECONDS));
+        assertTrue(hasher.matches("d", "hash:d"));
+
+        PasswordHasher.Stats stats = hasher.stats();
+        assertEquals(3, stats.completed());
+        assertEquals(1, stats.rejected());
+        assertEquals(1, registry.get("auth.password.hash.rejected").counter().count());
+        assertEquals(2, registry.get("auth.password.hash").tag("op", "encode").timer().count());
+        assertEquals(1, registry.get("auth.password.hash").tag("op", "matches").timer().count());
+        hasher.shutdown();
+    }
+
+    @Test
+    void detectsHashesWithAnotherCost() {
+        String cost4 = new BCryptPasswordEncoder(4).encode("secreto");
+
+        assertEquals(4, BCryptStrength.costOf(cost4));
+        assertFalse(new BCryptStrength(4).isOutdated(cost4));
+        assertTrue(new BCryptStrength(5).isOutdated(cost4));
+        assertFalse(new BCryptStrength(5).isOutdated("texto-plano"));
+        assertEquals(-1, BCryptStrength.costOf(null));
+    }
+
+    @Test
+    void calibrationNeverGoesBelowTheMinimum() {
+        assertEquals(6, BCryptStrength.calibrate(0, 6).value());
+    }
+}
@@ -0,0 +1,216 @@
+package com.ceac.demo1.services.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionStoreTests {
+
+    /// Reloj manual para poder "avanzar el tiempo" en los tests.
+    static final class MutableClock extends Clock {
+        long millis = 1_700_000_000_000L;
+
+        void advance(long ms) {
+            millis += ms;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    @Test
+    void idleSessionsExpireAndAreSweptByTheWheel() {
+        MutableClock clock = new MutableClock();
+        SessionStore store = new SessionStore(clock, 60_000, 3_600_000, 100);
+
+        String a = store.create("a@mail.com");
+        String b = store.create("b@mail.com");
+
+        clock.advance(40_000);
+        assertEquals("a@mail.com", store.get(a)); // "a" se usa y renueva su TTL de inactividad
+
+        clock.advance(40_000);
+        assertEquals("a@mail.com", store.get(a));
+        assertNull(store.get(b));
+
+        store.expireSessions();
+        assertEquals(1, store.size());
+        assertEquals(1, store.stats().expired());
+    }
+
+    @Test
+    void absoluteTtlWinsOverActivity() {
+        MutableClock clock = new MutableClock();
+        SessionStore store = new SessionStore(clock, 60_000, 150_000, 100);
+
+        String a = store.create("a@mail.com");
+        for (int i = 0; i < 4; i++) {
+            clock.advance(30_000);
+            store.expireSessions();
+            assertEquals("a@mail.com", store.get(a));
+        }
+        clock.advance(30_000);
+        store.expireSessions();
+        assertNull(store.get(a));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void capacityEvictsTheSessionThatExpiresFirst() {
+        MutableClock clock = new MutableClock();
+        SessionStore store = new SessionStore(clock, 3_600_000, 86_400_000, 2);
+
+        String old = store.create("old@mail.com");
+        clock.advance(120_000);
+        String mid = store.create("mid@mail.com");
+        clock.advance(120_000);
+        String newest = store.create("new@mail.com");
+
+        assertEquals(2, store.size());
+        assertNull(store.get(old));
+        assertNotNull(store.get(mid));
+        assertNotNull(store.get(newest));
+        assertEquals(1, store.stats().evicted());
+    }
+
+    @Test
+    void revokeRemovesSessionAndCountsIt() {
+        SessionStore store = new SessionStore(new MutableClock(), 60_000, 120_000, 10);
+        String a = store.create("a@mail.com");
+        store.remove(a);
+        store.remove(a);
+
+        assertNull(store.get(a));
+        assertEquals(new SessionStore.Stats(0, 0, 0, 1), store.stats());
+    }
+
+    @Test
+    void journalRestoresSnapshotPlusLogAfterRestart(@TempDir Path dir) {
+        MutableClock clock = new MutableClock();
+
+        SessionStore before = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        before.restore();
+        String a = before.create("a@mail.com");
+        String b = before.create("b@mail.com");
+        before.snapshot();
+        before.remove(b);           // solo en el log, después de la foto
+        String c = before.create("c@mail.com");
+        // sin shutdown(): simula una caída, lo último solo está en el log
+
+        clock.advance(30_000);
+        SessionStore after = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        after.restore();
+
+        assertEquals(2, after.size());
+        assertEquals("a@mail.com", after.get(a));
+        assertNull(after.get(b));
+        assertEquals("c@mail.com", after.get(c));
+    }
+
+    @Test
+    void restoreKeepsTheIdleDeadlineFromTheSnapshot(@TempDir Path dir) {
+        MutableClock clock = new MutableClock();
+
+        SessionStore before = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        before.restore();
+        String idle = before.create("idle@mail.com");
+        String used = before.create("used@mail.com");
+        clock.advance(50_000);
+        assertEquals("used@mail.com", before.get(used)); // último uso: t = 50 s
+        before.shutdown();
+
+        clock.advance(20_000); // t = 70 s: "idle" lleva 70 s sin usarse (TTL 60 s), "used" solo 20 s
+        SessionStore after = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        after.restore();
+
+        assertNull(after.get(idle));
+        assertEquals("used@mail.com", after.get(used));
+        assertEquals(1, after.size());
+    }
+
+    /// Una sesión desalojada por capacidad conserva fechas válidas: sin un REVOKE volvería tras reiniciar.
+    @Test
+    void sessionsEvictedForCapacityStayGoneAfterRestart(@TempDir Path dir) {
+        MutableClock clock = new MutableClock();
+
+        SessionStore before = new SessionStore(clock, 3_600_000, 86_400_000, 2, new SessionJournal(true, dir.toString()));
+        before.restore();
+        String old = before.create("old@mail.com");
+        clock.advance(1_000);
+        String mid = before.create("mid@mail.com");
+        clock.advance(1_000);
+        String newest = before.create("new@mail.com"); // desaloja "old"
+        // sin shutdown(): todo está solo en el log
+
+        SessionStore after = new SessionStore(clock, 3_600_000, 86_400_000, 10, new SessionJournal(true, dir.toString()));
+        after.restore();
+
+        assertNull(after.get(old));
+        assertEquals("mid@mail.com", after.get(mid));
+        assertEquals("new@mail.com", after.get(newest));
+        assertEquals(2, after.size());
+    }
+
+    /// Las fotos de la versión 3 (email en cada registro) se siguen leyendo tras pasar al diccionario.
+    @Test
+    void restoresSnapshotsWithTheEmailInEveryRecord(@TempDir Path dir) throws Exception {
+        MutableClock clock = new MutableClock();
+        long hi = 0x0123456789abcdefL;
+        long lo = 0x0fedcba987654321L;
+        byte[] email = "v3@mail.com".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer v3 = ByteBuffer.allocate(8 + 1 + 16 + 16 + 2 + email.length);
+        v3.putInt(0x53455353).putInt(3)
+                .put((byte) 1).putLong(hi).putLong(lo).putLong(clock.millis()).putLong(clock.millis())
+                .putShort((short) email.length).put(email);
+        Files.write(dir.resolve("sessions.snap"), v3.array());
+
+        SessionStore store = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        store.restore();
+
+        assertEquals("v3@mail.com", store.get(SessionTokens.encode(hi, lo)));
+        store.shutdown(); // la reescribe en el formato actual
+
+        SessionStore again = new SessionStore(clock, 60_000, 3_600_000, 100, new SessionJournal(true, dir.toString()));
+        again.restore();
+        assertEquals("v3@mail.com", again.get(SessionTokens.encode(hi, lo)));
+    }
+
+    @Test
+    void malformedTokensAreRejectedAndOffsetsAreHonoured() {
+        SessionStore store = new SessionStore(new MutableClock(), 60_000, 120_000, 10);
+        String token = store.create("a@mail.com");
+
+        assertEquals(SessionTokens.LENGTH, token.length());
+        assertEquals("a@mail.com", store.get("Bearer " + token, 7));
+        assertNull(store.get(token.substring(1)));
+        assertNull(store.get(token.replace(token.charAt(3), '*')));
+        assertNull(store.get("_" + token.substring(1))); // primer carácter fuera de rango (> 4 bits)
+    }
+}
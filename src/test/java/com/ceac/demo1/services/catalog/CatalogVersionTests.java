@@ -0,0 +1,30 @@
+package com.ceac.demo1.services.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CatalogVersionTests {
+
+    @Test
+    void etagDependsOnUrlAndChangesWithEveryWrite() {
+        CatalogVersion version = new CatalogVersion();
+        String page0 = version.etag("/products?page=0");
+
+        assertEquals(page0, version.etag("/products?page=0"));
+        assertNotEquals(page0, version.etag("/products?page=1"));
+        assertTrue(page0.startsWith("\"") && page0.endsWith("\""), "ETag fuerte: entre comillas y sin W/");
+
+        var before = version.lastModified();
+        version.onProductsChanged(new ProductsChangedEvent(List.of(1L)));
+        version.onProductsChanged(ProductsChangedEvent.everything());
+
+        assertEquals(2, version.version());
+        assertNotEquals(page0, version.etag("/products?page=0"));
+        assertTrue(version.lastModified().isAfter(before), "dos cambios en el mismo segundo también avanzan la fecha");
+    }
+}
@@ -0,0 +1,78 @@
+package com.ceac.demo1.services.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FacetIndexTests {
+
+    private static FacetIndex catalog() {
+        FacetIndex index = new FacetIndex();
+        index.put(1, "PC", "rpg,openworld", new BigDecimal("59.99"), 50); // 29.99 final
+        index.put(2, "PC", "rpg", new BigDecimal("19.99"), 0);
+        index.put(3, "PS5", "rpg", new BigDecimal("39.99"), 25);          // 29.99 final
+        index.put(4, "PC", "shooter", new BigDecimal("9.99"), 10);
+        return index;
+    }
+
+    @Test
+    void combinesFacetsAndCountsTheOthers() {
+        FacetIndex.Result result = catalog().filter(Map.of(
+                FacetIndex.PLATFORM, List.of("pc"),
+                FacetIndex.TAG, List.of("RPG"),
+                FacetIndex.PRICE, List.of("0-10", "10-20", "20-30"),
+                FacetIndex.DISCOUNT, FacetIndex.DISCOUNTED_BANDS), 0, 10);
+
+        assertArrayEquals(new long[]{1}, result.ids());
+        assertEquals(1, result.total());
+        /// Las plataformas se cuentan sin el filtro de plataforma: el PS5 también cumple el resto.
+        assertEquals(Map.of("pc", 1, "ps5", 1), result.counts().get(FacetIndex.PLATFORM));
+        assertEquals(Map.of("rpg", 1, "openworld", 1, "shooter", 1), result.counts().get(FacetIndex.TAG));
+    }
+
+    @Test
+    void pagesInIdOrderAndFollowsUpdates() {
+        FacetIndex index = catalog();
+        assertArrayEquals(new long[]{2, 4}, index.filter(Map.of(FacetIndex.PLATFORM, List.of("pc")), 1, 2).ids());
+
+        index.put(2, "Switch", "rpg", null, null);
+        index.remove(4);
+        FacetIndex.Result pc = index.filter(Map.of(FacetIndex.PLATFORM, List.of("pc")), 0, 10);
+        assertArrayEquals(new long[]{1}, pc.ids());
+        assertEquals(Map.of("pc", 1, "ps5", 1, "switch", 1), pc.counts().get(FacetIndex.PLATFORM));
+        assertEquals(0, index.filter(Map.of(FacetIndex.TAG, List.of("shooter")), 0, 10).total());
+    }
+
+    @Test
+    void aValueDisappearsWithItsLastProductAndCanComeBack() {
+        FacetIndex index = catalog();
+        index.put(5, "PC", "indie,Indie, indie", new BigDecimal("5"), null);
+        assertEquals(1, index.filter(Map.of(FacetIndex.TAG, List.of("indie")), 0, 10).total());
+
+        index.remove(5);
+        index.remove(5);
+        FacetIndex.Result all = index.filter(Map.of(), 0, 10);
+        assertEquals(4, all.total());
+        assertNull(all.counts().get(FacetIndex.TAG).get("indie"));
+        assertEquals(Map.of("0", 1, "1-24", 1, "25-49", 1, "50-74", 1), all.counts().get(FacetIndex.DISCOUNT));
+
+        index.put(6, "Switch", "indie", null, null);
+        assertArrayEquals(new long[]{6}, index.filter(Map.of(FacetIndex.TAG, List.of("indie")), 0, 10).ids());
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    void bandsUseTheFinalPrice() {
+        assertEquals("20-30", FacetIndex.priceBand(new BigDecimal("59.99"), 50));
+        assertEquals("70+", FacetIndex.priceBand(new BigDecimal("80"), null));
+        assertNull(FacetIndex.priceBand(null, 10));
+        assertEquals("0", FacetIndex.discountBand(null));
+        assertEquals("75+", FacetIndex.discountBand(90));
+    }
+}
@@ -0,0 +1,143 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class ProductCacheTests {
+
+    @Test
+    void loadsOnceUntilProductsChange() {
+        ProductCache cache = new ProductCache(100, 100, 60_000);
+        AtomicInteger byIdLoads = new AtomicInteger();
+        AtomicInteger pageLoads = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            cache.getById(1L, id -> {
+                byIdLoads.incrementAndGet();
+                return Optional.of(new ProductModel());
+            });
+            cache.getPage("PC", 0, 20, () -> {
+                pageLoads.incrementAndGet();
+                return Page.empty();
+            });
+            cache.getPage("pc", 0, 20, () -> {
+                pageLoads.incrementAndGet();
+                return new PageImpl<>(List.of());
+            });
+        }
+        assertEquals(1, byIdLoads.get());
+        assertEquals(1, pageLoads.get());
+
+        cache.onProductsChanged(new ProductsChangedEvent(List.of(1L)));
+        cache.getById(1L, id -> {
+            byIdLoads.incrementAndGet();
+            return Optional.empty();
+        });
+        cache.getPage("pc", 0, 20, () -> {
+            pageLoads.incrementAndGet();
+            return Page.empty();
+        });
+        assertEquals(2, byIdLoads.get());
+        assertEquals(2, pageLoads.get());
+
+        ProductCache.Stats stats = cache.stats();
+        assertEquals(2, stats.products().misses());
+        assertEquals(2, stats.products().hits());
+    }
+
+    @Test
+    void getAllByIdLoadsEveryMissInOneCallAndKeepsTheOrder() {
+        ProductCache cache = new ProductCache(100, 100, 60_000);
+        cache.getById(2L, id -> Optional.of(product(2)));
+        List<List<Long>> loads = new ArrayList<>();
+
+        List<ProductModel> page = cache.getAllById(new long[]{3, 2, 9, 1}, ids -> {
+            loads.add(ids);
+            return List.of(product(1), product(3)); // el 9 no existe
+        });
+
+        assertEquals(List.of(3L, 2L, 1L), page.stream().map(ProductModel::getId).toList());
+        assertEquals(1, loads.size());
+        assertEquals(3, loads.get(0).size());
+
+        cache.getAllById(new long[]{1, 9}, ids -> {
+            loads.add(ids);
+            return List.of();
+        });
+        assertEquals(1, loads.size()); // el 1 y el 9 (inexistente) ya están en la caché
+    }
+
+    /// Una carga que empezó antes de un cambio y termina después no debe quedarse en la caché.
+    @Test
+    void aLoadThatOverlapsAChangeIsNotServedAfterIt() throws Exception {
+        ProductCache cache = new ProductCache(100, 100, 60_000);
+        CountDownLatch loading = new CountDownLatch(2);
+        CountDownLatch changed = new CountDownLatch(1);
+        ProductModel before = product(1);
+        before.setTitle("antes");
+        ProductModel after = product(1);
+        after.setTitle("después");
+
+        /// Las dos lecturas empiezan antes del cambio y se guardan después. Hilos de plataforma: la carga
+        /// espera dentro de la caché (bloque synchronized), y un hilo virtual ahí ocuparía su portador.
+        Thread pageReader = Thread.ofPlatform().start(() -> cache.getPage(null, 0, 20, () -> {
+            loading.countDown();
+            await(changed);
+            return new PageImpl<>(List.of(before));
+        }));
+        Thread productReader = Thread.ofPlatform().start(() -> cache.getById(1L, id -> {
+            loading.countDown();
+            await(changed);
+            return Optional.of(before);
+        }));
+        loading.await();
+        cache.onProductsChanged(ProductsChangedEvent.everything());
+        changed.countDown();
+        pageReader.join();
+        productReader.join();
+
+        Page<ProductModel> page = cache.getPage(null, 0, 20, () -> new PageImpl<>(List.of(after)));
+        assertEquals("después", page.getContent().get(0).getTitle());
+        assertEquals("después", cache.getById(1L, id -> Optional.of(after)).orElseThrow().getTitle());
+        assertEquals("después", cache.getAllById(new long[]{1}, ids -> List.of(after)).get(0).getTitle());
+    }
+
+    /// Se guardan copias: cambiar la entidad que devolvió JPA no cambia lo que ven las demás peticiones.
+    @Test
+    void cachesCopiesOfTheLoadedEntities() {
+        ProductCache cache = new ProductCache(100, 100, 60_000);
+        ProductModel loaded = product(1);
+        loaded.setTitle("guardado");
+
+        ProductModel cached = cache.getById(1L, id -> Optional.of(loaded)).orElseThrow();
+        loaded.setTitle("cambiado");
+
+        assertNotSame(loaded, cached);
+        assertEquals("guardado", cache.getById(1L, id -> Optional.empty()).orElseThrow().getTitle());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ProductModel product(long id) {
+        ProductModel product = new ProductModel();
+        product.setId(id);
+        return product;
+    }
+}
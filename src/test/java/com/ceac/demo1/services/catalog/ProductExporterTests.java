@@ -0,0 +1,73 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.repositories.ExportQueries;
+import com.ceac.demo1.repositories.ProductBatchWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Contra el H2 del perfil "local": lo exportado en CSV se puede volver a importar sin cambios.
+@DataJpaTest
+@ActiveProfiles("local")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductBatchWriter.class, ProductImporter.class, ProductExporter.class, ExportQueries.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductExporterTests {
+
+    @Autowired
+    ProductImporter importer;
+
+    @Autowired
+    ProductExporter exporter;
+
+    @Test
+    void exportedCsvReimportsUnchanged() throws Exception {
+        String csv = """
+                title,platform,price,discount,description,releaseDate,tags
+                "Outer Wilds, \"\"Echoes\"\"",PC,22.99,10,"Bucle
+                temporal",2019-05-28,"exploración,misterio"
+                Inscryption,PC,19.50,0,,,cartas
+                """;
+        importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(ProductExporter.Format.CSV, out);
+
+        ImportSummary again = importer.importCsv(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8);
+        assertEquals(rows, again.rows());
+        assertEquals(0, again.rejected());
+        assertEquals(rows, again.unchanged());
+    }
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws Exception {
+        String ndjson = """
+                {"title":"Pentiment","platform":"Xbox","price":19.99}
+                """;
+        importer.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = exporter.export(ProductExporter.Format.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(rows, lines.length);
+        for (String line : lines) {
+            assertTrue(line.startsWith("{\"id\":"), line);
+        }
+    }
+}
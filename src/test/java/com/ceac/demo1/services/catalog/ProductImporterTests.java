@@ -0,0 +1,114 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.repositories.ProductBatchWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/// Contra el H2 del perfil "local". Sin transacción de test: los hilos escritores confirman sus bloques.
+@DataJpaTest
+@ActiveProfiles("local")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductBatchWriter.class, ProductImporter.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductImporterTests {
+
+    @Autowired
+    ProductImporter importer;
+
+    private static ByteArrayInputStream body(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importsCsvAndReportsBadLines() throws Exception {
+        String csv = """
+                title,platform,price,discount,tags
+                "Hades, edición \"\"Deluxe\"\"",PC,24.50,10,"roguelike,indie"
+
+                Celeste,Switch,abc,0,plataformas
+                ,PC,10,0,
+                Celeste,PC,19.99,0,"plataformas
+                indie"
+                """;
+        ImportSummary summary = importer.importCsv(body(csv), StandardCharsets.UTF_8);
+
+        assertEquals(4, summary.rows());
+        assertEquals(2, summary.inserted());
+        assertEquals(2, summary.rejected());
+        assertEquals(4, summary.rejectedLines().get(0).line());
+        assertEquals(5, summary.rejectedLines().get(1).line());
+
+        ImportSummary again = importer.importCsv(body(csv), StandardCharsets.UTF_8);
+        assertEquals(0, again.inserted());
+        assertEquals(2, again.unchanged());
+    }
+
+    @Test
+    void importsNdjsonLineByLine() throws Exception {
+        String ndjson = """
+                {"title":"Tunic","platform":"PC","price":29.99,"tags":"aventura"}
+                {"title":"Tunic","platform":"PC","price":19.99,"tags":"aventura"}
+                {"title": roto
+                {"title":"Tunic","platform":"PS5","discount":150}
+                """;
+        ImportSummary summary = importer.importNdjson(body(ndjson), StandardCharsets.UTF_8);
+
+        assertEquals(4, summary.rows());
+        assertEquals(1, summary.inserted());
+        assertEquals(1, summary.unchanged()); // la clave repetida en el mismo bloque: gana la última
+        assertEquals(2, summary.rejected());
+        assertEquals(3, summary.rejectedLines().get(0).line());
+        assertEquals(4, summary.rejectedLines().get(1).line());
+    }
+
+    /// Una línea o un campo enorme (p. ej. un array JSON sin saltos de línea) se rechaza y se sigue leyendo.
+    @Test
+    void rejectsOverlongLinesAndKeepsGoing() throws Exception {
+        String huge = "x".repeat(200_000);
+        String ndjson = "[" + huge + "]\n" + """
+                {"title":"Inside","platform":"PC","price":9.99}
+                """;
+        ImportSummary lines = importer.importNdjson(body(ndjson), StandardCharsets.UTF_8);
+        assertEquals(2, lines.rows());
+        assertEquals(1, lines.rejected());
+        assertEquals(1, lines.rejectedLines().get(0).line());
+        assertEquals(1, lines.inserted() + lines.unchanged());
+
+        String csv = "title,platform,description\n"
+                + "Limbo,PC,\"" + huge + "\nsigue\"\n"
+                + "Limbo,Switch,corta\n";
+        ImportSummary records = importer.importCsv(body(csv), StandardCharsets.UTF_8);
+        assertEquals(2, records.rows());
+        assertEquals(1, records.rejected());
+        assertEquals(2, records.rejectedLines().get(0).line());
+        assertEquals(1, records.inserted() + records.unchanged());
+    }
+
+    /// Cada coma es un campo vacío: sin contarlas, una ristra de comas sin salto de línea crecería sin límite.
+    @Test
+    void aRunOfCommasWithoutNewlineIsCappedLikeAnyOtherRecord() throws Exception {
+        String csv = "title,platform\n" + ",".repeat(1_000_000);
+        ImportSummary summary = importer.importCsv(body(csv), StandardCharsets.UTF_8);
+
+        assertEquals(1, summary.rows());
+        assertEquals(1, summary.rejected());
+        assertEquals(2, summary.rejectedLines().get(0).line());
+        assertTrue(summary.rejectedLines().get(0).reason().startsWith("registro de más de"),
+                summary.rejectedLines().get(0).reason());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ceac.demo1.services.catalog;
+
+import com.ceac.demo1.entities.ProductModel;
+import com.ceac.demo1.repositories.IProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSearchTests {
+
+    /// Tabla de productos en memoria: solo los dos métodos que usa ProductSearch.
+    private final Map<Long, ProductModel> table = new TreeMap<>();
+    private Runnable onFirstScan = () -> {};
+
+    private final IProductRepository repo = (IProductRepository) Proxy.newProxyInstance(
+            getClass().getClassLoader(), new Class<?>[]{IProductRepository.class}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "findByIdGreaterThanOrderByIdAsc": {
+                        long after = (Long) args[0];
+                        int max = ((Limit) args[1]).max();
+                        List<ProductModel> batch = table.values().stream()
+                                .filter(p -> p.getId() > after).limit(max).toList();
+                        Runnable hook = onFirstScan;
+                        onFirstScan = () -> {};
+                        hook.run();
+                        return batch;
+                    }
+                    case "findAllById": {
+                        List<ProductModel> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            ProductModel product = table.get((Long) id);
+                            if (product != null) {
+                                found.add(product);
+                            }
+                        }
+                        return found;
+                    }
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                }
+            });
+
+    @Test
+    void aFullChangeDuringTheLoadIsReadAfterIt() {
+        put(1, "Elden Ring");
+        put(2, "Dark Souls");
+        ProductSearch search = new ProductSearch(repo, 10);
+        /// La carga ya ha leído el 1 cuando cambia todo el catálogo.
+        onFirstScan = () -> {
+            put(1, "Sekiro");
+            search.onProductsChanged(ProductsChangedEvent.everything());
+        };
+
+        search.load();
+
+        assertEquals(0, search.search("elden", 0, 10).total());
+        assertArrayEquals(new long[]{1}, search.search("sekiro", 0, 10).ids());
+    }
+
+    @Test
+    void aFullRescanDropsDeletedProducts() {
+        put(1, "Elden Ring");
+        put(2, "Ring Fit Adventure");
+        ProductSearch search = new ProductSearch(repo, 1);
+        search.load();
+
+        table.remove(2L);
+        search.onProductsChanged(ProductsChangedEvent.everything());
+
+        assertArrayEquals(new long[]{1}, search.search("ring", 0, 10).ids());
+        assertEquals(1, search.filter(Map.of(), 0, 10).total());
+    }
+
+    private void put(long id, String title) {
+        ProductModel product = new ProductModel();
+        product.setId(id);
+        product.setTitle(title);
+        product.setPlatform("PC");
+        table.put(id, product);
+    }
+}
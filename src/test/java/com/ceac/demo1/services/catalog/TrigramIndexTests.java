@@ -0,0 +1,101 @@
+package com.ceac.demo1.services.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrigramIndexTests {
+
+    private static TrigramIndex catalog() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Elden Ring", "rpg,openworld", "Bandai Namco");
+        index.put(2, "Ring Fit Adventure", "fitness", "Nintendo");
+        index.put(3, "Pokémon Rojo", "rpg", "Nintendo");
+        index.put(4, "The Legend of Zelda", "aventura,openworld", "Nintendo");
+        return index;
+    }
+
+    @Test
+    void findsByPrefixAccentsAndOtherFields() {
+        TrigramIndex index = catalog();
+
+        assertArrayEquals(new long[]{1}, index.search("eld", 0, 10).ids());
+        assertArrayEquals(new long[]{3}, index.search("POKEMON", 0, 10).ids());
+        assertEquals(3, index.search("nintendo", 0, 10).total());
+        assertEquals(2, index.search("openworld", 0, 10).total());
+        assertEquals(0, index.search("halo", 0, 10).total());
+    }
+
+    @Test
+    void ranksTitleMatchesFirstAndPages() {
+        TrigramIndex index = catalog();
+
+        TrigramIndex.Hits hits = index.search("ring", 0, 1);
+        assertEquals(2, hits.total());
+        assertEquals(1, hits.ids().length);
+        assertEquals(1, index.search("ring", 1, 1).ids().length);
+        assertEquals(0, index.search("ring", 2, 1).ids().length);
+    }
+
+    @Test
+    void toleratesOneTypoInLongQueries() {
+        assertArrayEquals(new long[]{4}, catalog().search("legemd of zelda", 0, 10).ids());
+    }
+
+    @Test
+    void updatesAndRemovals() {
+        TrigramIndex index = catalog();
+        index.put(1, "Dark Souls", "rpg", "Bandai Namco");
+        assertEquals(0, index.search("elden", 0, 10).total());
+        assertArrayEquals(new long[]{1}, index.search("souls", 0, 10).ids());
+
+        index.remove(1);
+        assertEquals(0, index.search("souls", 0, 10).total());
+        assertEquals(3, index.size());
+
+        for (int i = 0; i < 3000; i++) {
+            index.put(100, "Juego " + i, null, null); // fuerza la compactación
+        }
+        assertArrayEquals(new long[]{3}, index.search("pokemon", 0, 10).ids());
+        assertArrayEquals(new long[]{100}, index.search("juego 2999", 0, 10).ids());
+    }
+
+    @Test
+    void scoresStayPositiveWithManyDeletedDocuments() {
+        TrigramIndex index = new TrigramIndex();
+        for (int i = 0; i < 1000; i++) {
+            index.put(i, "Zelda " + i, null, null);
+        }
+        for (int i = 1; i < 1000; i++) {
+            index.remove(i); // menos de 1024 borrados: las listas aún los cuentan
+        }
+        index.put(5000, "Mario", null, null);
+
+        TrigramIndex.Hits hits = index.search("zelda", 0, 10);
+        assertArrayEquals(new long[]{0}, hits.ids());
+        assertTrue(hits.scores()[0] > 0, "score " + hits.scores()[0]);
+    }
+
+    @Test
+    void repeatedWordsInTheQueryCountOnce() {
+        assertArrayEquals(TrigramIndex.queryTrigrams("ring ring"), TrigramIndex.queryTrigrams("ring ring ring ring"));
+        assertArrayEquals(new long[]{1}, catalog().search("elden elden elden ring", 0, 10).ids());
+    }
+
+    @Test
+    void cursorWalksTheSameOrderAsPages() {
+        TrigramIndex index = catalog();
+        long[] all = index.search("nintendo", 0, 10).ids();
+
+        TrigramIndex.Hits first = index.search("nintendo", 0, 2);
+        TrigramIndex.Hits rest = index.searchAfter("nintendo", first.scores()[1], first.ids()[1], 10);
+        assertArrayEquals(new long[]{all[0], all[1]}, first.ids());
+        assertArrayEquals(new long[]{all[2]}, rest.ids());
+
+        ProductCursor cursor = ProductCursor.decode(new ProductCursor(all[1], first.scores()[1]).encode());
+        assertEquals(all[1], cursor.id());
+        assertEquals(first.scores()[1], cursor.score());
+    }
+}